@@ -0,0 +1,124 @@
+/**
+ * BackgroundSaver.java
+ *
+ * Saves the sharded repository on a background thread. The repository is
+ * encoded in memory on the caller's thread, which is quick, and the shard
+ * files and index are then written to disk while the caller goes on reading
+ * input. At most one save is written and one more waits at a time; asking for
+ * a third blocks until the oldest is on disk, so a slow disk holds ingest back
+ * instead of filling memory with snapshots.
+ */
+
+package appDomain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single background writer for repository snapshots.
+ */
+public class BackgroundSaver {
+    private static final int PENDING = 2; // snapshots being written or waiting to be
+
+    private final File index;                               // index file of the repository
+    private final Semaphore slots = new Semaphore(PENDING); // back-pressure on save
+    private final ExecutorService writer;                   // thread writing the snapshots in order
+    private volatile IOException failure;                   // error of the latest save, null if it succeeded
+
+    /**
+     * Creates a saver writing to the given index file and the shard files beside it.
+     * Precondition: None.
+     * Postcondition: The writer thread does not keep the program running on its own.
+     *
+     * @param index index file of the repository
+     */
+    public BackgroundSaver(File index) {
+        this.index = index;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "repository-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Takes a snapshot of the repository and queues it to be written.
+     * Precondition: repository's tree is a ShardedWordTree.
+     * Postcondition: The repository can be changed again; blocks first while two saves are pending.
+     *
+     * @param repository repository to save
+     * @throws IOException if the repository cannot be serialized
+     */
+    public void save(Repository repository) throws IOException {
+        save(repository, null);
+    }
+
+    /**
+     * Takes a snapshot of the repository and queues it to be written, running a task once it is committed.
+     * Precondition: repository's tree is a ShardedWordTree.
+     * Postcondition: The repository can be changed again; blocks first while two saves are pending.
+     * committed runs on the writer thread after the index is on disk, and not at all if the save fails.
+     *
+     * @param repository repository to save
+     * @param committed task to run once the snapshot is on disk, or null
+     * @throws IOException if the repository cannot be serialized
+     */
+    public void save(Repository repository, Runnable committed) throws IOException {
+        slots.acquireUninterruptibly();
+        ShardedWordTree.Snapshot shards;
+        ByteBuffer[] indexFrame;
+        try {
+            shards = ((ShardedWordTree) repository.getTree()).snapshot();
+            indexFrame = Segment.encode(repository);
+        } catch (IOException | RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+
+        writer.execute(() -> {
+            try {
+                shards.write();
+                Segment.write(index, indexFrame); // commits the snapshot
+                shards.removeStaleFiles();
+                failure = null;
+                if (committed != null) {
+                    committed.run();
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    /**
+     * Waits for every queued save to reach the disk and stops the writer thread.
+     * Precondition: No further saves are requested.
+     * Postcondition: Returns true if the last save succeeded; otherwise its error is reported.
+     *
+     * @return true if the repository on disk matches the last snapshot
+     */
+    public boolean finish() {
+        writer.shutdown();
+        try {
+            while (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.println("Still saving the repository...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while saving the repository.");
+            return false;
+        }
+        if (failure != null) {
+            System.err.println("Failed to save tree: " + failure.getMessage());
+            return false;
+        }
+        return true;
+    }
+}
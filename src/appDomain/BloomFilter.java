@@ -0,0 +1,142 @@
+/**
+ * BloomFilter.java
+ *
+ * Answers "is this word possibly in the shard?" with a few bit probes, so a
+ * lookup of a word the repository does not hold is answered without reading
+ * the shard from disk or descending its tree. Sorted runs of the LSM index
+ * carry one as well, written with their sparse index. A filter may claim a word that
+ * is absent, about one time in a hundred, but never misses a word that was
+ * added. Removed words keep their bits until the filter is rebuilt.
+ */
+
+package appDomain;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Bit-array Bloom filter over word texts.
+ */
+class BloomFilter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int BITS_PER_WORD = 10; // about 1% false positives with PROBES probes
+    private static final int PROBES = 7;
+
+    private final long[] bits; // filter bits, 64 per element
+    private final int mask;    // number of bits minus one, a power of two minus one
+
+    /**
+     * Creates an empty filter sized for a number of words.
+     * Precondition: expected is not negative.
+     * Postcondition: No word is claimed.
+     *
+     * @param expected number of words the filter should hold
+     */
+    BloomFilter(int expected) {
+        long wanted = Math.max(64L, (long) expected * BITS_PER_WORD);
+        int size = (int) Math.min(1L << 30, Long.highestOneBit(wanted - 1) << 1);
+        this.bits = new long[size >>> 6];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Creates a filter over bits written by write.
+     */
+    private BloomFilter(long[] bits) {
+        this.bits = bits;
+        this.mask = (bits.length << 6) - 1;
+    }
+
+    /**
+     * Records a word.
+     * Precondition: text must not be null.
+     * Postcondition: mightContain(text) returns true.
+     *
+     * @param text word text
+     */
+    void add(String text) {
+        long hash = hash(text);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks whether a word may have been recorded.
+     * Precondition: text must not be null.
+     * Postcondition: Filter is unchanged.
+     *
+     * @param text word text
+     * @return false if the word was certainly never added
+     */
+    boolean mightContain(String text) {
+        long hash = hash(text);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the filter bits, for files that are not serialized as objects.
+     * Precondition: out must not be null.
+     * Postcondition: read returns an equal filter from the written bytes.
+     *
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(bits.length);
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads a filter written by write.
+     * Precondition: in is positioned at a filter written by write.
+     * Postcondition: The filter claims the same words as the written one.
+     *
+     * @param in source
+     * @return the filter
+     * @throws IOException if reading fails or the size is not valid
+     */
+    static BloomFilter read(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > 1 << 24 || Integer.bitCount(length) != 1) {
+            throw new IOException("Invalid Bloom filter size: " + length);
+        }
+        long[] bits = new long[length];
+        for (int i = 0; i < length; i++) {
+            bits[i] = in.readLong();
+        }
+        return new BloomFilter(bits);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters, with a final mix so both halves
+     * can serve as independent probe hashes.
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash | 1L << 32; // odd second hash, so the probes cover every bit
+    }
+}
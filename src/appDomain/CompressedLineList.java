@@ -0,0 +1,204 @@
+/**
+ * CompressedLineList.java
+ *
+ * Stores the line numbers of a word in one file as a byte array of
+ * variable-length deltas instead of a list of Integer objects. Line numbers
+ * are recorded in ascending order while a file is read, so most deltas fit in
+ * a single byte, both in memory and in the saved repository.
+ */
+
+package appDomain;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Append-only list of line numbers encoded as zig-zag varint deltas.
+ * Each value is stored as the difference from the previous one; zig-zag
+ * encoding keeps the rare backwards step (a file read twice) small as well.
+ */
+public class CompressedLineList extends AbstractList<Integer> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private transient byte[] data = new byte[8]; // encoded deltas
+    private transient int length;                // bytes of data in use
+    private int size;                            // number of line numbers
+    private int last;                            // last line number appended
+
+    // Decoding position cached so that sequential get calls do not restart from the beginning
+    private transient int cursorIndex;
+    private transient int cursorOffset;
+    private transient int cursorValue;
+
+    /**
+     * Appends a line number.
+     * Precondition: line must not be null.
+     * Postcondition: The delta from the previous line number is encoded at the end of the list.
+     *
+     * @param line the line number to add
+     * @return true, as required by List
+     */
+    @Override
+    public boolean add(Integer line) {
+        int delta = line - last;
+        int zigzag = (delta << 1) ^ (delta >> 31);
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        while ((zigzag & ~0x7F) != 0) {
+            data[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        data[length++] = (byte) zigzag;
+        last = line;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Returns the line number at a position, decoding forward from the cached position when possible.
+     * Precondition: 0 &lt;= index &lt; size().
+     * Postcondition: List is unchanged.
+     *
+     * @param index position of the line number
+     * @return the line number
+     * @throws IndexOutOfBoundsException if index is outside the list
+     */
+    @Override
+    public Integer get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index < cursorIndex) {
+            cursorIndex = 0;
+            cursorOffset = 0;
+            cursorValue = 0;
+        }
+        while (cursorIndex <= index) {
+            int zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[cursorOffset++];
+                zigzag |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            cursorValue += (zigzag >>> 1) ^ -(zigzag & 1);
+            cursorIndex++;
+        }
+        return cursorValue;
+    }
+
+    /**
+     * Returns the number of line numbers stored.
+     * Precondition: None.
+     * Postcondition: Size is returned.
+     *
+     * @return number of line numbers
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an iterator that decodes the line numbers in one forward pass.
+     * Precondition: None.
+     * Postcondition: List is unchanged.
+     *
+     * @return sequential iterator
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int index;  // number of values decoded
+            private int offset; // position of the next value in data
+            private int value;  // last value decoded
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                int zigzag = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[offset++];
+                    zigzag |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                value += (zigzag >>> 1) ^ -(zigzag & 1);
+                index++;
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Writes the list in its compressed form to a postings record.
+     * Precondition: out must not be null.
+     * Postcondition: readFrom restores an equal list from the written bytes.
+     *
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(last);
+        out.writeInt(length);
+        out.write(data, 0, length);
+    }
+
+    /**
+     * Reads a list written by writeTo.
+     * Precondition: in is positioned at a list written by writeTo.
+     * Postcondition: Returns a list that can still be appended to.
+     *
+     * @param in source
+     * @return the restored list
+     * @throws IOException if reading fails
+     */
+    static CompressedLineList readFrom(DataInput in) throws IOException {
+        CompressedLineList lines = new CompressedLineList();
+        lines.size = in.readInt();
+        lines.last = in.readInt();
+        lines.length = in.readInt();
+        lines.data = new byte[Math.max(8, lines.length)];
+        in.readFully(lines.data, 0, lines.length);
+        return lines;
+    }
+
+    /**
+     * Writes only the bytes in use so the saved repository holds the compressed form.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(length);
+        out.write(data, 0, length);
+    }
+
+    /**
+     * Reads the compressed bytes written by writeObject.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        length = in.readInt();
+        data = new byte[Math.max(8, length)];
+        in.readFully(data, 0, length);
+    }
+}
@@ -0,0 +1,645 @@
+/**
+ * LsmWordIndex.java
+ *
+ * Optional storage engine for repositories fed continuously. New occurrences
+ * go into an in-memory BSTree, the memtable, which is written out as an
+ * immutable sorted run once it holds enough occurrences. A background thread
+ * merges neighbouring runs of similar size whenever several have piled up
+ * (size-tiered compaction), so ingest never rewrites the whole repository
+ * and a large old run is left alone while small new runs are merged. Only
+ * the memtable and the sparse index and Bloom filter of each run are kept on
+ * the heap. Reads merge the runs and the memtable; a word lookup skips the
+ * runs whose filter rules the word out.
+ *
+ * Removing a file does not touch the runs: it records a tombstone, and the
+ * file's postings in runs written before the tombstone are ignored by reads
+ * and dropped when those runs are merged.
+ */
+
+package appDomain;
+
+import implementations.BSTree;
+import implementations.BSTreeNode;
+import utilities.Iterator;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Word repository kept as a memtable and a list of sorted runs on disk.
+ */
+public class LsmWordIndex implements Closeable {
+    private static final String MANIFEST_FILE = "manifest.ser";
+    private static final Pattern RUN_FILE = Pattern.compile("run-\\d+\\.lsm(\\.tmp)?");
+    private static final int MEMTABLE_LIMIT = 1 << 20; // occurrences held before the memtable is flushed
+    private static final int MERGE_RUNS = 4;           // similar runs merged into one
+    private static final int SIZE_RATIO = 2;           // largest to smallest size of runs counted as similar
+    private static final int MAX_RUNS = 16;            // runs that force a merge even of dissimilar runs
+
+    private final File directory;                                        // directory of the runs and manifest
+    private final int memtableLimit;                                     // occurrences held before a flush
+    private BSTree<Word> memtable = new BSTree<>();                      // words added since the last flush
+    private int memtableSize;                                            // occurrences in the memtable
+    private volatile List<SortedRun> runs;                               // runs oldest first, replaced, never changed
+    private final List<SortedRun> retired = new ArrayList<>();           // merged runs waiting to be deleted
+    private final Map<String, Long> removed = new ConcurrentHashMap<>(); // file to first run id still valid for it
+    private final Set<String> files = ConcurrentHashMap.newKeySet();     // files holding occurrences
+    private long nextId;                                                 // id of the next flushed run
+    private long nextFile;                                               // number of the next run file
+    private final ExecutorService merger;                                // thread merging runs
+    private final AtomicBoolean merging = new AtomicBoolean();           // a merge is queued or running
+    private volatile IOException failure;                                // error of the last merge, null if none
+
+    /**
+     * State saved after every flush and merge.
+     */
+    private static class Manifest implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        List<String> runs;         // run file names, oldest first
+        Map<String, Long> removed; // tombstones
+        Set<String> files;         // files holding occurrences
+        long nextId;               // id of the next flushed run
+        long nextFile;             // number of the next run file
+    }
+
+    /**
+     * Creates an index over the given state.
+     */
+    private LsmWordIndex(File directory, int memtableLimit, List<SortedRun> runs, Manifest manifest) {
+        this.directory = directory;
+        this.memtableLimit = memtableLimit;
+        this.runs = Collections.unmodifiableList(runs);
+        this.removed.putAll(manifest.removed);
+        this.files.addAll(manifest.files);
+        this.nextId = manifest.nextId;
+        this.nextFile = manifest.nextFile;
+        this.merger = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "lsm-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the index stored in a directory, creating it if it does not exist.
+     * Precondition: directory must not be null.
+     * Postcondition: Run files not listed in the manifest are deleted.
+     *
+     * @param directory directory of the index
+     * @return the opened index
+     * @throws IOException if the index cannot be read
+     */
+    public static LsmWordIndex open(File directory) throws IOException {
+        return open(directory, MEMTABLE_LIMIT);
+    }
+
+    /**
+     * Opens the index stored in a directory with a given memtable size.
+     * Precondition: directory must not be null; memtableLimit is positive.
+     * Postcondition: Run files not listed in the manifest are deleted.
+     *
+     * @param directory directory of the index
+     * @param memtableLimit occurrences held in memory before they are flushed to a run
+     * @return the opened index
+     * @throws IOException if the index cannot be read
+     */
+    public static LsmWordIndex open(File directory, int memtableLimit) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        Manifest manifest;
+        File manifestFile = new File(directory, MANIFEST_FILE);
+        if (manifestFile.exists()) {
+            try {
+                manifest = (Manifest) Segment.read(manifestFile);
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Not an index manifest: " + manifestFile, e);
+            }
+        } else {
+            manifest = new Manifest();
+            manifest.runs = new ArrayList<>();
+            manifest.removed = new HashMap<>();
+            manifest.files = new HashSet<>();
+            manifest.nextId = 1;
+        }
+
+        List<SortedRun> runs = new ArrayList<>();
+        try {
+            for (String name : manifest.runs) {
+                runs.add(new SortedRun(new File(directory, name)));
+            }
+        } catch (IOException e) {
+            for (SortedRun run : runs) {
+                run.close();
+            }
+            throw e;
+        }
+
+        // Runs of a flush or merge that did not reach the manifest
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (RUN_FILE.matcher(child.getName()).matches() && !manifest.runs.contains(child.getName())) {
+                    child.delete();
+                }
+            }
+        }
+        return new LsmWordIndex(directory, memtableLimit, runs, manifest);
+    }
+
+    /**
+     * Records an occurrence of a word, flushing the memtable to a run when it is full.
+     * Precondition: wordText and filename must not be null, lineNumber is positive.
+     * Postcondition: The occurrence is in the memtable or in the newest run.
+     *
+     * @param wordText the word to record
+     * @param filename the file it was read from
+     * @param lineNumber the line it was read from
+     * @throws IOException if a flush fails
+     */
+    public void addOccurrence(String wordText, String filename, int lineNumber) throws IOException {
+        Word word = new Word(wordText);
+        BSTreeNode<Word> found = memtable.search(word);
+        if (found != null) {
+            word = found.getElement();
+        } else {
+            memtable.add(word);
+        }
+        word.addOccurrence(filename, lineNumber);
+        files.add(filename);
+        if (++memtableSize >= memtableLimit) {
+            flush();
+        }
+    }
+
+    /**
+     * Removes every occurrence from a file.
+     * Precondition: filename must not be null.
+     * Postcondition: Reads no longer return the file's occurrences.
+     *
+     * @param filename the file to remove
+     * @return true if the index held occurrences from the file
+     */
+    public boolean removeFile(String filename) {
+        if (!files.remove(filename)) {
+            return false;
+        }
+        if (!runs.isEmpty()) {
+            removed.put(filename, nextId);
+        }
+        List<Word> empty = new ArrayList<>();
+        Iterator<Word> iterator = memtable.inorderIterator();
+        while (iterator.hasNext()) {
+            Word word = iterator.next();
+            int before = word.getFrequency();
+            if (word.removeFile(filename) && word.getFrequency() == 0) {
+                empty.add(word);
+            }
+            memtableSize -= before - word.getFrequency();
+        }
+        for (Word word : empty) {
+            memtable.remove(word);
+        }
+        return true;
+    }
+
+    /**
+     * Looks up one word in every run and the memtable.
+     * Precondition: wordText must not be null.
+     * Postcondition: Index is unchanged.
+     *
+     * @param wordText the word to look up
+     * @return a new Word holding the word's occurrences, or null if absent
+     * @throws IOException if a run cannot be read
+     */
+    public Word get(String wordText) throws IOException {
+        String text = Tokenizer.fold(wordText);
+        List<SortedRun.Entry> entries = new ArrayList<>();
+        for (SortedRun run : runs) {
+            SortedRun.Entry entry = run.get(text);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        BSTreeNode<Word> found = memtable.search(new Word(text));
+        if (found != null) {
+            entries.add(memtableEntry(found.getElement()));
+        }
+        return merge(text, entries);
+    }
+
+    /**
+     * Iterates over every word in alphabetical order.
+     * Precondition: No word is added or removed while the iterator is in use.
+     * Postcondition: Returns an iterator merging the runs and the memtable.
+     *
+     * @return in-order iterator
+     * @throws IOException if a run cannot be read
+     */
+    public Iterator<Word> inorderIterator() throws IOException {
+        return rangeIterator(null, null);
+    }
+
+    /**
+     * Iterates over the words in the half-open range [from, to).
+     * Precondition: No word is added or removed while the iterator is in use.
+     * Either bound may be null for an open end.
+     * Postcondition: Index is unchanged. A run that cannot be read is reported
+     * as an UncheckedIOException from next.
+     *
+     * @param from inclusive lower bound, or null
+     * @param to exclusive upper bound, or null
+     * @return in-order iterator over the range
+     * @throws IOException if a run cannot be read
+     */
+    public Iterator<Word> rangeIterator(String from, String to) throws IOException {
+        MergeIterator merged = new MergeIterator(runs, memtable.rangeIterator(
+                (from != null) ? new Word(from) : null, (to != null) ? new Word(to) : null), from);
+        return new Iterator<Word>() {
+            private Word next = advance(); // next word in range, null at the end
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Word next() throws NoSuchElementException {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Word word = next;
+                try {
+                    next = advance();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return word;
+            }
+
+            private Word advance() throws IOException {
+                List<SortedRun.Entry> group;
+                while ((group = merged.nextGroup()) != null) {
+                    String text = group.get(0).text;
+                    if (to != null && text.compareTo(to) >= 0) {
+                        return null;
+                    }
+                    Word word = merge(text, group);
+                    if (word != null) {
+                        return word;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of sorted runs on disk.
+     * Precondition: None.
+     * Postcondition: Index is unchanged.
+     *
+     * @return number of runs
+     */
+    public int runCount() {
+        return runs.size();
+    }
+
+    /**
+     * Writes the memtable to a new run, even if it is not full.
+     * Precondition: None.
+     * Postcondition: The memtable is empty and its words are in the newest run.
+     *
+     * @throws IOException if the run cannot be written
+     */
+    public void flush() throws IOException {
+        deleteRetired();
+        if (memtable.isEmpty()) {
+            return;
+        }
+        long id = nextId;
+        String name;
+        synchronized (this) {
+            name = "run-" + nextFile++ + ".lsm";
+        }
+        try (SortedRun.Writer writer = new SortedRun.Writer(new File(directory, name), id, memtable.size())) {
+            Iterator<Word> iterator = memtable.inorderIterator();
+            while (iterator.hasNext()) {
+                Word word = iterator.next();
+                writer.append(word.getWordText(), word.getOccurrences(), null);
+            }
+            writer.finish();
+        }
+        SortedRun run = new SortedRun(new File(directory, name));
+        synchronized (this) {
+            List<SortedRun> next = new ArrayList<>(runs);
+            next.add(run);
+            runs = Collections.unmodifiableList(next);
+            nextId = id + 1;
+            writeManifest();
+        }
+        memtable = new BSTree<>();
+        memtableSize = 0;
+
+        if (pickMerge(runs) >= 0 && merging.compareAndSet(false, true)) {
+            merger.execute(this::mergeRuns);
+        }
+    }
+
+    /**
+     * Flushes the memtable, waits for a running merge and closes every run.
+     * Precondition: None.
+     * Postcondition: Everything added is on disk and listed in the manifest.
+     *
+     * @throws IOException if the memtable cannot be flushed or the last merge failed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            merger.shutdown();
+            try {
+                while (!merger.awaitTermination(1, TimeUnit.MINUTES)) {
+                    System.out.println("Still merging index runs...");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while merging index runs");
+            }
+            synchronized (this) {
+                writeManifest();
+            }
+            deleteRetired();
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            merger.shutdownNow();
+            for (SortedRun run : runs) {
+                run.close();
+            }
+        }
+    }
+
+    /**
+     * Merges tiers of similar runs on the merger thread until none is left.
+     */
+    private void mergeRuns() {
+        try {
+            int start;
+            while ((start = pickMerge(runs)) >= 0) {
+                mergeRuns(start);
+            }
+            failure = null;
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            merging.set(false);
+        }
+    }
+
+    /**
+     * Chooses the runs to merge next: the newest MERGE_RUNS neighbouring runs
+     * whose sizes are within SIZE_RATIO of each other. Each merge therefore
+     * rewrites runs about as large as one another, and a run is rewritten
+     * only once every time its data grows by about MERGE_RUNS times, so the
+     * total bytes written grow as n log n rather than with the square of the
+     * index. Only neighbours are merged, so the merged run keeps its place in
+     * the age order. Should uneven runs pile up to MAX_RUNS, the neighbours
+     * with the fewest bytes are merged instead.
+     *
+     * @return position of the oldest run to merge, or -1 if no merge is due
+     */
+    private static int pickMerge(List<SortedRun> runs) {
+        for (int start = runs.size() - MERGE_RUNS; start >= 0; start--) {
+            long smallest = Long.MAX_VALUE;
+            long largest = 0;
+            for (int i = start; i < start + MERGE_RUNS; i++) {
+                smallest = Math.min(smallest, runs.get(i).size());
+                largest = Math.max(largest, runs.get(i).size());
+            }
+            if (largest <= SIZE_RATIO * smallest) {
+                return start;
+            }
+        }
+        if (runs.size() < MAX_RUNS) {
+            return -1;
+        }
+        int best = 0;
+        long bestBytes = Long.MAX_VALUE;
+        for (int start = 0; start + MERGE_RUNS <= runs.size(); start++) {
+            long bytes = 0;
+            for (int i = start; i < start + MERGE_RUNS; i++) {
+                bytes += runs.get(i).size();
+            }
+            if (bytes < bestBytes) {
+                best = start;
+                bestBytes = bytes;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Merges MERGE_RUNS neighbouring runs into one. The merged run takes the id
+     * of the newest run it replaces, so it stays older than every later run;
+     * postings hidden by a tombstone are left out.
+     *
+     * @param start position of the oldest run to merge
+     * @throws IOException if the merged run cannot be written
+     */
+    private void mergeRuns(int start) throws IOException {
+        List<SortedRun> sources = new ArrayList<>(runs.subList(start, start + MERGE_RUNS));
+        long id = sources.get(sources.size() - 1).id();
+        long words = 0;
+        for (SortedRun source : sources) {
+            words += source.count();
+        }
+        String name;
+        synchronized (this) {
+            name = "run-" + nextFile++ + ".lsm";
+        }
+        try (SortedRun.Writer writer = new SortedRun.Writer(new File(directory, name), id,
+                (int) Math.min(words, Integer.MAX_VALUE))) {
+            MergeIterator merged = new MergeIterator(sources, null, null);
+            List<SortedRun.Entry> group;
+            while ((group = merged.nextGroup()) != null) {
+                Word word = merge(group.get(0).text, group);
+                if (word != null) {
+                    writer.append(word.getWordText(), word.getOccurrences(), null);
+                }
+            }
+            writer.finish();
+        }
+        SortedRun run = new SortedRun(new File(directory, name));
+        synchronized (this) {
+            // Flushes only append, so the sources are still at the same positions
+            List<SortedRun> next = new ArrayList<>(runs.subList(0, start));
+            next.add(run);
+            next.addAll(runs.subList(start + MERGE_RUNS, runs.size()));
+            runs = Collections.unmodifiableList(next);
+            synchronized (retired) {
+                retired.addAll(sources);
+            }
+            // Once the oldest run is merged, tombstones older than it have nothing left to hide
+            if (start == 0) {
+                removed.values().removeIf(first -> first <= run.id());
+            }
+            writeManifest();
+        }
+    }
+
+    /**
+     * Combines the entries of one word, oldest first, into a Word.
+     * Postings of removed files are left out; the line numbers of a file
+     * split across runs by a flush are concatenated into a new list, so the
+     * lists of the memtable are never changed.
+     *
+     * @return the combined word, or null if nothing of it remains
+     */
+    private Word merge(String text, List<SortedRun.Entry> entries) {
+        Map<String, List<Integer>> occurrences = new HashMap<>();
+        for (SortedRun.Entry entry : entries) {
+            for (Map.Entry<String, List<Integer>> lines : entry.occurrences.entrySet()) {
+                if (isRemoved(lines.getKey(), entry.runId)) {
+                    continue;
+                }
+                List<Integer> earlier = occurrences.get(lines.getKey());
+                if (earlier == null) {
+                    occurrences.put(lines.getKey(), lines.getValue());
+                } else {
+                    CompressedLineList joined = new CompressedLineList();
+                    joined.addAll(earlier);
+                    joined.addAll(lines.getValue());
+                    occurrences.put(lines.getKey(), joined);
+                }
+            }
+        }
+        return occurrences.isEmpty() ? null : new Word(text, occurrences, null);
+    }
+
+    /**
+     * Returns whether a tombstone hides a file's postings in a run.
+     */
+    private boolean isRemoved(String filename, long runId) {
+        Long first = removed.get(filename);
+        return first != null && runId < first;
+    }
+
+    /**
+     * Wraps a memtable word as an entry newer than every run.
+     */
+    private static SortedRun.Entry memtableEntry(Word word) {
+        return new SortedRun.Entry(word.getWordText(), word.getOccurrences(), null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Saves the run list, tombstones and counters.
+     * Precondition: The caller holds the lock of this index.
+     */
+    private void writeManifest() throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.runs = new ArrayList<>();
+        for (SortedRun run : runs) {
+            manifest.runs.add(run.file().getName());
+        }
+        manifest.removed = new HashMap<>(removed);
+        manifest.files = new HashSet<>(files);
+        manifest.nextId = nextId;
+        manifest.nextFile = nextFile;
+        Segment.write(new File(directory, MANIFEST_FILE), manifest);
+    }
+
+    /**
+     * Closes and deletes the runs replaced by finished merges.
+     */
+    private void deleteRetired() throws IOException {
+        synchronized (retired) {
+            for (SortedRun run : retired) {
+                run.close();
+                run.file().delete();
+            }
+            retired.clear();
+        }
+    }
+
+    /**
+     * K-way merge of run cursors and a memtable iterator that returns the
+     * entries of one word at a time, oldest run first.
+     */
+    private static class MergeIterator {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(); // current entry of every source
+
+        /**
+         * Current entry of one source.
+         */
+        private static class Head implements Comparable<Head> {
+            SortedRun.Entry entry;     // entry not yet returned
+            SortedRun.Cursor cursor;   // run source, or null
+            Iterator<Word> memtable;   // memtable source, or null
+
+            /**
+             * Moves to the next entry of the source.
+             *
+             * @return false at the end of the source
+             */
+            boolean advance() throws IOException {
+                if (cursor != null) {
+                    entry = cursor.next();
+                } else {
+                    entry = memtable.hasNext() ? memtableEntry(memtable.next()) : null;
+                }
+                return entry != null;
+            }
+
+            @Override
+            public int compareTo(Head other) {
+                int order = entry.text.compareTo(other.entry.text);
+                return (order != 0) ? order : Long.compare(entry.runId, other.entry.runId);
+            }
+        }
+
+        MergeIterator(List<SortedRun> runs, Iterator<Word> memtable, String from) throws IOException {
+            for (SortedRun run : runs) {
+                Head head = new Head();
+                head.cursor = run.cursor(from);
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+            if (memtable != null) {
+                Head head = new Head();
+                head.memtable = memtable;
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+        }
+
+        /**
+         * Returns every entry of the next word, oldest first, or null at the end.
+         */
+        List<SortedRun.Entry> nextGroup() throws IOException {
+            if (heads.isEmpty()) {
+                return null;
+            }
+            List<SortedRun.Entry> group = new ArrayList<>();
+            String text = heads.peek().entry.text;
+            while (!heads.isEmpty() && heads.peek().entry.text.equals(text)) {
+                Head head = heads.poll();
+                group.add(head.entry);
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+            return group;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * OffHeapArena.java
+ *
+ * Append-only byte storage kept outside the Java heap in direct ByteBuffer
+ * chunks. Records are addressed by a long so the arena can grow past the 2 GB
+ * limit of a single buffer, and the garbage collector never has to trace them.
+ */
+
+package appDomain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chunked direct-memory arena. A record never straddles two chunks.
+ */
+class OffHeapArena {
+    static final int CHUNK_BITS = 22;                 // 4 MB per chunk
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final long OFFSET_MASK = CHUNK_SIZE - 1;
+
+    private List<ByteBuffer> chunks = new ArrayList<>(); // allocated chunks in address order
+    private long top;                                   // address of the next free byte
+
+    /**
+     * Creates an arena with one chunk.
+     * Precondition: None.
+     * Postcondition: Address 0 is reserved so callers can use it as a null address.
+     */
+    OffHeapArena() {
+        chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+        top = 8;
+    }
+
+    /**
+     * Reserves space for a record.
+     * Precondition: 0 &lt; bytes &lt;= CHUNK_SIZE.
+     * Postcondition: Returns the address of bytes contiguous bytes inside one chunk.
+     *
+     * @param bytes size of the record
+     * @return address of the record
+     */
+    long allocate(int bytes) {
+        if (bytes <= 0 || bytes > CHUNK_SIZE) {
+            throw new IllegalArgumentException("Record size out of range: " + bytes);
+        }
+        if ((top & OFFSET_MASK) + bytes > CHUNK_SIZE) {
+            top = ((top >>> CHUNK_BITS) + 1) << CHUNK_BITS;
+        }
+        while ((top >>> CHUNK_BITS) >= chunks.size()) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+        }
+        long address = top;
+        top += bytes;
+        return address;
+    }
+
+    /**
+     * Returns the number of bytes handed out so far, including chunk tails skipped to keep records whole.
+     */
+    long size() {
+        return top;
+    }
+
+    /**
+     * Returns the chunk holding an address. Combine with offset(address) for bulk access.
+     */
+    ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> CHUNK_BITS));
+    }
+
+    /**
+     * Returns the position of an address inside its chunk.
+     */
+    static int offset(long address) {
+        return (int) (address & OFFSET_MASK);
+    }
+
+    byte get(long address) {
+        return chunk(address).get(offset(address));
+    }
+
+    void put(long address, byte value) {
+        chunk(address).put(offset(address), value);
+    }
+
+    int getInt(long address) {
+        return chunk(address).getInt(offset(address));
+    }
+
+    void putInt(long address, int value) {
+        chunk(address).putInt(offset(address), value);
+    }
+
+    long getLong(long address) {
+        return chunk(address).getLong(offset(address));
+    }
+
+    void putLong(long address, long value) {
+        chunk(address).putLong(offset(address), value);
+    }
+
+    /**
+     * Writes the used part of every chunk to a channel.
+     * Precondition: channel is open for writing.
+     * Postcondition: The arena can be restored with read.
+     *
+     * @param channel destination channel
+     * @throws IOException if writing fails
+     */
+    void write(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putLong(0, top);
+        writeFully(channel, header);
+
+        int used = (int) (top >>> CHUNK_BITS) + 1;
+        for (int i = 0; i < used && i < chunks.size(); i++) {
+            ByteBuffer view = chunks.get(i).duplicate();
+            view.clear();
+            view.limit(i == used - 1 ? offset(top) : CHUNK_SIZE);
+            writeFully(channel, view);
+        }
+    }
+
+    /**
+     * Reads an arena previously written with write.
+     * Precondition: channel is positioned at the start of a written arena.
+     * Postcondition: Returns an arena with the same contents and addresses.
+     *
+     * @param channel source channel
+     * @return restored arena
+     * @throws IOException if reading fails or the data is truncated
+     */
+    static OffHeapArena read(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        readFully(channel, header);
+
+        OffHeapArena arena = new OffHeapArena();
+        arena.top = header.getLong(0);
+        int used = (int) (arena.top >>> CHUNK_BITS) + 1;
+        for (int i = 0; i < used; i++) {
+            if (i == arena.chunks.size()) {
+                arena.chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+            }
+            ByteBuffer view = arena.chunks.get(i).duplicate();
+            view.clear();
+            view.limit(i == used - 1 ? offset(arena.top) : CHUNK_SIZE);
+            readFully(channel, view);
+        }
+        return arena;
+    }
+
+    /**
+     * Writes all remaining bytes of a buffer.
+     */
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Fills the remaining space of a buffer.
+     */
+    static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of repository file.");
+            }
+        }
+    }
+}
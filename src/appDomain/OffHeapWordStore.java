@@ -0,0 +1,796 @@
+/**
+ * OffHeapWordStore.java
+ *
+ * Optional storage engine for very large repositories. Term text and postings
+ * are packed into off-heap arenas, so the heap only holds a primitive hash
+ * table of term addresses and the list of file names. Heap size and garbage
+ * collection cost stay flat however many words and occurrences are stored;
+ * Word objects are only built on demand while a report is written.
+ *
+ * Removing a file retires its id, so its postings are skipped when words are
+ * built, and drops the words left without postings. Only the file's own words
+ * are visited: once a file is first removed, the store keeps the terms of
+ * every file. The space of removed postings and the retired ids are reclaimed
+ * when the store is saved, which writes a compacted copy.
+ */
+
+package appDomain;
+
+import utilities.Iterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Word repository whose terms and postings live in direct memory.
+ * Each term record holds its text and the addresses of a chain of posting
+ * blocks; each block holds varint-packed (file id, line) pairs.
+ */
+public class OffHeapWordStore {
+    private static final int MAGIC = 0x57544F48; // "WTOH"
+    private static final int VERSION = 2;        // 2 adds LAST_FILE to term records
+
+    // Term record layout: first block, last block, id of the last file posted, text length, text bytes
+    private static final int FIRST_BLOCK = 0;
+    private static final int LAST_BLOCK = 8;
+    private static final int LAST_FILE = 16;
+    private static final int LENGTH = 20;
+    private static final int TEXT = 24;
+    private static final int V1_LENGTH = 16; // text length in version 1 term records
+    private static final int V1_TEXT = 20;   // text bytes in version 1 term records
+
+    // Posting block layout: next block, bytes used, capacity, packed postings
+    private static final int NEXT = 0;
+    private static final int USED = 8;
+    private static final int CAPACITY = 12;
+    private static final int DATA = 16;
+    private static final int MIN_BLOCK = 16;   // first block of every term, in bytes of postings
+    private static final int MAX_BLOCK = 4096; // blocks double in size up to this limit
+
+    private OffHeapArena terms = new OffHeapArena();    // term records
+    private OffHeapArena postings = new OffHeapArena(); // posting blocks
+    private long[] table = new long[1024];              // term addresses by hash, 0 when empty
+    private int[] hashes = new int[1024];               // hash of each occupied slot
+    private int size;                                   // number of distinct terms
+    private List<String> files = new ArrayList<>();     // file names by id, null once removed
+    private Map<String, Integer> fileIds = new HashMap<>();
+    private List<TermList> fileTerms;                   // terms of each file id, null until a file is removed
+    private int removedFiles;                           // ids retired since the store was last compacted
+    private long[] sorted;                              // term addresses in key order, null when stale
+    private byte[] scratch = new byte[10];              // encoding buffer for one posting
+
+    /**
+     * Growable list of the term addresses holding postings of one file.
+     * A term may be listed twice if its postings of the file were interleaved with other files.
+     */
+    private static final class TermList {
+        long[] terms = new long[4]; // term addresses
+        int size;                   // number of addresses
+
+        void add(long term) {
+            if (size == terms.length) {
+                terms = Arrays.copyOf(terms, size * 2);
+            }
+            terms[size++] = term;
+        }
+    }
+
+    /**
+     * Records an occurrence of a word.
+     * Precondition: wordText and filename must not be null, lineNumber is positive.
+     * Postcondition: The word is added if new and the posting is appended to it.
+     *
+     * @param wordText the lowercase word
+     * @param filename file the word was found in
+     * @param lineNumber line the word was found on
+     */
+    public void addOccurrence(String wordText, String filename, int lineNumber) {
+        addPosting(termOf(wordText.getBytes(StandardCharsets.UTF_8)), fileIdOf(filename), lineNumber);
+    }
+
+    /**
+     * Removes every occurrence from a file, so reading it again replaces its postings.
+     * The first removal lists the terms of every file once; later removals only
+     * visit the terms of the removed file.
+     * Precondition: filename must not be null.
+     * Postcondition: Words no longer hold the file's occurrences and words left without any are gone.
+     *
+     * @param filename the file to remove
+     * @return true if the store held occurrences from the file
+     */
+    public boolean removeFile(String filename) {
+        Integer fileId = fileIds.remove(filename);
+        if (fileId == null) {
+            return false;
+        }
+        if (fileTerms == null) {
+            listFileTerms();
+        }
+        TermList list = fileTerms.get(fileId);
+        fileTerms.set(fileId, null);
+        files.set(fileId, null);
+        removedFiles++;
+
+        // Drop the terms that only occurred in the file
+        for (int i = 0; i < list.size; i++) {
+            if (!hasPostings(list.terms[i])) {
+                delete(list.terms[i]);
+            }
+        }
+        sorted = null;
+        return true;
+    }
+
+    /**
+     * Builds the Word for a stored term.
+     * Precondition: wordText must not be null.
+     * Postcondition: Store is unchanged.
+     *
+     * @param wordText the word to look up
+     * @return a new Word holding the term's occurrences, or null if absent
+     */
+    public Word get(String wordText) {
+        byte[] key = Tokenizer.fold(wordText).getBytes(StandardCharsets.UTF_8);
+        long term = table[find(key, hash(key))];
+        return (term == 0) ? null : word(term);
+    }
+
+    /**
+     * Returns the number of distinct words.
+     * Precondition: None.
+     * Postcondition: Size is returned.
+     *
+     * @return number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of direct-memory bytes in use by terms and postings.
+     * Precondition: None.
+     * Postcondition: Store is unchanged.
+     *
+     * @return off-heap bytes used
+     */
+    public long offHeapBytes() {
+        return terms.size() + postings.size();
+    }
+
+    /**
+     * Iterates over every word in alphabetical order.
+     * Precondition: None.
+     * Postcondition: Returns an iterator building each Word as it is reached.
+     *
+     * @return in-order iterator
+     */
+    public Iterator<Word> inorderIterator() {
+        return rangeIterator(null, null);
+    }
+
+    /**
+     * Iterates over the words in the half-open range [from, to).
+     * Precondition: None. Either bound may be null for an open end.
+     * Postcondition: Store is unchanged. Words are ordered by code point.
+     *
+     * @param from inclusive lower bound, or null
+     * @param to exclusive upper bound, or null
+     * @return in-order iterator over the range
+     */
+    public Iterator<Word> rangeIterator(String from, String to) {
+        long[] order = sortedTerms();
+        int start = (from == null) ? 0 : lowerBound(order, from.getBytes(StandardCharsets.UTF_8));
+        int end = (to == null) ? order.length : lowerBound(order, to.getBytes(StandardCharsets.UTF_8));
+
+        return new Iterator<Word>() {
+            private int position = start;
+
+            @Override
+            public boolean hasNext() {
+                return position < end;
+            }
+
+            @Override
+            public Word next() throws NoSuchElementException {
+                if (position >= end) {
+                    throw new NoSuchElementException();
+                }
+                return word(order[position++]);
+            }
+        };
+    }
+
+    /**
+     * Writes the store to a file through a single channel. The data goes to a
+     * temporary file that replaces the old file only once it is complete and on disk.
+     * A store that has had files removed is compacted first.
+     * Precondition: file is writable.
+     * Postcondition: The file holds the file names, both arenas and the term addresses.
+     *
+     * @param file destination file
+     * @throws IOException if writing fails
+     */
+    public void save(File file) throws IOException {
+        if (removedFiles > 0) {
+            compact();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(files.size()).flip();
+            OffHeapArena.writeFully(channel, header);
+
+            for (String name : files) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer entry = ByteBuffer.allocate(4 + bytes.length);
+                entry.putInt(bytes.length).put(bytes).flip();
+                OffHeapArena.writeFully(channel, entry);
+            }
+
+            terms.write(channel);
+            postings.write(channel);
+
+            ByteBuffer addresses = ByteBuffer.allocate(8 * 1024);
+            for (long term : table) {
+                if (term != 0) {
+                    if (!addresses.hasRemaining()) {
+                        addresses.flip();
+                        OffHeapArena.writeFully(channel, addresses);
+                        addresses.clear();
+                    }
+                    addresses.putLong(term);
+                }
+            }
+            addresses.flip();
+            OffHeapArena.writeFully(channel, addresses);
+            channel.force(true);
+        }
+        Segment.replace(temp.toPath(), file.toPath());
+    }
+
+    /**
+     * Reads a store written by save.
+     * Precondition: file exists.
+     * Postcondition: Returns a store with the same words and postings; the hash table is rebuilt.
+     *
+     * @param file source file
+     * @return loaded store
+     * @throws IOException if reading fails or the file is not an off-heap repository
+     */
+    public static OffHeapWordStore load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            OffHeapArena.readFully(channel, header);
+            header.flip();
+            int version = (header.getInt() == MAGIC) ? header.getInt() : -1;
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Not an off-heap repository: " + file);
+            }
+            int count = header.getInt();
+            int fileCount = header.getInt();
+
+            List<String> names = new ArrayList<>();
+            ByteBuffer length = ByteBuffer.allocate(4);
+            for (int i = 0; i < fileCount; i++) {
+                length.clear();
+                OffHeapArena.readFully(channel, length);
+                if (length.getInt(0) < 0) {
+                    // Version 1 stores wrote removed files with a length of -1
+                    if (version != 1) {
+                        throw new IOException("Damaged off-heap repository: " + file);
+                    }
+                    names.add(null);
+                    continue;
+                }
+                ByteBuffer name = ByteBuffer.allocate(length.getInt(0));
+                OffHeapArena.readFully(channel, name);
+                names.add(new String(name.array(), StandardCharsets.UTF_8));
+            }
+
+            OffHeapArena termArena = OffHeapArena.read(channel);
+            OffHeapArena postingArena = OffHeapArena.read(channel);
+            long[] addresses = new long[count];
+            ByteBuffer address = ByteBuffer.allocate(8);
+            for (int i = 0; i < count; i++) {
+                address.clear();
+                OffHeapArena.readFully(channel, address);
+                addresses[i] = address.getLong(0);
+            }
+
+            OffHeapWordStore store = new OffHeapWordStore();
+            if (version == 1) {
+                // Version 1 term records lack LAST_FILE, so their postings are copied into new records
+                store.copy(names, termArena, postingArena, addresses, V1_LENGTH, V1_TEXT);
+                return store;
+            }
+            for (int i = 0; i < names.size(); i++) {
+                store.files.add(names.get(i));
+                store.fileIds.put(names.get(i), i);
+            }
+            store.terms = termArena;
+            store.postings = postingArena;
+
+            int capacity = 1024;
+            while (count * 2 > capacity) {
+                capacity *= 2;
+            }
+            store.table = new long[capacity];
+            store.hashes = new int[capacity];
+            for (long term : addresses) {
+                byte[] key = store.text(term);
+                int hash = hash(key);
+                int slot = store.find(key, hash);
+                store.table[slot] = term;
+                store.hashes[slot] = hash;
+            }
+            store.size = count;
+            return store;
+        }
+    }
+
+    /**
+     * Returns the term record of a key, adding an empty one if the key is new.
+     */
+    private long termOf(byte[] key) {
+        int hash = hash(key);
+        int slot = find(key, hash);
+        long term = table[slot];
+
+        if (term == 0) {
+            term = newTerm(key);
+            table[slot] = term;
+            hashes[slot] = hash;
+            size++;
+            sorted = null;
+            if (size * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+        }
+        return term;
+    }
+
+    /**
+     * Returns the id of a file, giving it the next id if it is new.
+     */
+    private int fileIdOf(String filename) {
+        Integer fileId = fileIds.get(filename);
+        if (fileId == null) {
+            fileId = files.size();
+            files.add(filename);
+            fileIds.put(filename, fileId);
+            if (fileTerms != null) {
+                fileTerms.add(new TermList());
+            }
+        }
+        return fileId;
+    }
+
+    /**
+     * Appends a posting to a term, listing the term under its file when the file is new to it.
+     */
+    private void addPosting(long term, int fileId, int line) {
+        if (terms.getInt(term + LAST_FILE) != fileId) {
+            terms.putInt(term + LAST_FILE, fileId);
+            if (fileTerms != null) {
+                fileTerms.get(fileId).add(term);
+            }
+        }
+        append(term, fileId, line);
+    }
+
+    /**
+     * Lists the terms of every file that has not been removed, in one pass over all postings.
+     */
+    private void listFileTerms() {
+        fileTerms = new ArrayList<>();
+        for (String name : files) {
+            fileTerms.add((name != null) ? new TermList() : null);
+        }
+        for (long term : table) {
+            if (term != 0) {
+                PostingCursor cursor = new PostingCursor(postings, terms.getLong(term + FIRST_BLOCK));
+                int last = -1;
+                while (cursor.next()) {
+                    if (cursor.fileId != last) {
+                        last = cursor.fileId;
+                        TermList list = fileTerms.get(last);
+                        if (list != null) {
+                            list.add(term);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a term still holds a posting of a file that has not been removed.
+     */
+    private boolean hasPostings(long term) {
+        PostingCursor cursor = new PostingCursor(postings, terms.getLong(term + FIRST_BLOCK));
+        while (cursor.next()) {
+            if (files.get(cursor.fileId) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a term from the hash table, shifting back the terms probed past it
+     * so that every remaining term is still found by linear probing.
+     */
+    private void delete(long term) {
+        byte[] key = text(term);
+        int mask = table.length - 1;
+        int hole = find(key, hash(key));
+        if (table[hole] != term) {
+            return; // already deleted, as a term may be listed twice
+        }
+        table[hole] = 0;
+        for (int slot = (hole + 1) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int home = hashes[slot] & mask;
+            boolean reachable = (hole <= slot) ? (home > hole && home <= slot) : (home > hole || home <= slot);
+            if (!reachable) {
+                table[hole] = table[slot];
+                hashes[hole] = hashes[slot];
+                table[slot] = 0;
+                hole = slot;
+            }
+        }
+        size--;
+    }
+
+    /**
+     * Replaces the arenas with a copy holding only the postings of files that have
+     * not been removed, and numbers the remaining files without gaps.
+     */
+    private void compact() {
+        OffHeapWordStore copy = new OffHeapWordStore();
+        copy.copy(files, terms, postings, sortedTerms(), LENGTH, TEXT);
+        terms = copy.terms;
+        postings = copy.postings;
+        table = copy.table;
+        hashes = copy.hashes;
+        size = copy.size;
+        files = copy.files;
+        fileIds = copy.fileIds;
+        fileTerms = null;
+        removedFiles = 0;
+        sorted = null;
+    }
+
+    /**
+     * Adds the live postings of term records from other arenas to this store.
+     * Postings of files whose name is null are left out, and so are terms left without postings.
+     */
+    private void copy(List<String> names, OffHeapArena termArena, OffHeapArena postingArena, long[] addresses,
+            int lengthField, int textField) {
+        int[] ids = new int[names.size()];
+        Arrays.fill(ids, -1);
+        for (long address : addresses) {
+            long term = 0;
+            PostingCursor cursor = new PostingCursor(postingArena, termArena.getLong(address + FIRST_BLOCK));
+            while (cursor.next()) {
+                String name = names.get(cursor.fileId);
+                if (name == null) {
+                    continue;
+                }
+                if (term == 0) {
+                    term = termOf(text(termArena, address, lengthField, textField));
+                }
+                if (ids[cursor.fileId] < 0) {
+                    ids[cursor.fileId] = fileIdOf(name);
+                }
+                addPosting(term, ids[cursor.fileId], cursor.line);
+            }
+        }
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot where it belongs, by linear probing.
+     */
+    private int find(byte[] key, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0 && (hashes[slot] != hash || !matches(table[slot], key))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Moves every term into a table of the given capacity.
+     */
+    private void rehash(int capacity) {
+        long[] oldTable = table;
+        int[] oldHashes = hashes;
+        table = new long[capacity];
+        hashes = new int[capacity];
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != 0) {
+                int slot = oldHashes[i] & (capacity - 1);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                table[slot] = oldTable[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * Writes a new term record with no postings.
+     */
+    private long newTerm(byte[] key) {
+        long term = terms.allocate(TEXT + key.length);
+        terms.putLong(term + FIRST_BLOCK, 0);
+        terms.putLong(term + LAST_BLOCK, 0);
+        terms.putInt(term + LAST_FILE, -1);
+        terms.putInt(term + LENGTH, key.length);
+        ByteBuffer chunk = terms.chunk(term).duplicate();
+        chunk.position(OffHeapArena.offset(term + TEXT));
+        chunk.put(key);
+        return term;
+    }
+
+    /**
+     * Appends one posting to the last block of a term, chaining a larger block when it is full.
+     */
+    private void append(long term, int fileId, int line) {
+        int length = putVarint(scratch, putVarint(scratch, 0, fileId), line);
+        long block = terms.getLong(term + LAST_BLOCK);
+        int used = (block == 0) ? 0 : postings.getInt(block + USED);
+
+        if (block == 0 || used + length > postings.getInt(block + CAPACITY)) {
+            int capacity = (block == 0) ? MIN_BLOCK : Math.min(MAX_BLOCK, postings.getInt(block + CAPACITY) * 2);
+            long next = postings.allocate(DATA + capacity);
+            postings.putLong(next + NEXT, 0);
+            postings.putInt(next + USED, 0);
+            postings.putInt(next + CAPACITY, capacity);
+            if (block == 0) {
+                terms.putLong(term + FIRST_BLOCK, next);
+            } else {
+                postings.putLong(block + NEXT, next);
+            }
+            terms.putLong(term + LAST_BLOCK, next);
+            block = next;
+            used = 0;
+        }
+
+        for (int i = 0; i < length; i++) {
+            postings.put(block + DATA + used + i, scratch[i]);
+        }
+        postings.putInt(block + USED, used + length);
+    }
+
+    /**
+     * Builds a Word from a term record by decoding its posting blocks.
+     */
+    private Word word(long term) {
+        Word word = new Word(new String(text(term), StandardCharsets.UTF_8));
+        PostingCursor cursor = new PostingCursor(postings, terms.getLong(term + FIRST_BLOCK));
+        while (cursor.next()) {
+            String filename = files.get(cursor.fileId);
+            if (filename != null) {
+                word.addOccurrence(filename, cursor.line);
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Copies the text bytes of a term record.
+     */
+    private byte[] text(long term) {
+        return text(terms, term, LENGTH, TEXT);
+    }
+
+    /**
+     * Copies the text bytes of a term record laid out with the given field offsets.
+     */
+    private static byte[] text(OffHeapArena arena, long term, int lengthField, int textField) {
+        byte[] key = new byte[arena.getInt(term + lengthField)];
+        ByteBuffer chunk = arena.chunk(term).duplicate();
+        chunk.position(OffHeapArena.offset(term + textField));
+        chunk.get(key);
+        return key;
+    }
+
+    /**
+     * Checks whether a term record holds exactly the given key.
+     */
+    private boolean matches(long term, byte[] key) {
+        return compare(term, key) == 0;
+    }
+
+    /**
+     * Compares the text of a term record with a key as unsigned bytes, which is code point order.
+     */
+    private int compare(long term, byte[] key) {
+        ByteBuffer chunk = terms.chunk(term);
+        int offset = OffHeapArena.offset(term + TEXT);
+        int length = chunk.getInt(OffHeapArena.offset(term + LENGTH));
+        int limit = Math.min(length, key.length);
+        for (int i = 0; i < limit; i++) {
+            int diff = (chunk.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Compares the texts of two term records as unsigned bytes.
+     */
+    private int compareTerms(long first, long second) {
+        ByteBuffer firstChunk = terms.chunk(first);
+        ByteBuffer secondChunk = terms.chunk(second);
+        int firstOffset = OffHeapArena.offset(first + TEXT);
+        int secondOffset = OffHeapArena.offset(second + TEXT);
+        int firstLength = firstChunk.getInt(OffHeapArena.offset(first + LENGTH));
+        int secondLength = secondChunk.getInt(OffHeapArena.offset(second + LENGTH));
+        int limit = Math.min(firstLength, secondLength);
+        for (int i = 0; i < limit; i++) {
+            int diff = (firstChunk.get(firstOffset + i) & 0xFF) - (secondChunk.get(secondOffset + i) & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return firstLength - secondLength;
+    }
+
+    /**
+     * Returns the term addresses in key order, sorting them again only after new terms arrive.
+     */
+    private long[] sortedTerms() {
+        if (sorted == null) {
+            long[] order = new long[size];
+            int count = 0;
+            for (long term : table) {
+                if (term != 0) {
+                    order[count++] = term;
+                }
+            }
+            sortByText(order, new long[order.length], 0, order.length);
+            sorted = order;
+        }
+        return sorted;
+    }
+
+    /**
+     * Merge sorts addresses[low..high) by term text.
+     */
+    private void sortByText(long[] addresses, long[] buffer, int low, int high) {
+        if (high - low < 2) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        sortByText(addresses, buffer, low, middle);
+        sortByText(addresses, buffer, middle, high);
+
+        System.arraycopy(addresses, low, buffer, low, high - low);
+        int left = low;
+        int right = middle;
+        for (int i = low; i < high; i++) {
+            if (right >= high || (left < middle && compareTerms(buffer[left], buffer[right]) <= 0)) {
+                addresses[i] = buffer[left++];
+            } else {
+                addresses[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Finds the first position in order whose term is not less than key.
+     */
+    private int lowerBound(long[] order, byte[] key) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(order[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Writes value as an unsigned varint into buffer at position.
+     *
+     * @return position after the last byte written
+     */
+    private static int putVarint(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Spreads the bits of a key's FNV-1a hash so linear probing stays short.
+     */
+    private static int hash(byte[] key) {
+        int hash = 0x811C9DC5;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Cursor over the (file id, line) pairs of a chain of posting blocks.
+     */
+    private static final class PostingCursor {
+        private final OffHeapArena postings; // arena holding the blocks
+        private long block;                  // block being read, 0 past the last one
+        private ByteBuffer chunk;            // chunk holding the block
+        private int position;                // offset of the next posting in chunk
+        private int end;                     // offset after the block's last posting
+        int fileId;                          // file id of the current posting
+        int line;                            // line of the current posting
+
+        PostingCursor(OffHeapArena postings, long firstBlock) {
+            this.postings = postings;
+            enter(firstBlock);
+        }
+
+        /**
+         * Moves to the next posting.
+         *
+         * @return false once every posting has been read
+         */
+        boolean next() {
+            while (position >= end) {
+                if (block == 0) {
+                    return false;
+                }
+                enter(postings.getLong(block + NEXT));
+            }
+            fileId = readVarint();
+            line = readVarint();
+            return true;
+        }
+
+        /**
+         * Starts reading a block, or marks the end of the chain for block 0.
+         */
+        private void enter(long block) {
+            this.block = block;
+            if (block == 0) {
+                position = 0;
+                end = 0;
+            } else {
+                chunk = postings.chunk(block);
+                position = OffHeapArena.offset(block + DATA);
+                end = position + chunk.getInt(OffHeapArena.offset(block + USED));
+            }
+        }
+
+        /**
+         * Reads an unsigned varint at position.
+         */
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = chunk.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
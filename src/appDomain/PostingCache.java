@@ -0,0 +1,228 @@
+/**
+ * PostingCache.java
+ *
+ * Holds the decoded occurrences of the words read most recently from shard
+ * postings files. A word loaded from a saved shard no longer keeps its
+ * occurrences once it has decoded them; it asks this cache, which keeps the
+ * decoded maps of hot words in memory up to a fixed number of bytes and
+ * drops the least recently used ones beyond that. A dropped word is decoded
+ * again from the memory-mapped postings file when it is next read, so the
+ * heap used by lookups stays bounded however many words a run touches.
+ */
+
+package appDomain;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Byte-bounded LRU cache of decoded postings records, with hit and miss counts.
+ */
+public final class PostingCache {
+    private static final long CAPACITY = 64L << 20; // estimated bytes of decoded postings kept
+    private static final int ENTRY_OVERHEAD = 64;    // estimated bytes of a cached record besides its data
+    private static final int FILE_OVERHEAD = 96;     // estimated bytes of each file entry of a record
+    private static final PostingCache SHARED = new PostingCache(CAPACITY);
+
+    private long capacity;                                                          // upper bound of bytes
+    private final Map<Key, Postings> entries = new LinkedHashMap<>(16, 0.75f, true); // least recently used first
+    private long bytes;                                                             // estimated bytes cached
+    private long hits;                                                              // lookups answered from memory
+    private long misses;                                                            // lookups that decoded a record
+    private long evictions;                                                         // records dropped to stay in bounds
+
+    /**
+     * Decoded occurrences of one word. The maps must not be changed.
+     */
+    static final class Postings {
+        final Map<String, List<Integer>> occurrences; // line numbers of each file
+        final Map<String, Integer> counts;            // occurrence count of each count-only file, null if none
+        final long weight;                            // estimated heap bytes
+
+        Postings(Map<String, List<Integer>> occurrences, Map<String, Integer> counts, long weight) {
+            this.occurrences = Collections.unmodifiableMap(occurrences);
+            this.counts = (counts.isEmpty()) ? null : Collections.unmodifiableMap(counts);
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Position of a record: the mapped file it is in and its offset.
+     */
+    private static final class Key {
+        final PostingsFile file; // compared by identity; each shard read maps its own file
+        final long offset;       // position of the record
+
+        Key(PostingsFile file, long offset) {
+            this.file = file;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).file == file && ((Key) obj).offset == offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(file) * 31 + Long.hashCode(offset);
+        }
+    }
+
+    /**
+     * Creates an empty cache. Words share the cache returned by shared().
+     * Precondition: capacity is not negative.
+     * Postcondition: The cache holds nothing.
+     *
+     * @param capacity estimated bytes of decoded postings to keep
+     */
+    PostingCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the cache shared by every word read from a postings file.
+     * Precondition: None.
+     * Postcondition: The same cache is returned on every call.
+     *
+     * @return the shared cache
+     */
+    public static PostingCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the decoded postings of a record, decoding and caching them on a miss.
+     * The record is decoded outside the lock, so words of different shards are
+     * decoded in parallel.
+     * Precondition: offset was returned by a PostingsFile.Writer for file.
+     * Postcondition: The record is the most recently used entry, unless it alone exceeds the capacity.
+     *
+     * @param file mapped postings file
+     * @param offset position of the record
+     * @return decoded, unmodifiable postings
+     * @throws IOException if the record is damaged
+     */
+    Postings get(PostingsFile file, long offset) throws IOException {
+        Key key = new Key(file, offset);
+        synchronized (this) {
+            Postings cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        Map<String, List<Integer>> occurrences = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        int length = file.read(offset, occurrences, counts);
+        Postings postings = new Postings(occurrences, counts,
+                ENTRY_OVERHEAD + length + (long) FILE_OVERHEAD * (occurrences.size() + counts.size()));
+
+        synchronized (this) {
+            if (postings.weight <= capacity) {
+                Postings replaced = entries.put(key, postings);
+                bytes += postings.weight - ((replaced != null) ? replaced.weight : 0);
+                evictOverflow();
+            }
+        }
+        return postings;
+    }
+
+    /**
+     * Changes the capacity, for example to bound memory more tightly on a small heap.
+     * Precondition: capacity is not negative.
+     * Postcondition: The least recently used records that no longer fit are dropped.
+     *
+     * @param capacity estimated bytes of decoded postings to keep
+     */
+    public synchronized void setCapacity(long capacity) {
+        this.capacity = capacity;
+        evictOverflow();
+    }
+
+    /**
+     * Drops a record, once a word has taken its own copy of the postings to change them.
+     * Precondition: None.
+     * Postcondition: The record is no longer cached.
+     *
+     * @param file mapped postings file
+     * @param offset position of the record
+     */
+    synchronized void invalidate(PostingsFile file, long offset) {
+        Postings removed = entries.remove(new Key(file, offset));
+        if (removed != null) {
+            bytes -= removed.weight;
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered from memory.
+     *
+     * @return cache hits
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to decode a record.
+     *
+     * @return cache misses
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of records dropped to stay within the capacity.
+     *
+     * @return evictions
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the estimated bytes of the postings held.
+     *
+     * @return bytes in use, never more than capacity
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the upper bound of the estimated bytes held.
+     *
+     * @return capacity in bytes
+     */
+    public synchronized long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Drops the least recently used records until the cache is within its capacity.
+     */
+    private void evictOverflow() {
+        Iterator<Postings> oldest = entries.values().iterator();
+        while (bytes > capacity) {
+            bytes -= oldest.next().weight;
+            oldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Describes the cache counters in one line.
+     *
+     * @return hits, misses, evictions and memory use
+     */
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format("Posting cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, %d KB of %d KB",
+                hits, misses, (lookups == 0) ? 0.0 : 100.0 * hits / lookups, evictions, bytes >> 10, capacity >> 10);
+    }
+}
@@ -0,0 +1,367 @@
+/**
+ * PostingList.java
+ *
+ * Represents the postings of a word (or of a query result) as one sorted list
+ * of (file, line) pairs, so that queries over several words can be answered by
+ * merging lists instead of scanning the text files again.
+ */
+
+package appDomain;
+
+import java.util.*;
+
+/**
+ * Sorted list of (file, line) postings with skip pointers for fast merging.
+ */
+public class PostingList {
+    private static final PostingList EMPTY = new PostingList(new String[0], new int[0], 0);
+
+    private String[] files; // file of each posting, ascending
+    private int[] lines;    // line of each posting, ascending within a file
+    private int size;       // number of postings in use
+    private int skip;       // distance between skip pointers
+
+    /**
+     * Creates a posting list from parallel arrays that are already sorted.
+     * Precondition: Postings are sorted by file then line with no duplicates.
+     * Postcondition: Skip pointers are spaced about the square root of the size apart.
+     */
+    private PostingList(String[] files, int[] lines, int size) {
+        this.files = files;
+        this.lines = lines;
+        this.size = size;
+        this.skip = Math.max(1, (int) Math.sqrt(size));
+    }
+
+    /**
+     * Builds the posting list for a word.
+     * Precondition: word may be null when the word is not in the repository.
+     * Postcondition: Returns the word's postings sorted by file and line without duplicates.
+     *
+     * @param word word whose occurrences are converted
+     * @return sorted posting list, empty if word is null
+     */
+    public static PostingList of(Word word) {
+        if (word == null) {
+            return EMPTY;
+        }
+
+        Map<String, List<Integer>> occurrences = word.getOccurrences();
+        List<String> sortedFiles = new ArrayList<>(occurrences.keySet());
+        Collections.sort(sortedFiles);
+
+        Builder builder = new Builder(word.getFrequency());
+        for (String file : sortedFiles) {
+            List<Integer> sortedLines = new ArrayList<>(occurrences.get(file));
+            Collections.sort(sortedLines);
+            for (int line : sortedLines) {
+                builder.add(file, line);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of postings in the list.
+     * Precondition: None.
+     * Postcondition: Size is returned.
+     *
+     * @return number of (file, line) postings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the list has no postings.
+     * Precondition: None.
+     * Postcondition: Returns true if size is zero.
+     *
+     * @return true if empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Converts the postings into a file to line number map for reporting.
+     * Precondition: None.
+     * Postcondition: Returns a map with files in alphabetical order.
+     *
+     * @return sorted map of file names to ascending line numbers
+     */
+    public Map<String, List<Integer>> toMap() {
+        Map<String, List<Integer>> map = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            map.computeIfAbsent(files[i], f -> new ArrayList<>()).add(lines[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Document-level AND: keeps the postings of both lists in files that contain both.
+     * Precondition: other must not be null.
+     * Postcondition: Neither list is changed.
+     *
+     * @param other list to intersect with
+     * @return postings from files present in both lists
+     */
+    public PostingList and(PostingList other) {
+        Builder builder = new Builder(Math.min(size, other.size) * 2);
+        int i = 0;
+        int j = 0;
+
+        while (i < size && j < other.size) {
+            int cmp = files[i].compareTo(other.files[j]);
+            if (cmp < 0) {
+                i = seekFile(i, other.files[j]);
+            } else if (cmp > 0) {
+                j = other.seekFile(j, files[i]);
+            } else {
+                int iEnd = endOfFile(i);
+                int jEnd = other.endOfFile(j);
+                builder.merge(this, i, iEnd, other, j, jEnd);
+                i = iEnd;
+                j = jEnd;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Document-level OR: keeps every posting of either list.
+     * Precondition: other must not be null.
+     * Postcondition: Neither list is changed.
+     *
+     * @param other list to unite with
+     * @return union of both lists
+     */
+    public PostingList or(PostingList other) {
+        Builder builder = new Builder(size + other.size);
+        builder.merge(this, 0, size, other, 0, other.size);
+        return builder.build();
+    }
+
+    /**
+     * Document-level NOT: keeps the postings of this list in files the other list does not contain.
+     * Precondition: other must not be null.
+     * Postcondition: Neither list is changed.
+     *
+     * @param other list whose files are excluded
+     * @return postings of this list outside the other list's files
+     */
+    public PostingList andNot(PostingList other) {
+        Builder builder = new Builder(size);
+        int i = 0;
+        int j = 0;
+
+        while (i < size) {
+            int iEnd = endOfFile(i);
+            j = other.seekFile(j, files[i]);
+            if (j >= other.size || !other.files[j].equals(files[i])) {
+                builder.copy(this, i, iEnd);
+            }
+            i = iEnd;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Line-level AND: keeps the (file, line) postings present in both lists.
+     * Precondition: other must not be null.
+     * Postcondition: Neither list is changed.
+     *
+     * @param other list to intersect with
+     * @return postings where both words appear on the same line
+     */
+    public PostingList sameLine(PostingList other) {
+        Builder builder = new Builder(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+
+        while (i < size && j < other.size) {
+            int cmp = compare(i, other, j);
+            if (cmp < 0) {
+                i = seek(i, other.files[j], other.lines[j]);
+            } else if (cmp > 0) {
+                j = other.seek(j, files[i], lines[i]);
+            } else {
+                builder.add(files[i], lines[i]);
+                i++;
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Proximity AND: keeps the postings of either list that have a posting of the
+     * other list in the same file at most distance lines away.
+     * Precondition: other must not be null, distance must not be negative.
+     * Postcondition: Neither list is changed.
+     *
+     * @param other list to match against
+     * @param distance largest allowed line difference
+     * @return postings where the words appear on the same or nearby lines
+     */
+    public PostingList near(PostingList other, int distance) {
+        Builder mine = new Builder(size);
+        Builder theirs = new Builder(other.size);
+        int i = 0;
+        int j = 0;
+
+        while (i < size && j < other.size) {
+            int cmp = files[i].compareTo(other.files[j]);
+            if (cmp < 0) {
+                i = seekFile(i, other.files[j]);
+            } else if (cmp > 0) {
+                j = other.seekFile(j, files[i]);
+            } else {
+                int iEnd = endOfFile(i);
+                int jEnd = other.endOfFile(j);
+                keepNear(this, i, iEnd, other, j, jEnd, distance, mine);
+                keepNear(other, j, jEnd, this, i, iEnd, distance, theirs);
+                i = iEnd;
+                j = jEnd;
+            }
+        }
+        return mine.build().or(theirs.build());
+    }
+
+    /**
+     * Copies the postings of one file run that have a partner in the other run within distance lines.
+     * Both runs are sorted, so a single forward-moving pointer into the other run suffices.
+     */
+    private static void keepNear(PostingList a, int aStart, int aEnd, PostingList b, int bStart, int bEnd,
+            int distance, Builder builder) {
+        int k = bStart;
+        for (int m = aStart; m < aEnd; m++) {
+            while (k < bEnd && b.lines[k] < a.lines[m] - distance) {
+                k++;
+            }
+            if (k < bEnd && b.lines[k] <= a.lines[m] + distance) {
+                builder.add(a.files[m], a.lines[m]);
+            }
+        }
+    }
+
+    /**
+     * Compares the posting at index i with the posting at index j of another list.
+     */
+    private int compare(int i, PostingList other, int j) {
+        int cmp = files[i].compareTo(other.files[j]);
+        return (cmp != 0) ? cmp : Integer.compare(lines[i], other.lines[j]);
+    }
+
+    /**
+     * Advances from index i to the first posting not less than (file, line),
+     * following skip pointers while they do not overshoot the target.
+     */
+    private int seek(int i, String file, int line) {
+        while (i < size) {
+            int cmp = files[i].compareTo(file);
+            if (cmp > 0 || (cmp == 0 && lines[i] >= line)) {
+                break;
+            }
+            int target = i + skip;
+            if (i % skip == 0 && target < size) {
+                int targetCmp = files[target].compareTo(file);
+                if (targetCmp < 0 || (targetCmp == 0 && lines[target] < line)) {
+                    i = target;
+                    continue;
+                }
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Advances from index i to the first posting whose file is not less than file.
+     */
+    private int seekFile(int i, String file) {
+        return seek(i, file, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Returns the index just past the run of postings sharing the file at index i.
+     */
+    private int endOfFile(int i) {
+        String file = files[i];
+        int end = seek(i, file, Integer.MAX_VALUE);
+        // seek stops before a posting on line Integer.MAX_VALUE, so step over any
+        while (end < size && files[end].equals(file)) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Accumulates postings in sorted order and produces an immutable list.
+     */
+    private static class Builder {
+        private String[] files;
+        private int[] lines;
+        private int size;
+
+        /**
+         * Creates a builder with room for the expected number of postings.
+         */
+        Builder(int capacity) {
+            files = new String[Math.max(capacity, 4)];
+            lines = new int[files.length];
+        }
+
+        /**
+         * Appends a posting, ignoring it if it repeats the previous one.
+         * Precondition: Postings arrive in sorted order.
+         */
+        void add(String file, int line) {
+            if (size > 0 && lines[size - 1] == line && files[size - 1].equals(file)) {
+                return;
+            }
+            if (size == files.length) {
+                files = Arrays.copyOf(files, size * 2);
+                lines = Arrays.copyOf(lines, size * 2);
+            }
+            files[size] = file;
+            lines[size] = line;
+            size++;
+        }
+
+        /**
+         * Appends the postings of a[from, to).
+         */
+        void copy(PostingList a, int from, int to) {
+            for (int i = from; i < to; i++) {
+                add(a.files[i], a.lines[i]);
+            }
+        }
+
+        /**
+         * Appends the sorted union of a[aStart, aEnd) and b[bStart, bEnd).
+         */
+        void merge(PostingList a, int aStart, int aEnd, PostingList b, int bStart, int bEnd) {
+            int i = aStart;
+            int j = bStart;
+            while (i < aEnd && j < bEnd) {
+                if (a.compare(i, b, j) <= 0) {
+                    add(a.files[i], a.lines[i]);
+                    i++;
+                } else {
+                    add(b.files[j], b.lines[j]);
+                    j++;
+                }
+            }
+            copy(a, i, aEnd);
+            copy(b, j, bEnd);
+        }
+
+        /**
+         * Produces the posting list holding everything added so far.
+         */
+        PostingList build() {
+            return new PostingList(files, lines, size);
+        }
+    }
+}
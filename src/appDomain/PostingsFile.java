@@ -0,0 +1,250 @@
+/**
+ * PostingsFile.java
+ *
+ * Keeps the postings of a shard (the files, line numbers and counts of each
+ * word) apart from its term dictionary. A shard is saved as a dictionary
+ * segment holding every word with only its frequency and the position of its
+ * postings, plus a postings file holding one CRC-checked record per word. The
+ * postings file is memory-mapped when the shard is read, and a word decodes
+ * its record the first time its occurrences are needed, so runs that only
+ * look at a few words, or only at word frequencies, never decode the rest.
+ */
+
+package appDomain;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only, memory-mapped postings file of one shard generation.
+ */
+final class PostingsFile {
+    private static final int MAGIC = 0x57545053; // "WTPS"
+    private static final int RECORD_HEADER = 8;  // payload length, CRC32 of the payload
+    private static final byte LINES = 0;         // file entry with line numbers
+    private static final byte COUNT = 1;         // file entry with an occurrence count only
+
+    private final File file;          // mapped file, for error messages
+    private final ByteBuffer records; // whole file, mapped when the shard is read
+
+    /**
+     * Maps a postings file. The mapping stays valid after the file is replaced
+     * or deleted by a later save, so words not yet decoded can still be read.
+     * Precondition: file was written from a Writer.
+     * Postcondition: Records can be read by offset.
+     *
+     * @param file postings file
+     * @throws IOException if the file cannot be mapped or is not a postings file
+     */
+    PostingsFile(File file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.limit() < 4 || mapped.getInt(0) != MAGIC) {
+                throw new IOException("Not a postings file: " + file);
+            }
+            this.records = mapped;
+        }
+    }
+
+    /**
+     * Decodes the postings record at an offset into the given maps.
+     * Precondition: offset was returned by Writer.append or Writer.copy for this file.
+     * Postcondition: occurrences and counts hold the word's files.
+     *
+     * @param offset position of the record
+     * @param occurrences receives the line numbers of each file
+     * @param counts receives the occurrence count of each count-only file
+     * @return length of the encoded record in bytes
+     * @throws IOException if the record is truncated or fails its checksum
+     */
+    int read(long offset, Map<String, List<Integer>> occurrences, Map<String, Integer> counts) throws IOException {
+        byte[] payload = record(offset);
+        readPostings(new DataInputStream(new ByteArrayInputStream(payload)), occurrences, counts);
+        return payload.length;
+    }
+
+    /**
+     * Encodes the files, line numbers and counts of a word.
+     * Precondition: occurrences must not be null; counts may be null.
+     * Postcondition: readPostings restores the same maps from the written bytes.
+     *
+     * @param out destination
+     * @param occurrences line numbers of each file
+     * @param counts occurrence count of each count-only file, or null
+     * @throws IOException if writing fails
+     */
+    static void writePostings(DataOutput out, Map<String, List<Integer>> occurrences, Map<String, Integer> counts)
+            throws IOException {
+        out.writeInt(occurrences.size() + ((counts != null) ? counts.size() : 0));
+        for (Map.Entry<String, List<Integer>> entry : occurrences.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeByte(LINES);
+            List<Integer> lines = entry.getValue();
+            if (!(lines instanceof CompressedLineList)) {
+                CompressedLineList compressed = new CompressedLineList();
+                compressed.addAll(lines);
+                lines = compressed;
+            }
+            ((CompressedLineList) lines).writeTo(out);
+        }
+        if (counts != null) {
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeByte(COUNT);
+                out.writeInt(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Decodes postings written by writePostings.
+     * Precondition: in is positioned at encoded postings.
+     * Postcondition: occurrences and counts hold the word's files.
+     *
+     * @param in source
+     * @param occurrences receives the line numbers of each file
+     * @param counts receives the occurrence count of each count-only file
+     * @throws IOException if reading fails
+     */
+    static void readPostings(DataInput in, Map<String, List<Integer>> occurrences, Map<String, Integer> counts)
+            throws IOException {
+        int files = in.readInt();
+        for (int i = 0; i < files; i++) {
+            String filename = in.readUTF();
+            if (in.readByte() == LINES) {
+                occurrences.put(filename, CompressedLineList.readFrom(in));
+            } else {
+                counts.put(filename, in.readInt());
+            }
+        }
+    }
+
+    /**
+     * Returns the checked payload of the record at an offset.
+     */
+    private byte[] record(long offset) throws IOException {
+        ByteBuffer view = records.duplicate();
+        if (offset < 4 || offset > view.limit() - RECORD_HEADER) {
+            throw new IOException("Bad postings offset " + offset + " in " + file);
+        }
+        view.position((int) offset);
+        int length = view.getInt();
+        int checksum = view.getInt();
+        if (length < 0 || length > view.remaining()) {
+            throw new IOException("Truncated postings record in " + file);
+        }
+        byte[] payload = new byte[length];
+        view.get(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, length);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch in " + file);
+        }
+        return payload;
+    }
+
+    /**
+     * Builds a postings file in memory while a shard's dictionary is serialized.
+     */
+    static class Writer {
+        private final Segment.Bytes bytes = new Segment.Bytes();            // postings file being built
+        private final Segment.Bytes payload = new Segment.Bytes();          // record being encoded
+        private final DataOutputStream out = new DataOutputStream(payload); // encoder of the record
+
+        /**
+         * Starts a postings file.
+         */
+        Writer() {
+            bytes.write(ByteBuffer.allocate(4).putInt(MAGIC).array(), 0, 4);
+        }
+
+        /**
+         * Encodes the postings of a word as a new record.
+         * Precondition: occurrences must not be null; counts may be null.
+         * Postcondition: The record is appended.
+         *
+         * @param occurrences line numbers of each file
+         * @param counts occurrence count of each count-only file, or null
+         * @return offset of the record
+         * @throws IOException if encoding fails
+         */
+        long append(Map<String, List<Integer>> occurrences, Map<String, Integer> counts) throws IOException {
+            payload.reset();
+            writePostings(out, occurrences, counts);
+            out.flush();
+
+            ByteBuffer record = payload.buffer();
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, record.limit());
+            return appendRecord(record, (int) crc.getValue());
+        }
+
+        /**
+         * Copies a record from an earlier postings file without decoding it.
+         * Precondition: offset was returned for source.
+         * Postcondition: The record is appended unchanged.
+         *
+         * @param source postings file holding the record
+         * @param offset position of the record in source
+         * @return offset of the copy
+         * @throws IOException if the record is damaged
+         */
+        long copy(PostingsFile source, long offset) throws IOException {
+            byte[] record = source.record(offset);
+            CRC32 crc = new CRC32();
+            crc.update(record, 0, record.length);
+            return appendRecord(ByteBuffer.wrap(record), (int) crc.getValue());
+        }
+
+        /**
+         * Returns the finished postings file.
+         */
+        ByteBuffer buffer() {
+            return bytes.buffer();
+        }
+
+        /**
+         * Appends a record header and payload.
+         */
+        private long appendRecord(ByteBuffer record, int checksum) {
+            long offset = bytes.size();
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+            header.putInt(record.limit()).putInt(checksum);
+            bytes.write(header.array(), 0, RECORD_HEADER);
+            bytes.write(record.array(), 0, record.limit());
+            return offset;
+        }
+    }
+
+    /**
+     * Serializes a shard with each word's postings sent to a Writer.
+     */
+    static class DictionaryOutputStream extends ObjectOutputStream {
+        final Writer postings; // receives the postings of every word written
+
+        DictionaryOutputStream(OutputStream out, Writer postings) throws IOException {
+            super(out);
+            this.postings = postings;
+        }
+    }
+
+    /**
+     * Deserializes a shard whose words read their postings from a PostingsFile on demand.
+     */
+    static class DictionaryInputStream extends ObjectInputStream {
+        final PostingsFile postings; // postings of every word read, null for shards with inline postings
+
+        DictionaryInputStream(InputStream in, PostingsFile postings) throws IOException {
+            super(in);
+            this.postings = postings;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * Repository.java
+ *
+ * Holds the word tree saved between runs together with a record of every
+ * input file that went into it: its size, last modification time and a
+ * SHA-256 hash of its content, and the tokenizer options it was read with.
+ * The records let WordTracker skip files that have not changed since they
+ * were last read with the same options. Each record also lists the
+ * words found in the file, so a file can be removed again by visiting only
+ * those words instead of the whole tree.
+ */
+
+package appDomain;
+
+import implementations.BSTreeNode;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Saved word tree plus the state of the input files it was built from.
+ */
+public class Repository implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private BSTreeADT<Word> tree;                           // words of every file read so far
+    private Map<String, FileRecord> files = new HashMap<>(); // state of each file when it was read
+    private boolean complete;                                // true if every file in the tree has a record
+
+    /**
+     * State of an input file at the time it was read.
+     */
+    static class FileRecord implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        long size;         // length in bytes
+        long modified;     // last modification time in milliseconds
+        String hash;       // SHA-256 of the content, in hexadecimal
+        boolean countOnly; // true if the file was read without line numbers
+        String settings;   // tokenizer options the file was read with, null in records saved before they were kept
+        String[] words;    // distinct words of the file, null in records saved before words were listed
+    }
+
+    /**
+     * Creates a repository around a tree.
+     * Precondition: tree must not be null.
+     * Postcondition: complete tells whether the tree is known to hold no unrecorded files.
+     *
+     * @param tree the word tree
+     * @param complete false if the tree was saved by a version that did not record files
+     */
+    public Repository(BSTreeADT<Word> tree, boolean complete) {
+        this.tree = tree;
+        this.complete = complete;
+    }
+
+    /**
+     * Returns the word tree.
+     * Precondition: None.
+     * Postcondition: Tree is returned.
+     *
+     * @return the word tree
+     */
+    public BSTreeADT<Word> getTree() {
+        return tree;
+    }
+
+    /**
+     * Replaces the word tree, for example after converting it to another implementation.
+     * Precondition: tree holds the same files as the current tree.
+     * Postcondition: The file records are kept.
+     *
+     * @param tree the new word tree
+     */
+    public void setTree(BSTreeADT<Word> tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Checks whether the tree may already hold occurrences of a file.
+     * Precondition: filename must not be null.
+     * Postcondition: Returns false only when the file is certainly not in the tree.
+     *
+     * @param filename the input file name
+     * @return true if the file has a record or the repository predates file records
+     */
+    public boolean mayContain(String filename) {
+        return !complete || files.containsKey(filename);
+    }
+
+    /**
+     * Checks whether a file is unchanged since it was last read in the same mode
+     * and with the same tokenizer options.
+     * The size and modification time are compared first; the content is only
+     * hashed when the time differs, so untouched files are skipped without reading them.
+     * Precondition: filename and settings must not be null.
+     * Postcondition: If only the modification time changed, the record is updated.
+     *
+     * @param filename the input file name
+     * @param countOnly true if the file is to be read without line numbers
+     * @param settings the tokenizer options the file is to be read with
+     * @return true if the file can be skipped
+     * @throws IOException if the file cannot be read
+     */
+    public boolean isUnchanged(String filename, boolean countOnly, String settings) throws IOException {
+        FileRecord record = files.get(filename);
+        File file = new File(filename);
+        if (record == null || record.countOnly != countOnly || !settings.equals(record.settings)
+                || record.size != file.length()) {
+            return false;
+        }
+        long modified = file.lastModified();
+        if (record.modified == modified) {
+            return true;
+        }
+        if (record.hash.equals(hex(digest(file)))) {
+            record.modified = modified;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the current state of a file after it was read.
+     * Precondition: filename must not be null.
+     * Postcondition: The file's size, modification time, hash and words are stored.
+     *
+     * @param filename the input file name
+     * @param countOnly true if the file was read without line numbers
+     * @param settings the tokenizer options the file was read with
+     * @param words the distinct words found in the file
+     * @throws IOException if the file cannot be read
+     */
+    public void recordFile(String filename, boolean countOnly, String settings, Collection<String> words)
+            throws IOException {
+        File file = new File(filename);
+        long size = file.length();
+        long modified = file.lastModified();
+        recordFile(filename, size, modified, hex(digest(file)), countOnly, settings, words);
+    }
+
+    /**
+     * Records the state of a file as it was when it was read, without reading it again.
+     * The size and modification time must be taken before reading and the hash computed
+     * from the bytes read, so a file changed while it was read is not mistaken for unchanged later.
+     * Precondition: filename must not be null; digest holds the bytes read and nothing else.
+     * Postcondition: The file's size, modification time, hash and words are stored and the digest is reset.
+     *
+     * @param filename the input file name
+     * @param size length in bytes before the file was read
+     * @param modified last modification time before the file was read
+     * @param digest digest updated with every byte read, from newDigest
+     * @param countOnly true if the file was read without line numbers
+     * @param settings the tokenizer options the file was read with
+     * @param words the distinct words found in the file
+     */
+    public void recordFile(String filename, long size, long modified, MessageDigest digest, boolean countOnly,
+            String settings, Collection<String> words) {
+        recordFile(filename, size, modified, hex(digest), countOnly, settings, words);
+    }
+
+    /**
+     * Stores a file record.
+     */
+    private void recordFile(String filename, long size, long modified, String hash, boolean countOnly,
+            String settings, Collection<String> words) {
+        FileRecord record = new FileRecord();
+        record.size = size;
+        record.modified = modified;
+        record.hash = hash;
+        record.countOnly = countOnly;
+        record.settings = settings;
+        record.words = words.toArray(new String[0]);
+        files.put(filename, record);
+    }
+
+    /**
+     * Creates a digest of the kind used for file hashes, to be updated while a file is read.
+     * Precondition: None.
+     * Postcondition: Returns a fresh SHA-256 digest.
+     *
+     * @return the digest
+     * @throws IOException if SHA-256 is not available
+     */
+    public static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Returns the record of a file, for example to log it with the file's words.
+     * Precondition: filename must not be null.
+     * Postcondition: Repository is unchanged.
+     *
+     * @param filename the input file name
+     * @return the file's record or null if it has none
+     */
+    FileRecord getRecord(String filename) {
+        return files.get(filename);
+    }
+
+    /**
+     * Restores a record taken earlier with getRecord, without reading the file again.
+     * Precondition: The tree holds the words the record describes.
+     * Postcondition: The file has the given record.
+     *
+     * @param filename the input file name
+     * @param record the saved record
+     */
+    void putRecord(String filename, FileRecord record) {
+        files.put(filename, record);
+    }
+
+    /**
+     * Removes every occurrence of a file from the tree, together with the words
+     * that occur nowhere else. Only the words listed in the file's record are
+     * visited; the whole tree is scanned only for files without such a list.
+     * Precondition: filename must not be null.
+     * Postcondition: The tree holds no occurrences of the file and the file has no record.
+     *
+     * @param filename the input file name
+     * @return true if any word occurred in the file
+     */
+    public boolean removeFile(String filename) {
+        boolean scan = mayContain(filename) && (!files.containsKey(filename) || files.get(filename).words == null);
+        FileRecord record = files.remove(filename);
+
+        List<Word> touched = new ArrayList<>();
+        if (scan) {
+            Iterator<Word> iterator = tree.inorderIterator();
+            while (iterator.hasNext()) {
+                touched.add(iterator.next());
+            }
+        } else if (record != null) {
+            for (String text : record.words) {
+                BSTreeNode<Word> node = tree.search(new Word(text));
+                if (node != null) {
+                    touched.add(node.getElement());
+                }
+            }
+        }
+
+        boolean found = false;
+        for (Word word : touched) {
+            if (word.removeFile(filename)) {
+                found = true;
+                if (word.getFrequency() == 0) {
+                    tree.remove(word);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Computes the SHA-256 hash of a file's content.
+     *
+     * @return digest updated with the whole file
+     */
+    private static MessageDigest digest(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // reading updates the digest
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * Completes a digest.
+     *
+     * @return hash in hexadecimal
+     */
+    private static String hex(MessageDigest digest) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,289 @@
+/**
+ * Segment.java
+ *
+ * Reads and writes one serialized object as a self-checking segment file: a
+ * header with the payload length and its CRC32, followed by the serialized
+ * bytes. Each segment is encoded in memory and moved through a FileChannel in
+ * one pass, so separate segments can be written and read on separate threads,
+ * and a damaged segment is detected before any of it is deserialized.
+ *
+ * A segment file is never overwritten in place: it is written to a temporary
+ * file, forced to disk and then renamed over the old file, so a crash leaves
+ * either the old or the new segment. The same framing is used for the records
+ * appended to the write-ahead log.
+ */
+
+package appDomain;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Static helpers for CRC-checked segment files.
+ */
+final class Segment {
+    private static final int MAGIC = 0x57545347; // "WTSG"
+    private static final int VERSION = 1;
+    private static final int HEADER = 20;        // magic, version, payload length, CRC32
+    private static final int LENGTH = 8;         // offset of the payload length in the header
+
+    /**
+     * Byte stream whose buffer can be wrapped without copying.
+     */
+    static class Bytes extends ByteArrayOutputStream {
+        Bytes() {
+            super(8192);
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    private Segment() {
+    }
+
+    /**
+     * Serializes an object into a segment file, replacing its content atomically.
+     * Precondition: value and everything it references are serializable.
+     * Postcondition: file holds the header and the serialized value, or its old content if writing failed.
+     *
+     * @param file destination file
+     * @param value object to write
+     * @throws IOException if the file cannot be written
+     */
+    static void write(File file, Serializable value) throws IOException {
+        write(file, encode(value));
+    }
+
+    /**
+     * Writes a segment encoded earlier, or any other buffers, replacing the file's content atomically.
+     * Precondition: frame was returned by encode, or holds complete file content, and has not been written yet.
+     * Postcondition: file holds the buffers in order, or its old content if writing failed.
+     *
+     * @param file destination file
+     * @param frame header and payload from encode
+     * @throws IOException if the file cannot be written
+     */
+    static void write(File file, ByteBuffer[] frame) throws IOException {
+        Path temp = new File(file.getPath() + ".tmp").toPath();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer buffer : frame) {
+                OffHeapArena.writeFully(channel, buffer);
+            }
+            channel.force(true);
+        }
+        replace(temp, file.toPath());
+    }
+
+    /**
+     * Appends one framed object to an open log and forces it to disk.
+     * Precondition: channel is open for appending.
+     * Postcondition: The record is durable once this returns.
+     *
+     * @param channel log channel
+     * @param value object to append
+     * @throws IOException if the record cannot be written
+     */
+    static void append(FileChannel channel, Serializable value) throws IOException {
+        ByteBuffer[] frame = encode(value);
+        OffHeapArena.writeFully(channel, frame[0]);
+        OffHeapArena.writeFully(channel, frame[1]);
+        channel.force(false);
+    }
+
+    /**
+     * Renames a fully written temporary file over its target, atomically where
+     * the file system allows it, and then forces the directory entry to disk.
+     * Precondition: temp is complete and forced.
+     * Postcondition: target has the content of temp and temp is gone.
+     *
+     * @param temp temporary file in the same directory as target
+     * @param target file to replace
+     * @throws IOException if the file cannot be moved
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path directory = target.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on every platform; the rename itself is still atomic
+        }
+    }
+
+    /**
+     * Reads the object stored in a segment file. Files written before segments
+     * had a header are read as plain serialized objects.
+     * Precondition: file exists.
+     * Postcondition: Returns the stored object if its checksum matches.
+     *
+     * @param file source file
+     * @return the stored object
+     * @throws IOException if the file cannot be read, is truncated or fails its checksum
+     * @throws ClassNotFoundException if a stored class is unknown
+     */
+    static Object read(File file) throws IOException, ClassNotFoundException {
+        return read(file, null);
+    }
+
+    /**
+     * Reads a shard dictionary whose words take their occurrences from a postings file.
+     * Precondition: file exists; postings is the file saved with it, or null if there is none.
+     * Postcondition: Returns the stored object if its checksum matches.
+     *
+     * @param file source file
+     * @param postings postings saved with the dictionary, or null
+     * @return the stored object
+     * @throws IOException if the file cannot be read, is truncated or fails its checksum
+     * @throws ClassNotFoundException if a stored class is unknown
+     */
+    static Object read(File file, PostingsFile postings) throws IOException, ClassNotFoundException {
+        ByteBuffer payload;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment too large: " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(HEADER, size));
+            OffHeapArena.readFully(channel, header);
+            header.flip();
+
+            if (header.remaining() < HEADER || header.getInt(0) != MAGIC) {
+                // Saved before segments: the whole file is the serialized object
+                payload = ByteBuffer.allocate((int) size);
+                payload.put(header);
+                OffHeapArena.readFully(channel, payload);
+            } else {
+                if (header.getInt(LENGTH) + HEADER != size) {
+                    throw new IOException("Truncated segment " + file);
+                }
+                payload = readFrame(channel, header, file);
+            }
+        }
+        try (ObjectInputStream in = new PostingsFile.DictionaryInputStream(
+                new ByteArrayInputStream(payload.array(), 0, payload.capacity()), postings)) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * Reads every intact record of a log. Reading stops at the first truncated
+     * or damaged record, which is where a crash interrupted the last append.
+     * Precondition: file exists.
+     * Postcondition: Returns the records in the order they were appended.
+     *
+     * @param file log file
+     * @return the stored objects
+     * @throws IOException if the file cannot be read
+     * @throws ClassNotFoundException if a stored class is unknown
+     */
+    static List<Object> readAll(File file) throws IOException, ClassNotFoundException {
+        List<Object> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (channel.size() - channel.position() >= HEADER) {
+                header.clear();
+                OffHeapArena.readFully(channel, header);
+                header.flip();
+                if (header.getInt(0) != MAGIC
+                        || header.getInt(LENGTH) > channel.size() - channel.position()) {
+                    break;
+                }
+                try {
+                    records.add(decode(readFrame(channel, header, file)));
+                } catch (IOException e) {
+                    break;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Serializes an object into a header and a payload buffer, so it can be
+     * written later or on another thread while the object keeps changing.
+     * Precondition: value and everything it references are serializable.
+     * Postcondition: The buffers hold a complete segment.
+     *
+     * @param value object to encode
+     * @return header and payload buffers
+     * @throws IOException if the object cannot be serialized
+     */
+    static ByteBuffer[] encode(Serializable value) throws IOException {
+        return encode(value, null);
+    }
+
+    /**
+     * Serializes a shard dictionary, sending the occurrences of its words to a postings writer.
+     * Precondition: value and everything it references are serializable.
+     * Postcondition: The buffers hold a complete segment; postings holds the words' occurrences.
+     *
+     * @param value object to encode
+     * @param postings receives the occurrences of every word, or null to keep them in the segment
+     * @return header and payload buffers
+     * @throws IOException if the object cannot be serialized
+     */
+    static ByteBuffer[] encode(Serializable value, PostingsFile.Writer postings) throws IOException {
+        Bytes bytes = new Bytes();
+        try (ObjectOutputStream out = (postings != null)
+                ? new PostingsFile.DictionaryOutputStream(bytes, postings) : new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        ByteBuffer payload = bytes.buffer();
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, payload.limit());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putInt(payload.limit()).putLong(crc.getValue()).flip();
+        return new ByteBuffer[] { header, payload };
+    }
+
+    /**
+     * Reads the payload following a header and checks it against the stored CRC32.
+     */
+    private static ByteBuffer readFrame(FileChannel channel, ByteBuffer header, File file) throws IOException {
+        header.position(4);
+        if (header.getInt() != VERSION) {
+            throw new IOException("Unknown segment version in " + file);
+        }
+        int length = header.getInt();
+        long checksum = header.getLong();
+        if (length < 0) {
+            throw new IOException("Truncated segment " + file);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        OffHeapArena.readFully(channel, payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, length);
+        if (crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch in " + file);
+        }
+        return payload;
+    }
+
+    /**
+     * Deserializes a payload.
+     */
+    private static Object decode(ByteBuffer payload) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(payload.array(), 0, payload.capacity()))) {
+            return in.readObject();
+        }
+    }
+}
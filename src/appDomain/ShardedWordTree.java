@@ -0,0 +1,869 @@
+/**
+ * ShardedWordTree.java
+ *
+ * Splits the word index into alphabetical key-range shards: one for words
+ * before "a", one per letter and one for words after "z". Each shard is a
+ * separate tree saved in its own file of the repository directory. Shards
+ * are read only when a word in their range is needed, so a lookup of "m*"
+ * words reads the "m" shard alone, and whole-index operations read and write
+ * the shard files in parallel. A Bloom filter of every shard is saved with
+ * the index, so a lookup of a missing word usually reads no shard at all.
+ */
+
+package appDomain;
+
+import implementations.ArrayBSTree;
+import implementations.BSTree;
+import implementations.BSTreeNode;
+import implementations.BTree;
+import implementations.RadixTrie;
+import implementations.SplayTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * BSTreeADT over Word made of lazily loaded shard trees. Only the shard sizes
+ * and the tree type are serialized with this object; the shards are written
+ * to their own files by save.
+ */
+public class ShardedWordTree implements BSTreeADT<Word>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final int SHARDS = 28; // before "a", "a" to "z", after "z"
+
+    // shard-NN.ser, or shard-NN-G.ser and shard-NN-G.post from the G-th save on, with .tmp while being written
+    private static final Pattern SHARD_FILE = Pattern.compile("shard-(\\d\\d)(?:-(\\d+))?\\.(ser|post)(\\.tmp)?");
+
+    private String treeType;                                 // implementation of every shard, as accepted by -t
+    private int[] sizes = new int[SHARDS];                   // number of words in each shard, known without loading it
+    private int[] generations = new int[SHARDS];             // save count of each shard, part of its file name
+    private BloomFilter[] filters = new BloomFilter[SHARDS]; // words of each shard, null where not known yet
+    private transient BSTreeADT<Word>[] shards;              // loaded shards, null until first needed
+    private transient File directory;                        // directory holding the shard files
+
+    /**
+     * Creates an empty sharded tree.
+     * Precondition: treeType is accepted by newTree.
+     * Postcondition: Every shard is empty and counts as loaded.
+     *
+     * @param directory directory the shard files are kept in
+     * @param treeType implementation used for every shard
+     */
+    public ShardedWordTree(File directory, String treeType) {
+        this.directory = directory;
+        this.treeType = treeType;
+        this.shards = newShardArray();
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = newShard();
+            filters[i] = new BloomFilter(0);
+        }
+    }
+
+    /**
+     * Rebuilds a tree from its shard files alone, for when the saved shard sizes are lost.
+     * Precondition: directory holds the shard files, some of which may be missing or corrupt.
+     * Postcondition: Every readable shard is loaded and the sizes are counted from them.
+     *
+     * @param directory directory the shard files are kept in
+     * @param treeType implementation used for every shard
+     * @return the rebuilt tree
+     */
+    public static ShardedWordTree recover(File directory, String treeType) {
+        ShardedWordTree tree = new ShardedWordTree(directory, treeType);
+        Arrays.fill(tree.shards, null);
+        Arrays.fill(tree.filters, null);
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher name = SHARD_FILE.matcher(file.getName());
+                if (name.matches() && name.group(3).equals("ser") && name.group(4) == null) {
+                    int i = Integer.parseInt(name.group(1));
+                    int generation = (name.group(2) == null) ? 0 : Integer.parseInt(name.group(2));
+                    if (i < SHARDS) {
+                        tree.generations[i] = Math.max(tree.generations[i], generation);
+                    }
+                }
+            }
+        }
+        tree.loadAll();
+        return tree;
+    }
+
+    /**
+     * Connects a deserialized tree to its shard files and applies a requested tree type.
+     * Precondition: The tree was read from the index file in directory.
+     * Postcondition: Shards of another type are converted when they are first loaded.
+     *
+     * @param directory directory the shard files are kept in
+     * @param treeType requested implementation, or null to keep the saved one
+     */
+    public void attach(File directory, String treeType) {
+        this.directory = directory;
+        if (treeType != null) {
+            this.treeType = treeType;
+        }
+    }
+
+    /**
+     * Finds the shard responsible for a word from its first character.
+     * Precondition: text must not be null.
+     * Postcondition: Shards are ordered like the words they hold.
+     *
+     * @param text the word text
+     * @return shard number
+     */
+    static int shardOf(String text) {
+        if (text.isEmpty() || text.charAt(0) < 'a') {
+            return 0;
+        }
+        char first = text.charAt(0);
+        return (first <= 'z') ? first - 'a' + 1 : SHARDS - 1;
+    }
+
+    /**
+     * Returns a shard, reading it from its file on first use. A shard saved
+     * without a Bloom filter gets one as it is read.
+     */
+    private BSTreeADT<Word> shard(int i) {
+        if (shards[i] == null) {
+            BSTreeADT<Word> shard = readShard(i);
+            sizes[i] = shard.size();
+            if (filters[i] == null) {
+                filters[i] = filterOf(shard);
+            }
+            shards[i] = shard;
+        }
+        return shards[i];
+    }
+
+    /**
+     * Builds a Bloom filter sized for the words of a shard.
+     */
+    private static BloomFilter filterOf(BSTreeADT<Word> shard) {
+        BloomFilter filter = new BloomFilter(shard.size());
+        Iterator<Word> words = shard.inorderIterator();
+        while (words.hasNext()) {
+            filter.add(words.next().getWordText());
+        }
+        return filter;
+    }
+
+    /**
+     * Reads a shard's dictionary, converting it if it was saved with another tree type.
+     * The words' occurrences stay in the mapped postings file until they are used.
+     * A missing, unreadable or corrupt file only resets this shard.
+     */
+    @SuppressWarnings("unchecked")
+    private BSTreeADT<Word> readShard(int i) {
+        BSTreeADT<Word> fresh = newShard();
+        BSTreeADT<Word> tree = fresh;
+        File file = shardFile(directory, i, generations[i]);
+        if (file.exists()) {
+            try {
+                File postingsFile = postingsFile(directory, i, generations[i]);
+                PostingsFile postings = postingsFile.exists() ? new PostingsFile(postingsFile) : null;
+                BSTreeADT<Word> saved = (BSTreeADT<Word>) Segment.read(file, postings);
+                tree = (saved.getClass() == tree.getClass()) ? saved : convertTree(saved, tree);
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                System.err.println("Failed to load shard " + file.getName() + " (" + e.getMessage()
+                        + "). Starting it fresh.");
+            }
+        }
+        if (tree instanceof BSTree && tree != fresh) {
+            ((BSTree<Word>) tree).setHashIndexed(true);
+        }
+        return tree;
+    }
+
+    /**
+     * Reads every shard that is not loaded yet, in parallel.
+     * Precondition: None.
+     * Postcondition: All shards are in memory.
+     */
+    public void loadAll() {
+        IntStream.range(0, SHARDS).parallel().forEach(this::shard);
+    }
+
+    /**
+     * Writes every loaded shard to its own CRC-checked segment file, in parallel.
+     * Precondition: directory is writable.
+     * Postcondition: The new shard files are complete and this tree refers to them.
+     *
+     * @throws IOException if a shard file cannot be written
+     */
+    public void save() throws IOException {
+        snapshot().write();
+    }
+
+    /**
+     * Encodes every loaded shard in memory, in parallel, without writing anything:
+     * its dictionary of words and frequencies, and separately the words' occurrences.
+     * Each snapshot is given a new generation of the shard files, written next to
+     * the old ones, so the old files stay valid until the index naming the new
+     * ones is in place. Shards that were never loaded cannot have changed and
+     * keep their file. The tree can be changed again as soon as this returns.
+     * Precondition: None.
+     * Postcondition: This tree refers to the snapshot's shard files, to be written with Snapshot.write.
+     *
+     * @return the encoded shards
+     * @throws IOException if a shard cannot be serialized
+     */
+    Snapshot snapshot() throws IOException {
+        int[] next = generations.clone();
+        for (int i = 0; i < SHARDS; i++) {
+            if (shards[i] != null) {
+                next[i]++;
+            }
+        }
+        ByteBuffer[][] frames = new ByteBuffer[SHARDS][];
+        ByteBuffer[] postings = new ByteBuffer[SHARDS];
+        BloomFilter[] rebuilt = filters.clone();
+        try {
+            IntStream.range(0, SHARDS).parallel().filter(i -> shards[i] != null).forEach(i -> {
+                try {
+                    PostingsFile.Writer writer = new PostingsFile.Writer();
+                    frames[i] = Segment.encode((Serializable) shards[i], writer);
+                    postings[i] = writer.buffer();
+                    rebuilt[i] = filterOf(shards[i]); // resized, and without the bits of removed words
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generations = next;
+        filters = rebuilt;
+        return new Snapshot(directory, next, frames, postings);
+    }
+
+    /**
+     * Shards encoded by snapshot, ready to be written on any thread.
+     */
+    static class Snapshot {
+        private final File directory;        // directory holding the shard files
+        private final int[] generations;     // generation of every shard in this snapshot
+        private final ByteBuffer[][] frames; // encoded dictionary, null for shards kept as they are
+        private final ByteBuffer[] postings; // encoded occurrences, null for shards kept as they are
+
+        private Snapshot(File directory, int[] generations, ByteBuffer[][] frames, ByteBuffer[] postings) {
+            this.directory = directory;
+            this.generations = generations;
+            this.frames = frames;
+            this.postings = postings;
+        }
+
+        /**
+         * Writes the encoded shards to their new dictionary and postings files, in parallel.
+         * Precondition: directory is writable.
+         * Postcondition: The shard files of this snapshot are complete.
+         *
+         * @throws IOException if a shard file cannot be written
+         */
+        void write() throws IOException {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create directory " + directory);
+            }
+            try {
+                IntStream.range(0, SHARDS).parallel().filter(i -> frames[i] != null).forEach(i -> {
+                    try {
+                        Segment.write(postingsFile(directory, i, generations[i]), new ByteBuffer[] { postings[i] });
+                        Segment.write(shardFile(directory, i, generations[i]), frames[i]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Deletes shard files of generations before this snapshot and unfinished temporary files.
+         * Files of later snapshots are kept.
+         * Precondition: The index referring to this snapshot has been saved, and no other
+         * snapshot is being written.
+         * Postcondition: No shard file older than this snapshot remains.
+         */
+        void removeStaleFiles() {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                Matcher name = SHARD_FILE.matcher(file.getName());
+                if (name.matches()) {
+                    int i = Integer.parseInt(name.group(1));
+                    int generation = (name.group(2) == null) ? 0 : Integer.parseInt(name.group(2));
+                    if (i >= SHARDS || generation < generations[i] || name.group(4) != null) {
+                        file.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds sorted words, building each shard median first so it starts out balanced.
+     * Precondition: words are sorted and not yet in the tree.
+     * Postcondition: Every word is added to its shard.
+     *
+     * @param words iterator over the words in order
+     */
+    public void addSorted(Iterator<Word> words) {
+        List<List<Word>> perShard = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            perShard.add(new ArrayList<>());
+        }
+        while (words.hasNext()) {
+            Word word = words.next();
+            perShard.get(shardOf(word.getWordText())).add(word);
+        }
+        for (int i = 0; i < SHARDS; i++) {
+            addBalanced(shard(i), perShard.get(i), 0, perShard.get(i).size() - 1);
+            sizes[i] = shards[i].size();
+            filters[i] = filterOf(shards[i]);
+        }
+    }
+
+    /**
+     * Returns the root of the first non-empty shard.
+     * Precondition: Tree is not empty.
+     * Postcondition: Only that shard is loaded.
+     *
+     * @return root node of the first non-empty shard
+     * @throws NullPointerException if the tree is empty
+     */
+    @Override
+    public BSTreeNode<Word> getRoot() throws NullPointerException {
+        int i = nextNonEmpty(0);
+        if (i == SHARDS) {
+            throw new NullPointerException("Tree is empty. No root node.");
+        }
+        return shard(i).getRoot();
+    }
+
+    /**
+     * Returns the height of the tallest shard.
+     * Precondition: None.
+     * Postcondition: All shards are loaded.
+     *
+     * @return height of the tallest shard
+     */
+    @Override
+    public int getHeight() {
+        loadAll();
+        int height = 0;
+        for (BSTreeADT<Word> shard : shards) {
+            height = Math.max(height, shard.getHeight());
+        }
+        return height;
+    }
+
+    /**
+     * Returns the total number of words from the stored shard sizes.
+     * Precondition: None.
+     * Postcondition: No shard is loaded.
+     *
+     * @return number of words
+     */
+    @Override
+    public int size() {
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        return total;
+    }
+
+    /**
+     * Checks whether the tree holds no words.
+     * Precondition: None.
+     * Postcondition: Returns true if every shard is empty.
+     *
+     * @return true if empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes every word.
+     * Precondition: None.
+     * Postcondition: Every shard is empty and will be written on save.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = newShard();
+            sizes[i] = 0;
+            filters[i] = new BloomFilter(0);
+        }
+    }
+
+    /**
+     * Checks whether the shard responsible for the word holds it.
+     * Precondition: entry must not be null.
+     * Postcondition: At most that shard is loaded.
+     *
+     * @param entry word to look for
+     * @return true if found, false otherwise
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean contains(Word entry) throws NullPointerException {
+        return search(entry) != null;
+    }
+
+    /**
+     * Searches the shard responsible for the word, unless its Bloom filter
+     * shows the word is not there.
+     * Precondition: entry must not be null.
+     * Postcondition: At most that shard is loaded; a word its filter rules out loads nothing.
+     *
+     * @param entry word to locate
+     * @return node holding the word or null
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<Word> search(Word entry) throws NullPointerException {
+        int i = shardOf(entry.getWordText());
+        if (filters[i] != null && !filters[i].mightContain(entry.getWordText())) {
+            return null;
+        }
+        return shard(i).search(entry);
+    }
+
+    /**
+     * Adds a word to the shard responsible for it.
+     * Precondition: entry must not be null.
+     * Postcondition: Shard size is updated if the word was added.
+     *
+     * @param entry word to add
+     * @return true if added, false if duplicate
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean add(Word entry) throws NullPointerException {
+        int i = shardOf(entry.getWordText());
+        boolean added = shard(i).add(entry);
+        sizes[i] = shards[i].size();
+        if (added) {
+            filters[i].add(entry.getWordText());
+        }
+        return added;
+    }
+
+    /**
+     * Removes the smallest word from the first non-empty shard.
+     * Precondition: None.
+     * Postcondition: Returns null if the tree is empty.
+     *
+     * @return node holding the removed word or null
+     */
+    @Override
+    public BSTreeNode<Word> removeMin() {
+        int i = nextNonEmpty(0);
+        if (i == SHARDS) {
+            return null;
+        }
+        BSTreeNode<Word> removed = shard(i).removeMin();
+        sizes[i] = shards[i].size();
+        return removed;
+    }
+
+    /**
+     * Removes the largest word from the last non-empty shard.
+     * Precondition: None.
+     * Postcondition: Returns null if the tree is empty.
+     *
+     * @return node holding the removed word or null
+     */
+    @Override
+    public BSTreeNode<Word> removeMax() {
+        int i = previousNonEmpty(SHARDS - 1);
+        if (i < 0) {
+            return null;
+        }
+        BSTreeNode<Word> removed = shard(i).removeMax();
+        sizes[i] = shards[i].size();
+        return removed;
+    }
+
+    /**
+     * Removes a word from the shard responsible for it.
+     * Precondition: entry must not be null.
+     * Postcondition: Shard size is updated if the word was removed.
+     *
+     * @param entry word to remove
+     * @return node holding the removed word or null if not found
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<Word> remove(Word entry) throws NullPointerException {
+        int i = shardOf(entry.getWordText());
+        BSTreeNode<Word> removed = shard(i).remove(entry);
+        sizes[i] = shards[i].size();
+        return removed;
+    }
+
+    /**
+     * Counts the words before the given one from the sizes of the earlier shards and a rank in its own shard.
+     * Precondition: entry must not be null.
+     * Postcondition: Only the word's shard is loaded.
+     *
+     * @param entry word to rank
+     * @return number of smaller words
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public int rank(Word entry) throws NullPointerException {
+        int i = shardOf(entry.getWordText());
+        int rank = 0;
+        for (int j = 0; j < i; j++) {
+            rank += sizes[j];
+        }
+        return rank + shard(i).rank(entry);
+    }
+
+    /**
+     * Finds the shard holding a position from the shard sizes and selects within it.
+     * Precondition: 0 &lt;= index &lt; size().
+     * Postcondition: Only that shard is loaded.
+     *
+     * @param index zero-based position in sorted order
+     * @return word at that position
+     * @throws IndexOutOfBoundsException if index is outside the tree
+     */
+    @Override
+    public Word select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        int i = 0;
+        while (index >= sizes[i]) {
+            index -= sizes[i];
+            i++;
+        }
+        return shard(i).select(index);
+    }
+
+    /**
+     * Finds the greatest word less than or equal to the entry in its shard, falling back to the earlier shards.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry word to compare against
+     * @return matching word or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public Word floor(Word entry) throws NullPointerException {
+        int i = shardOf(entry.getWordText());
+        Word found = shard(i).floor(entry);
+        return (found != null) ? found : lastBefore(i);
+    }
+
+    /**
+     * Finds the greatest word strictly less than the entry in its shard, falling back to the earlier shards.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry word to compare against
+     * @return matching word or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public Word lower(Word entry) throws NullPointerException {
+        int i = shardOf(entry.getWordText());
+        Word found = shard(i).lower(entry);
+        return (found != null) ? found : lastBefore(i);
+    }
+
+    /**
+     * Finds the smallest word greater than or equal to the entry in its shard, falling back to the later shards.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry word to compare against
+     * @return matching word or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public Word ceiling(Word entry) throws NullPointerException {
+        int i = shardOf(entry.getWordText());
+        Word found = shard(i).ceiling(entry);
+        return (found != null) ? found : firstAfter(i);
+    }
+
+    /**
+     * Finds the smallest word strictly greater than the entry in its shard, falling back to the later shards.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry word to compare against
+     * @return matching word or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public Word higher(Word entry) throws NullPointerException {
+        int i = shardOf(entry.getWordText());
+        Word found = shard(i).higher(entry);
+        return (found != null) ? found : firstAfter(i);
+    }
+
+    /**
+     * Iterates over every word in order, loading all shards in parallel first.
+     */
+    @Override
+    public Iterator<Word> inorderIterator() {
+        loadAll();
+        return new ShardIterator(0, SHARDS - 1, i -> shard(i).inorderIterator());
+    }
+
+    /**
+     * Iterates over the shards in order, each in pre-order.
+     */
+    @Override
+    public Iterator<Word> preorderIterator() {
+        loadAll();
+        return new ShardIterator(0, SHARDS - 1, i -> shard(i).preorderIterator());
+    }
+
+    /**
+     * Iterates over the shards in order, each in post-order.
+     */
+    @Override
+    public Iterator<Word> postorderIterator() {
+        loadAll();
+        return new ShardIterator(0, SHARDS - 1, i -> shard(i).postorderIterator());
+    }
+
+    /**
+     * Iterates from the given word to the end, loading later shards only when they are reached.
+     */
+    @Override
+    public Iterator<Word> tailIterator(Word fromEntry) throws NullPointerException {
+        int first = shardOf(fromEntry.getWordText());
+        return new ShardIterator(first, SHARDS - 1,
+                i -> (i == first) ? shard(i).tailIterator(fromEntry) : shard(i).inorderIterator());
+    }
+
+    /**
+     * Iterates over [fromEntry, toEntry), reading only the shards the range covers.
+     */
+    @Override
+    public Iterator<Word> rangeIterator(Word fromEntry, Word toEntry) {
+        int first = (fromEntry == null) ? 0 : shardOf(fromEntry.getWordText());
+        int last = (toEntry == null) ? SHARDS - 1 : shardOf(toEntry.getWordText());
+        return new ShardIterator(first, last, i -> shard(i).rangeIterator(fromEntry, toEntry));
+    }
+
+    /**
+     * Returns the largest word of the shards before shard i, or null.
+     */
+    private Word lastBefore(int i) {
+        int j = previousNonEmpty(i - 1);
+        return (j < 0) ? null : shard(j).select(sizes[j] - 1);
+    }
+
+    /**
+     * Returns the smallest word of the shards after shard i, or null.
+     */
+    private Word firstAfter(int i) {
+        int j = nextNonEmpty(i + 1);
+        return (j == SHARDS) ? null : shard(j).select(0);
+    }
+
+    /**
+     * Returns the first shard from i on holding words, or SHARDS if none.
+     */
+    private int nextNonEmpty(int i) {
+        while (i < SHARDS && sizes[i] == 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the last shard from i back holding words, or -1 if none.
+     */
+    private int previousNonEmpty(int i) {
+        while (i >= 0 && sizes[i] == 0) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the file a generation of a shard is saved in.
+     */
+    private static File shardFile(File directory, int i, int generation) {
+        String name = (generation == 0) ? String.format("shard-%02d.ser", i)
+                : String.format("shard-%02d-%d.ser", i, generation);
+        return new File(directory, name);
+    }
+
+    /**
+     * Returns the postings file saved with a generation of a shard.
+     */
+    private static File postingsFile(File directory, int i, int generation) {
+        return new File(directory, String.format("shard-%02d-%d.post", i, generation));
+    }
+
+    /**
+     * Creates an empty shard of the current tree type, with the hash index of a BSTree enabled.
+     */
+    @SuppressWarnings("unchecked")
+    private BSTreeADT<Word> newShard() {
+        BSTreeADT<Word> tree = newTree(treeType);
+        if (tree instanceof BSTree) {
+            ((BSTree<Word>) tree).setHashIndexed(true);
+        }
+        return tree;
+    }
+
+    /**
+     * Creates the array holding the loaded shards.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static BSTreeADT<Word>[] newShardArray() {
+        return (BSTreeADT<Word>[]) new BSTreeADT[SHARDS];
+    }
+
+    /**
+     * Starts with no shards loaded after deserialization. Indexes saved before
+     * shard generations were kept refer to the original file names, and those
+     * saved before Bloom filters build each filter when the shard is read.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        shards = newShardArray();
+        if (generations == null) {
+            generations = new int[SHARDS];
+        }
+        if (filters == null) {
+            filters = new BloomFilter[SHARDS];
+        }
+    }
+
+    /**
+     * Creates an empty tree of the requested implementation.
+     * Precondition: None.
+     * Postcondition: Returns a new tree, or null if the type is not recognised.
+     *
+     * @param treeType bst, splay, btree, array or radix; null means bst
+     * @return new empty tree or null
+     */
+    static BSTreeADT<Word> newTree(String treeType) {
+        if (treeType == null || treeType.equals("bst")) {
+            return new BSTree<>();
+        } else if (treeType.equals("splay")) {
+            return new SplayTree<>();
+        } else if (treeType.equals("btree")) {
+            return new BTree<>();
+        } else if (treeType.equals("array")) {
+            return new ArrayBSTree<>();
+        } else if (treeType.equals("radix")) {
+            return new RadixTrie<>(Word::getWordText);
+        }
+        return null;
+    }
+
+    /**
+     * Names the implementation of a tree as accepted by newTree.
+     * Precondition: tree must not be null.
+     * Postcondition: Returns the type name, "bst" for a plain BSTree.
+     *
+     * @param tree tree to name
+     * @return type name
+     */
+    static String treeTypeOf(BSTreeADT<Word> tree) {
+        if (tree instanceof SplayTree) {
+            return "splay";
+        } else if (tree instanceof BTree) {
+            return "btree";
+        } else if (tree instanceof ArrayBSTree) {
+            return "array";
+        } else if (tree instanceof RadixTrie) {
+            return "radix";
+        }
+        return "bst";
+    }
+
+    /**
+     * Copies every word of a tree into an empty tree of another implementation.
+     * Precondition: target is empty.
+     * Postcondition: target holds the same words, inserted median first so it starts out balanced.
+     */
+    private static BSTreeADT<Word> convertTree(BSTreeADT<Word> source, BSTreeADT<Word> target) {
+        List<Word> sorted = new ArrayList<>(source.size());
+        Iterator<Word> iterator = source.inorderIterator();
+        while (iterator.hasNext()) {
+            sorted.add(iterator.next());
+        }
+        addBalanced(target, sorted, 0, sorted.size() - 1);
+        return target;
+    }
+
+    /**
+     * Recursively adds the middle word of a sorted range before either half.
+     * Precondition: words is sorted.
+     * Postcondition: Every word in words[low..high] is added to tree.
+     */
+    private static void addBalanced(BSTreeADT<Word> tree, List<Word> words, int low, int high) {
+        if (low > high) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        tree.add(words.get(middle));
+        addBalanced(tree, words, low, middle - 1);
+        addBalanced(tree, words, middle + 1, high);
+    }
+
+    /**
+     * Chains per-shard iterators over a range of shards, skipping empty shards
+     * and creating each shard's iterator only when the previous one is used up.
+     */
+    private class ShardIterator implements Iterator<Word> {
+        private int next;                        // next shard to open
+        private int last;                        // last shard in the range
+        private IntFunction<Iterator<Word>> open; // iterator over one shard
+        private Iterator<Word> current;          // iterator of the shard in use
+
+        ShardIterator(int first, int last, IntFunction<Iterator<Word>> open) {
+            this.next = first;
+            this.last = last;
+            this.open = open;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                next = nextNonEmpty(next);
+                if (next > last) {
+                    return false;
+                }
+                current = open.apply(next++);
+            }
+            return true;
+        }
+
+        @Override
+        public Word next() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
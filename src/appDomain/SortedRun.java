@@ -0,0 +1,407 @@
+/**
+ * SortedRun.java
+ *
+ * Immutable on-disk level of the LSM word index: every word of a flushed
+ * memtable, or of several merged runs, stored in alphabetical order with its
+ * postings. Only a sparse index of every 32nd word and a Bloom filter of
+ * the words are kept in memory; a lookup of a word the run does not hold is
+ * usually answered by the filter alone, any other lookup binary-searches the
+ * index and scans at most 32 records, and ordered scans read the file
+ * sequentially, so a run may be far larger than the heap.
+ */
+
+package appDomain;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only sorted run file with a sparse in-memory index.
+ */
+final class SortedRun implements Closeable {
+    private static final int MAGIC = 0x57544C52;  // "WTLR"
+    private static final int VERSION = 2;         // 2 adds the Bloom filter after the sparse index
+    private static final int HEADER = 28;         // magic, version, id, word count, index offset
+    private static final int INDEX_INTERVAL = 32; // records between sparse index entries
+
+    private final File file;           // run file
+    private final long id;             // flush sequence number; larger is newer
+    private final FileChannel channel; // open for positional reads
+    private final String[] keys;       // every INDEX_INTERVAL-th word
+    private final long[] offsets;      // position of the record of each key
+    private final int count;           // number of words
+    private final long end;            // position where the records end
+    private final BloomFilter filter;  // words of the run, null for runs written without one
+
+    /**
+     * One word of a run, with the postings it holds in this run.
+     */
+    static class Entry {
+        final String text;                            // word text
+        final Map<String, List<Integer>> occurrences; // line numbers of each file
+        final Map<String, Integer> counts;            // occurrence count of each count-only file
+        final long runId;                             // run the entry was read from
+
+        Entry(String text, Map<String, List<Integer>> occurrences, Map<String, Integer> counts, long runId) {
+            this.text = text;
+            this.occurrences = occurrences;
+            this.counts = counts;
+            this.runId = runId;
+        }
+    }
+
+    /**
+     * Opens a run file and reads its sparse index.
+     * Precondition: file was written by a Writer.
+     * Postcondition: The file stays open for reading until close.
+     *
+     * @param file run file
+     * @throws IOException if the file cannot be read or is not a run
+     */
+    SortedRun(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            readAt(header, 0);
+            header.flip();
+            int version = (header.getInt() == MAGIC) ? header.getInt() : -1;
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Not a sorted run: " + file);
+            }
+            this.id = header.getLong();
+            this.count = header.getInt();
+            this.end = header.getLong();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new ChannelInput(end, channel.size())));
+            int entries = in.readInt();
+            keys = new String[entries];
+            offsets = new long[entries];
+            for (int i = 0; i < entries; i++) {
+                keys[i] = in.readUTF();
+                offsets[i] = in.readLong();
+            }
+            filter = (version >= 2) ? BloomFilter.read(in) : null;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the flush sequence number of the run.
+     *
+     * @return run id
+     */
+    long id() {
+        return id;
+    }
+
+    /**
+     * Returns the run file.
+     *
+     * @return run file
+     */
+    File file() {
+        return file;
+    }
+
+    /**
+     * Returns the bytes of the run's records, which compaction compares runs by.
+     *
+     * @return size of the records
+     */
+    long size() {
+        return end;
+    }
+
+    /**
+     * Returns the number of words in the run.
+     *
+     * @return word count
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Looks up one word.
+     * Precondition: text must not be null.
+     * Postcondition: No record is read if the filter rules the word out, at most INDEX_INTERVAL otherwise.
+     *
+     * @param text word to find
+     * @return the word's entry, or null if the run does not hold it
+     * @throws IOException if the run cannot be read
+     */
+    Entry get(String text) throws IOException {
+        if (filter != null && !filter.mightContain(text)) {
+            return null;
+        }
+        Cursor cursor = cursor(text);
+        Entry entry = cursor.next();
+        return (entry != null && entry.text.equals(text)) ? entry : null;
+    }
+
+    /**
+     * Opens a sequential cursor at the first word not before from.
+     * Precondition: None. from may be null for the first word.
+     * Postcondition: The cursor returns the remaining words in order.
+     *
+     * @param from inclusive lower bound, or null
+     * @return cursor over the run
+     * @throws IOException if the run cannot be read
+     */
+    Cursor cursor(String from) throws IOException {
+        int block = (from == null) ? -1 : Arrays.binarySearch(keys, from);
+        if (block < 0) {
+            block = (from == null) ? 0 : Math.max(0, -block - 2);
+        }
+        Cursor cursor = new Cursor((keys.length == 0) ? end : offsets[block]);
+        if (from != null) {
+            cursor.skipBefore(from);
+        }
+        return cursor;
+    }
+
+    /**
+     * Closes the run file.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Fills a buffer from a position of the file.
+     */
+    private void readAt(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of sorted run " + file);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Sequential reader over the records of the run.
+     */
+    class Cursor {
+        private final DataInputStream in; // records from the start position on
+        private long position;            // position of the next record
+        private Entry pending;            // record read ahead by skipBefore, or null
+
+        private Cursor(long start) {
+            this.position = start;
+            this.in = new DataInputStream(new BufferedInputStream(new ChannelInput(start, end), 64 * 1024));
+        }
+
+        /**
+         * Returns the next entry, or null at the end of the run.
+         *
+         * @return next entry or null
+         * @throws IOException if a record is damaged
+         */
+        Entry next() throws IOException {
+            if (pending != null) {
+                Entry entry = pending;
+                pending = null;
+                return entry;
+            }
+            if (position >= end) {
+                return null;
+            }
+            int length = in.readInt();
+            int checksum = in.readInt();
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            position += 8 + length;
+
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Checksum mismatch in " + file);
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+            String text = record.readUTF();
+            Map<String, List<Integer>> occurrences = new HashMap<>();
+            Map<String, Integer> counts = new HashMap<>();
+            PostingsFile.readPostings(record, occurrences, counts);
+            return new Entry(text, occurrences, counts, id);
+        }
+
+        /**
+         * Skips the records before a word.
+         */
+        private void skipBefore(String from) throws IOException {
+            Entry entry;
+            do {
+                entry = next();
+            } while (entry != null && entry.text.compareTo(from) < 0);
+            pending = entry;
+        }
+    }
+
+    /**
+     * Input stream over a range of the run file, read with positional reads so
+     * several cursors can share the channel.
+     */
+    private class ChannelInput extends InputStream {
+        private long position;    // next byte to read
+        private final long limit; // end of the range
+
+        ChannelInput(long position, long limit) {
+            this.position = position;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return (read(one, 0, 1) < 0) ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= limit) {
+                return -1;
+            }
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset, (int) Math.min(length, limit - position));
+            int read = channel.read(target, position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Writes a run file from entries given in alphabetical order. The file is
+     * written under a temporary name and renamed into place by finish.
+     */
+    static class Writer implements Closeable {
+        private final Path temp;                                  // file being written
+        private final Path target;                                // final name of the run
+        private final long id;                                    // id of the run
+        private final FileChannel channel;                        // channel under out, for the header and force
+        private final DataOutputStream out;                       // buffered output
+        private final List<String> keys = new ArrayList<>();      // sparse index keys
+        private final List<Long> offsets = new ArrayList<>();     // sparse index positions
+        private final Segment.Bytes record = new Segment.Bytes(); // record being encoded
+        private final BloomFilter filter;                         // words appended
+        private long position = HEADER;                           // position of the next record
+        private int count;                                        // records written
+
+        /**
+         * Starts a run file.
+         * Precondition: The directory of file exists.
+         * Postcondition: Entries can be appended.
+         *
+         * @param file final run file
+         * @param id id of the run
+         * @param expected number of words the run will probably hold, to size its Bloom filter
+         * @throws IOException if the file cannot be created
+         */
+        Writer(File file, long id, int expected) throws IOException {
+            this.filter = new BloomFilter(expected);
+            this.target = file.toPath();
+            this.temp = new File(file.getPath() + ".tmp").toPath();
+            this.id = id;
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        }
+
+        /**
+         * Appends a word with its postings.
+         * Precondition: text is after every word appended so far.
+         * Postcondition: The record is buffered.
+         *
+         * @param text word text
+         * @param occurrences line numbers of each file
+         * @param counts occurrence count of each count-only file, or null
+         * @throws IOException if writing fails
+         */
+        void append(String text, Map<String, List<Integer>> occurrences, Map<String, Integer> counts)
+                throws IOException {
+            if (count % INDEX_INTERVAL == 0) {
+                keys.add(text);
+                offsets.add(position);
+            }
+            filter.add(text);
+            record.reset();
+            DataOutputStream encoder = new DataOutputStream(record);
+            encoder.writeUTF(text);
+            PostingsFile.writePostings(encoder, occurrences, counts);
+            encoder.flush();
+
+            ByteBuffer payload = record.buffer();
+            CRC32 crc = new CRC32();
+            crc.update(payload.array(), 0, payload.limit());
+            out.writeInt(payload.limit());
+            out.writeInt((int) crc.getValue());
+            out.write(payload.array(), 0, payload.limit());
+            position += 8 + payload.limit();
+            count++;
+        }
+
+        /**
+         * Returns the number of words appended.
+         *
+         * @return word count
+         */
+        int count() {
+            return count;
+        }
+
+        /**
+         * Writes the sparse index, Bloom filter and header, forces the file and renames it into place.
+         * Precondition: Every entry has been appended.
+         * Postcondition: The run file is complete and durable.
+         *
+         * @throws IOException if writing fails
+         */
+        void finish() throws IOException {
+            out.writeInt(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                out.writeUTF(keys.get(i));
+                out.writeLong(offsets.get(i));
+            }
+            filter.write(out);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putLong(id).putInt(count).putLong(position).flip();
+            long at = 0;
+            while (header.hasRemaining()) {
+                at += channel.write(header, at);
+            }
+            channel.force(true);
+            channel.close();
+            Segment.replace(temp, target);
+        }
+
+        /**
+         * Abandons an unfinished run file.
+         *
+         * @throws IOException if closing fails
+         */
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                channel.close();
+                temp.toFile().delete();
+            }
+        }
+    }
+}
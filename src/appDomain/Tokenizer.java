@@ -0,0 +1,366 @@
+/**
+ * Tokenizer.java
+ *
+ * Splits lines of input text into normalized words for the index. A line is
+ * split either at a set of delimiter characters, the historical behaviour, or
+ * at Unicode word boundaries: runs of letters, digits and combining marks,
+ * with each ideograph standing alone. Every token is then case-folded
+ * independently of the default locale, and passed through optional stages
+ * such as stemming or stop-word removal, any of which may drop it.
+ *
+ * Plain ASCII is by far the most common input, so both splitters classify
+ * ASCII characters through a lookup table, and folding an ASCII token that is
+ * already lowercase returns it without copying. Only tokens with other
+ * characters pay for Unicode normalization.
+ */
+
+package appDomain;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Reusable line tokenizer with a pipeline of token stages.
+ * A tokenizer reads one line at a time and is not shared between threads.
+ */
+public class Tokenizer {
+    /**
+     * Delimiters of the original tokenizer: whitespace and common punctuation.
+     */
+    public static final String DEFAULT_DELIMITERS = " \t\n\r\f.,!?;:\"()[]{}<>";
+
+    /**
+     * One step of the pipeline applied to every folded token.
+     */
+    public interface Stage {
+        /**
+         * Transforms a token.
+         * Precondition: token is folded and not empty.
+         * Postcondition: Returns the token to index, or null to drop it.
+         *
+         * @param token folded token
+         * @return token to pass on, or null
+         */
+        String apply(String token);
+    }
+
+    /**
+     * Light English stemmer that removes plural endings, so "cats" and "cat" are indexed together.
+     */
+    public static final Stage STEM = Tokenizer::stem;
+
+    /**
+     * Drops numbers, dates and times: tokens made only of digits and the separators . , : - / +.
+     */
+    public static final Stage SKIP_NUMBERS = Tokenizer::skipNumber;
+
+    /**
+     * Common English function words, which make up much of any text and are rarely looked up.
+     */
+    public static final List<String> ENGLISH_STOP_WORDS = Collections.unmodifiableList(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it",
+            "no", "not", "of", "on", "or", "such", "that", "the", "their", "then", "there", "these",
+            "they", "this", "to", "was", "will", "with"));
+
+    private static final boolean[] ASCII_WORD = new boolean[128]; // ASCII letters, digits and '_'
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_WORD[c] = Character.isLetterOrDigit(c) || c == '_';
+        }
+    }
+
+    private final boolean unicode;                              // split at word boundaries instead of delimiters
+    private final boolean[] asciiDelimiters = new boolean[128]; // ASCII delimiter characters
+    private final String otherDelimiters;                       // delimiter characters outside ASCII
+    private final List<Stage> stages = new ArrayList<>();       // stages applied in order to each token
+    private String line = "";                                   // line being split
+    private int position;                                       // index of the next unread character of line
+
+    /**
+     * Creates a tokenizer splitting at the default delimiters.
+     * Precondition: None.
+     * Postcondition: Tokens are split as by earlier versions and case-folded.
+     */
+    public Tokenizer() {
+        this(DEFAULT_DELIMITERS);
+    }
+
+    /**
+     * Creates a tokenizer splitting at the given delimiter characters.
+     * Precondition: delimiters must not be null.
+     * Postcondition: Every character of delimiters separates tokens.
+     *
+     * @param delimiters characters that separate tokens
+     */
+    public Tokenizer(String delimiters) {
+        this(false, delimiters);
+    }
+
+    private Tokenizer(boolean unicode, String delimiters) {
+        this.unicode = unicode;
+        StringBuilder other = new StringBuilder();
+        for (int i = 0; i < delimiters.length(); i++) {
+            char c = delimiters.charAt(i);
+            if (c < 128) {
+                asciiDelimiters[c] = true;
+            } else {
+                other.append(c);
+            }
+        }
+        this.otherDelimiters = other.toString();
+    }
+
+    /**
+     * Creates a tokenizer splitting at Unicode word boundaries. A word is a run of
+     * letters, digits, combining marks and connector punctuation, and may contain
+     * an apostrophe between two of them; each ideograph is a word of its own.
+     * Precondition: None.
+     * Postcondition: Returns a tokenizer with no stages.
+     *
+     * @return word-boundary tokenizer
+     */
+    public static Tokenizer unicode() {
+        return new Tokenizer(true, "");
+    }
+
+    /**
+     * Appends a stage to the pipeline.
+     * Precondition: stage must not be null.
+     * Postcondition: Every later token passes through stage after the earlier stages.
+     *
+     * @param stage stage to add
+     * @return this tokenizer
+     */
+    public Tokenizer addStage(Stage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    /**
+     * Starts splitting a new line.
+     * Precondition: line must not be null.
+     * Postcondition: next returns the tokens of line.
+     *
+     * @param line text to split
+     */
+    public void reset(String line) {
+        this.line = line;
+        this.position = 0;
+    }
+
+    /**
+     * Returns the next token of the line that survives every stage.
+     * Precondition: reset has been called.
+     * Postcondition: The token is folded and has passed every stage.
+     *
+     * @return next token, or null at the end of the line
+     */
+    public String next() {
+        while (true) {
+            int start = unicode ? nextWord() : nextDelimited();
+            if (start < 0) {
+                return null;
+            }
+            String token = normalize(line.substring(start, position));
+            if (token != null) {
+                return token;
+            }
+        }
+    }
+
+    /**
+     * Folds a single word and passes it through the stages, as a token of a line would be.
+     * Precondition: text must not be null.
+     * Postcondition: Tokenizer position is unchanged.
+     *
+     * @param text word to normalize
+     * @return normalized word, or null if a stage drops it or it is empty
+     */
+    public String normalize(String text) {
+        String token = fold(text);
+        for (int i = 0; i < stages.size() && token != null; i++) {
+            token = stages.get(i).apply(token);
+        }
+        return (token == null || token.isEmpty()) ? null : token;
+    }
+
+    /**
+     * Case-folds a word independently of the default locale. Text outside ASCII
+     * is first brought to Unicode composed form, so the same word typed with
+     * combining accents or precomposed letters is indexed once.
+     * Precondition: text must not be null.
+     * Postcondition: Returns text itself if it is lowercase ASCII.
+     *
+     * @param text word to fold
+     * @return folded word
+     */
+    public static String fold(String text) {
+        boolean upper = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 128) {
+                return Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+            }
+            upper |= c >= 'A' && c <= 'Z';
+        }
+        if (!upper) {
+            return text;
+        }
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Creates a stage that drops the given words.
+     * Precondition: words must not be null.
+     * Postcondition: The stage passes every token that is not among the folded words.
+     *
+     * @param words words to drop
+     * @return stop-word stage
+     */
+    public static Stage stopWords(Collection<String> words) {
+        Set<String> folded = new HashSet<>();
+        for (String word : words) {
+            folded.add(fold(word));
+        }
+        return token -> folded.contains(token) ? null : token;
+    }
+
+    /**
+     * Creates a stage that drops tokens shorter or longer than the given bounds.
+     * Precondition: 0 <= min <= max.
+     * Postcondition: The stage passes tokens of min to max characters, counted in code points.
+     *
+     * @param min fewest characters kept
+     * @param max most characters kept
+     * @return length stage
+     */
+    public static Stage lengthBetween(int min, int max) {
+        return token -> {
+            int length = token.codePointCount(0, token.length());
+            return (length < min || length > max) ? null : token;
+        };
+    }
+
+    /**
+     * Returns null for a token of digits and number separators with at least one digit.
+     */
+    static String skipNumber(String token) {
+        boolean digit = false;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (Character.isDigit(c)) {
+                digit = true;
+            } else if (".,:-/+".indexOf(c) < 0) {
+                return token;
+            }
+        }
+        return digit ? null : token;
+    }
+
+    /**
+     * Removes English plural endings: "ies" becomes "y", "es" becomes "e" and a
+     * final "s" is dropped, except in endings such as "ss" and "us" that are not plurals.
+     */
+    static String stem(String token) {
+        int length = token.length();
+        if (length <= 3 || token.charAt(length - 1) != 's') {
+            return token;
+        }
+        if (token.endsWith("ies") && !token.endsWith("eies") && !token.endsWith("aies")) {
+            return token.substring(0, length - 3) + "y";
+        }
+        if (token.endsWith("es") && !token.endsWith("aes") && !token.endsWith("ees") && !token.endsWith("oes")) {
+            return token.substring(0, length - 1);
+        }
+        if (!token.endsWith("us") && !token.endsWith("ss")) {
+            return token.substring(0, length - 1);
+        }
+        return token;
+    }
+
+    /**
+     * Moves past the next run of non-delimiters.
+     *
+     * @return start of the token, or -1 at the end of the line
+     */
+    private int nextDelimited() {
+        int length = line.length();
+        while (position < length && isDelimiter(line.charAt(position))) {
+            position++;
+        }
+        if (position == length) {
+            return -1;
+        }
+        int start = position;
+        while (position < length && !isDelimiter(line.charAt(position))) {
+            position++;
+        }
+        return start;
+    }
+
+    /**
+     * Checks a character against the delimiter set.
+     */
+    private boolean isDelimiter(char c) {
+        return (c < 128) ? asciiDelimiters[c] : otherDelimiters.indexOf(c) >= 0;
+    }
+
+    /**
+     * Moves past the next word at Unicode word boundaries.
+     *
+     * @return start of the word, or -1 at the end of the line
+     */
+    private int nextWord() {
+        int length = line.length();
+        while (position < length && !isWordChar(line.codePointAt(position))) {
+            position += Character.charCount(line.codePointAt(position));
+        }
+        if (position == length) {
+            return -1;
+        }
+        int start = position;
+        int first = line.codePointAt(position);
+        position += Character.charCount(first);
+        if (Character.isIdeographic(first)) {
+            return start;
+        }
+        while (position < length) {
+            int c = line.codePointAt(position);
+            if (Character.isIdeographic(c)) {
+                break;
+            }
+            if (!isWordChar(c)) {
+                // An apostrophe joins the letters around it, as in "don't"
+                int after = position + Character.charCount(c);
+                if ((c != '\'' && c != '\u2019') || after == length || !isWordChar(line.codePointAt(after))
+                        || Character.isIdeographic(line.codePointAt(after))) {
+                    break;
+                }
+            }
+            position += Character.charCount(c);
+        }
+        return start;
+    }
+
+    /**
+     * Checks whether a code point belongs to a word.
+     */
+    private static boolean isWordChar(int c) {
+        if (c < 128) {
+            return ASCII_WORD[c];
+        }
+        if (Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK || type == Character.CONNECTOR_PUNCTUATION;
+    }
+}
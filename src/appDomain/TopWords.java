@@ -0,0 +1,58 @@
+/**
+ * TopWords.java
+ *
+ * Selects the most frequent words of the word repository in a single pass,
+ * keeping only the best candidates seen so far in a small heap instead of
+ * sorting every word by frequency.
+ */
+
+package appDomain;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded-heap selection of the most frequent words.
+ */
+public class TopWords {
+    private TopWords() {
+    }
+
+    /**
+     * Finds the most frequent words with a single pass over the tree.
+     * Precondition: count must be positive.
+     * During: A min-heap holds at most count words; a word only enters once it beats the weakest one kept.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param bst the word repository
+     * @param count number of words wanted
+     * @return up to count words ordered by descending frequency, ties alphabetically
+     */
+    public static List<Word> select(BSTreeADT<Word> bst, int count) {
+        // Heap head is the weakest candidate: lowest frequency, then alphabetically last
+        Comparator<Word> weakestFirst = Comparator.comparingInt(Word::getFrequency)
+                .thenComparing(Comparator.<Word>reverseOrder());
+        // Sized by what the tree can fill, so a huge count does not allocate a huge heap
+        PriorityQueue<Word> heap = new PriorityQueue<>(Math.max(1, Math.min(count, bst.size())), weakestFirst);
+
+        Iterator<Word> iterator = bst.inorderIterator();
+        while (iterator.hasNext()) {
+            Word word = iterator.next();
+            if (heap.size() < count) {
+                heap.offer(word);
+            } else if (weakestFirst.compare(word, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(word);
+            }
+        }
+
+        List<Word> top = new ArrayList<>(heap);
+        top.sort(weakestFirst.reversed());
+        return top;
+    }
+}
@@ -7,6 +7,10 @@
 
 package appDomain;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -17,7 +21,11 @@ public class Word implements Comparable<Word>, Serializable {
     private static final long serialVersionUID = 1L;
 
     private String wordText; // the actual word in lowercase
-    private Map<String, List<Integer>> occurrences; // maps filename to list of line numbers
+    private Map<String, List<Integer>> occurrences; // maps filename to compressed list of line numbers
+    private Map<String, Integer> counts; // maps filename to occurrence count for count-only files, null if none
+    private transient PostingsFile postings; // file holding the occurrences until they are first changed, else null
+    private transient long postingsOffset;   // position of the occurrences in that file
+    private transient int frequency;         // total occurrences, known while they are still in the file
 
     /**
      * Constructs a new Word object and normalizes the text to lowercase.
@@ -25,19 +33,90 @@ public class Word implements Comparable<Word>, Serializable {
      * Postcondition: wordText is stored in lowercase and occurrences map is initialized.
      */
     public Word(String wordText) {
-        this.wordText = wordText.toLowerCase(); // normalize to lowercase for consistent comparison
+        this.wordText = Tokenizer.fold(wordText); // normalize to lowercase for consistent comparison
         this.occurrences = new HashMap<>();
     }
 
+    /**
+     * Constructs a word around occurrences decoded from storage.
+     * Precondition: wordText is lowercase; occurrences must not be null.
+     * Postcondition: The word holds the given maps.
+     *
+     * @param wordText the word text
+     * @param occurrences line numbers of each file
+     * @param counts occurrence count of each count-only file, or null
+     */
+    Word(String wordText, Map<String, List<Integer>> occurrences, Map<String, Integer> counts) {
+        this.wordText = wordText;
+        this.occurrences = occurrences;
+        this.counts = (counts == null || counts.isEmpty()) ? null : counts;
+    }
+
+    /**
+     * Creates a word used only as a bound of a range search, keeping its text exactly as given.
+     * A bound such as the end of a prefix range may hold characters that folding would change.
+     * Precondition: wordText must not be null.
+     * Postcondition: The word compares by the unfolded text and has no occurrences.
+     *
+     * @param wordText the bound text
+     * @return word holding the text as given
+     */
+    public static Word bound(String wordText) {
+        return new Word(wordText, new HashMap<>(), null);
+    }
+
     /**
      * Adds an occurrence of the word for a specific file and line number.
      * Precondition: filename is valid, lineNumber is positive.
-     * During: Adds the line number to the list for the corresponding file.
+     * During: Adds the line number to the compressed list for the corresponding file.
      * Postcondition: The occurrence map is updated, allowing duplicates.
      */
     public void addOccurrence(String filename, int lineNumber) {
-        occurrences.putIfAbsent(filename, new ArrayList<>());
-        occurrences.get(filename).add(lineNumber);
+        loadPostings();
+        List<Integer> lines = occurrences.get(filename);
+        if (lines == null) {
+            lines = new CompressedLineList();
+            occurrences.put(filename, lines);
+        }
+        lines.add(lineNumber);
+    }
+
+    /**
+     * Adds an occurrence of the word for a specific file without recording its line.
+     * Precondition: filename is valid.
+     * Postcondition: The occurrence count of the file is increased by one.
+     */
+    public void addCount(String filename) {
+        loadPostings();
+        if (counts == null) {
+            counts = new HashMap<>();
+        }
+        counts.merge(filename, 1, Integer::sum);
+    }
+
+    /**
+     * Removes every occurrence of the word in a specific file.
+     * Precondition: filename is valid.
+     * Postcondition: Neither line numbers nor a count are kept for the file.
+     *
+     * @param filename the file whose occurrences are dropped
+     * @return true if the word occurred in the file, false otherwise
+     */
+    public boolean removeFile(String filename) {
+        PostingCache.Postings cached = cachedPostings();
+        if (cached != null && !cached.occurrences.containsKey(filename)
+                && (cached.counts == null || !cached.counts.containsKey(filename))) {
+            return false; // nothing to change, so the word keeps reading through the cache
+        }
+        loadPostings();
+        boolean removed = occurrences.remove(filename) != null;
+        if (counts != null && counts.remove(filename) != null) {
+            removed = true;
+            if (counts.isEmpty()) {
+                counts = null;
+            }
+        }
+        return removed;
     }
 
     /**
@@ -59,18 +138,69 @@ public class Word implements Comparable<Word>, Serializable {
      * @return map of file names to line numbers
      */
     public Map<String, List<Integer>> getOccurrences() {
-        return occurrences;
+        PostingCache.Postings cached = cachedPostings();
+        return (cached != null) ? cached.occurrences : occurrences;
+    }
+
+    /**
+     * Retrieves the occurrence count of every file, including files stored without line numbers.
+     * Precondition: None.
+     * Postcondition: Returns a new map of file names to counts, sorted by file name.
+     *
+     * @return map of file names to occurrence counts
+     */
+    public Map<String, Integer> getCounts() {
+        PostingCache.Postings cached = cachedPostings();
+        Map<String, List<Integer>> occurrences = (cached != null) ? cached.occurrences : this.occurrences;
+        Map<String, Integer> counts = (cached != null) ? cached.counts : this.counts;
+        Map<String, Integer> all = new TreeMap<>();
+        for (Map.Entry<String, List<Integer>> entry : occurrences.entrySet()) {
+            all.put(entry.getKey(), entry.getValue().size());
+        }
+        if (counts != null) {
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                all.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Counts the occurrences of the word in one file.
+     * Precondition: filename is valid.
+     * Postcondition: Returns the number of line numbers plus the count-only occurrences of the file.
+     *
+     * @param filename the file to count
+     * @return number of occurrences in the file, 0 if none
+     */
+    public int getCount(String filename) {
+        PostingCache.Postings cached = cachedPostings();
+        Map<String, Integer> counts = (cached != null) ? cached.counts : this.counts;
+        List<Integer> lines = ((cached != null) ? cached.occurrences : occurrences).get(filename);
+        int count = (lines != null) ? lines.size() : 0;
+        if (counts != null) {
+            count += counts.getOrDefault(filename, 0);
+        }
+        return count;
     }
 
     /**
      * Calculates the total number of times the word appears across all files.
      * Precondition: None.
-     * Postcondition: Returns the total count of all line numbers stored.
+     * Postcondition: Returns the total count of all line numbers and count-only occurrences stored,
+     * without reading occurrences that have not been loaded yet.
      * 
      * @return the total number of occurrences
      */
     public int getFrequency() {
-        return occurrences.values().stream().mapToInt(List::size).sum();
+        if (postings != null) {
+            return frequency;
+        }
+        int frequency = occurrences.values().stream().mapToInt(List::size).sum();
+        if (counts != null) {
+            frequency += counts.values().stream().mapToInt(Integer::intValue).sum();
+        }
+        return frequency;
     }
 
     /**
@@ -114,6 +244,106 @@ public class Word implements Comparable<Word>, Serializable {
         return wordText.hashCode();
     }
 
+    /**
+     * Returns the decoded occurrences from the shared posting cache while the word
+     * still reads them from its postings file, or null once the word holds its own.
+     * A damaged postings record leaves the word without occurrences.
+     */
+    private PostingCache.Postings cachedPostings() {
+        if (postings == null) {
+            return null;
+        }
+        try {
+            return PostingCache.shared().get(postings, postingsOffset);
+        } catch (IOException e) {
+            System.err.println("Failed to load occurrences of \"" + wordText + "\" (" + e.getMessage() + ").");
+            occurrences.clear();
+            counts = null;
+            postings = null;
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the word's own copy of its occurrences from the postings file before
+     * they are changed, and drops the cached copy. A damaged postings record leaves
+     * the word without occurrences.
+     */
+    private void loadPostings() {
+        if (postings == null) {
+            return;
+        }
+        Map<String, Integer> loaded = new HashMap<>();
+        try {
+            postings.read(postingsOffset, occurrences, loaded);
+        } catch (IOException e) {
+            System.err.println("Failed to load occurrences of \"" + wordText + "\" (" + e.getMessage() + ").");
+            occurrences.clear();
+            loaded.clear();
+        }
+        PostingCache.shared().invalidate(postings, postingsOffset);
+        counts = loaded.isEmpty() ? null : loaded;
+        postings = null;
+    }
+
+    /**
+     * Saves the word. In a shard dictionary only the frequency and the position of the
+     * occurrences are written, and the occurrences go to the shard's postings file;
+     * occurrences not loaded since the last save are copied there without decoding them.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("wordText", wordText);
+        if (out instanceof PostingsFile.DictionaryOutputStream) {
+            PostingsFile.Writer writer = ((PostingsFile.DictionaryOutputStream) out).postings;
+            long offset = (postings != null)
+                    ? writer.copy(postings, postingsOffset) : writer.append(occurrences, counts);
+            fields.put("occurrences", null);
+            fields.put("counts", null);
+            out.writeFields();
+            out.writeLong(offset);
+            out.writeInt(getFrequency());
+        } else {
+            loadPostings();
+            fields.put("occurrences", occurrences);
+            fields.put("counts", counts);
+            out.writeFields();
+        }
+    }
+
+    /**
+     * Restores a saved word, converting line number lists from older repositories to the compressed form.
+     * Words read from a shard dictionary keep their occurrences in the postings file until needed.
+     * Precondition: Stream holds a serialized Word.
+     * Postcondition: Every file maps to a CompressedLineList.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        wordText = (String) fields.get("wordText", null);
+        occurrences = (Map<String, List<Integer>>) fields.get("occurrences", null);
+        counts = (Map<String, Integer>) fields.get("counts", null);
+        if (occurrences == null) {
+            postingsOffset = in.readLong();
+            frequency = in.readInt();
+            occurrences = new HashMap<>();
+            if (in instanceof PostingsFile.DictionaryInputStream) {
+                postings = ((PostingsFile.DictionaryInputStream) in).postings;
+            }
+            if (postings == null) {
+                throw new InvalidObjectException("Occurrences of \"" + wordText + "\" are missing.");
+            }
+            return;
+        }
+        for (Map.Entry<String, List<Integer>> entry : occurrences.entrySet()) {
+            if (!(entry.getValue() instanceof CompressedLineList)) {
+                List<Integer> lines = new CompressedLineList();
+                lines.addAll(entry.getValue());
+                entry.setValue(lines);
+            }
+        }
+    }
+
     /**
      * Returns the string representation of the word.
      * Precondition: None.
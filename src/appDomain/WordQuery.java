@@ -0,0 +1,97 @@
+/**
+ * WordQuery.java
+ *
+ * Evaluates multi-word queries against the word repository by merging the
+ * posting lists of the words involved. Queries are written as words separated
+ * by operators and are evaluated from left to right, for example
+ * "kitty AND hello NOT meet" or "nice LINE meet".
+ */
+
+package appDomain;
+
+import utilities.BSTreeADT;
+import implementations.BSTreeNode;
+
+/**
+ * Left-to-right boolean and proximity query over word posting lists.
+ */
+public class WordQuery {
+    /**
+     * Supported operators:
+     * AND  - files containing both sides
+     * OR   - files containing either side
+     * NOT  - files containing the left side but not the right side
+     * LINE - lines containing both sides
+     * NEAR - lines containing one side with the other side on the same or an adjacent line
+     */
+    private static final String OPERATORS = "AND OR NOT LINE NEAR";
+
+    private WordQuery() {
+    }
+
+    /**
+     * Evaluates a query expression against the tree.
+     * Precondition: expression alternates words and operators, starting and ending with a word.
+     * Postcondition: Tree is unchanged; only the words named in the query are looked up.
+     *
+     * @param bst the word repository
+     * @param expression query such as "hello AND kitty"
+     * @return postings that satisfy the query
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static PostingList evaluate(BSTreeADT<Word> bst, String expression) throws IllegalArgumentException {
+        return evaluate(bst, expression, new Tokenizer());
+    }
+
+    /**
+     * Evaluates a query expression, normalizing its words as the tokenizer normalized the indexed text.
+     * Precondition: expression alternates words and operators, starting and ending with a word.
+     * Postcondition: Tree is unchanged. A word every stage would drop is looked up folded.
+     *
+     * @param bst the word repository
+     * @param expression query such as "hello AND kitty"
+     * @param tokenizer tokenizer the repository was built with
+     * @return postings that satisfy the query
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static PostingList evaluate(BSTreeADT<Word> bst, String expression, Tokenizer tokenizer)
+            throws IllegalArgumentException {
+        String[] tokens = expression.trim().split("\\s+");
+        if (tokens[0].isEmpty() || tokens.length % 2 == 0) {
+            throw new IllegalArgumentException("Query must alternate words and operators: " + expression);
+        }
+
+        PostingList result = lookup(bst, tokens[0], tokenizer);
+
+        for (int i = 1; i < tokens.length; i += 2) {
+            String operator = tokens[i].toUpperCase();
+            PostingList right = lookup(bst, tokens[i + 1], tokenizer);
+
+            if (operator.equals("AND")) {
+                result = result.and(right);
+            } else if (operator.equals("OR")) {
+                result = result.or(right);
+            } else if (operator.equals("NOT")) {
+                result = result.andNot(right);
+            } else if (operator.equals("LINE")) {
+                result = result.sameLine(right);
+            } else if (operator.equals("NEAR")) {
+                result = result.near(right, 1);
+            } else {
+                throw new IllegalArgumentException("Unknown operator " + tokens[i] + ", expected one of " + OPERATORS);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the posting list for a single query word.
+     * Precondition: text must not be null.
+     * Postcondition: Returns an empty list if the word is not in the tree.
+     */
+    private static PostingList lookup(BSTreeADT<Word> bst, String text, Tokenizer tokenizer) {
+        String word = tokenizer.normalize(text);
+        BSTreeNode<Word> node = bst.search(new Word((word != null) ? word : text));
+        return PostingList.of(node == null ? null : node.getElement());
+    }
+}
@@ -11,138 +11,759 @@
 
 package appDomain;
 
-import implementations.BSTree;
+import implementations.BSTreeNode;
 import utilities.BSTreeADT;
 import utilities.Iterator;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.*;
 
 public class WordTracker {
-    private static final String REPO_FILE = "repository.ser"; // serialized repository file
+    private static final String REPO_FILE = "repository.ser"; // single-file repository of earlier versions
+    private static final String REPO_DIR = "repository";      // directory of the sharded repository
+    private static final String INDEX_FILE = "index.ser";     // file records and shard sizes, inside REPO_DIR
+    private static final String LOG_FILE = "wal.log";         // changes not yet saved, inside REPO_DIR
+    private static final String OFFHEAP_FILE = "repository.dat"; // repository file of the off-heap store
+    private static final String LSM_DIR = "lsm";              // directory of the LSM index
+    private static final long CHECKPOINT_MILLIS = 30000;      // time between background saves while reading files
+    private static final String USAGE =
+            "Usage: java -jar WordTracker.jar [<input.txt> ...] -pf|-pl|-po [-f<output.txt>]"
+            + " [-w<word> | -ws<word,word,...> | -wp<prefix> | -pg<start>,<count> | -top <n>"
+            + " | -q\"<word> AND|OR|NOT|LINE|NEAR <word> ...\"] [-tbst|-tsplay|-tbtree|-tarray|-tradix] [-offheap|-lsm] [-count] [-rm<file>] [-stats]"
+            + " [-unicode | -d<delimiters>] [-stem] [-stop[<file>]] [-min<n>] [-max<n>] [-nonum]";
 
     /**
      * Main driver method.
-     * Precondition: Arguments must include at least a filename and a flag.
+     * Precondition: Arguments must include a report flag and either a filename or a query flag.
      * Postcondition: Updates BST with new words, outputs results, and saves updated tree.
      */
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println("Usage: java -jar WordTracker.jar <input.txt> -pf|-pl|-po [-f<output.txt>]");
+        List<String> inputFiles = new ArrayList<>();
+        List<String> removeFiles = new ArrayList<>(); // files to remove from the repository through -rm
+        String flag = null;
+        String outputFile = null;
+        List<String> queryWords = null; // words requested through -w or -ws
+        String prefix = null;           // prefix requested through -wp
+        int pageStart = -1;             // first position requested through -pg
+        int pageCount = 0;              // number of words requested through -pg
+        int topCount = 0;               // number of most frequent words requested through -top
+        String query = null;            // boolean or proximity query requested through -q
+        String treeType = null;         // tree implementation requested through -t
+        boolean offHeap = false;        // off-heap storage requested through -offheap
+        boolean lsmIndex = false;       // LSM index requested through -lsm
+        boolean countOnly = false;      // count-only postings requested through -count
+        boolean stats = false;          // posting cache counters requested through -stats
+        boolean unicode = false;        // word-boundary tokenizing requested through -unicode
+        String delimiters = null;       // extra delimiter characters requested through -d
+        boolean stem = false;           // plural stemming requested through -stem
+        String stopFile = null;         // stop-word file requested through -stop, "" for the built-in list
+        int minLength = 1;              // shortest word kept, requested through -min
+        int maxLength = Integer.MAX_VALUE; // longest word kept, requested through -max
+        boolean skipNumbers = false;    // numeric token skipping requested through -nonum
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-pf") || arg.equals("-pl") || arg.equals("-po")) {
+                flag = arg;
+            } else if (arg.equals("-offheap")) {
+                offHeap = true;
+            } else if (arg.equals("-lsm")) {
+                lsmIndex = true;
+            } else if (arg.equals("-count")) {
+                countOnly = true;
+            } else if (arg.equals("-stats")) {
+                stats = true;
+            } else if (arg.equals("-unicode")) {
+                unicode = true;
+            } else if (arg.equals("-stem")) {
+                stem = true;
+            } else if (arg.startsWith("-stop")) {
+                stopFile = arg.substring(5);
+            } else if (arg.equals("-nonum")) {
+                skipNumbers = true;
+            } else if (arg.startsWith("-min") || arg.startsWith("-max")) {
+                int length;
+                try {
+                    length = Integer.parseInt(arg.substring(4).trim());
+                } catch (NumberFormatException e) {
+                    length = 0;
+                }
+                if (length < 1) {
+                    flag = null;
+                    break;
+                }
+                if (arg.startsWith("-min")) {
+                    minLength = length;
+                } else {
+                    maxLength = length;
+                }
+            } else if (arg.startsWith("-d") && arg.length() > 2) {
+                delimiters = arg.substring(2);
+            } else if (arg.equals("-top")) {
+                try {
+                    topCount = (i + 1 < args.length) ? Integer.parseInt(args[++i]) : 0;
+                } catch (NumberFormatException e) {
+                    topCount = 0;
+                }
+                if (topCount < 1) {
+                    flag = null;
+                    break;
+                }
+            } else if (arg.startsWith("-pg")) {
+                String[] page = arg.substring(3).split(",");
+                try {
+                    pageStart = Integer.parseInt(page[0].trim());
+                    pageCount = (page.length > 1) ? Integer.parseInt(page[1].trim()) : 1;
+                } catch (NumberFormatException e) {
+                    pageStart = -1;
+                }
+                if (pageStart < 0 || pageCount < 1) {
+                    flag = null;
+                    break;
+                }
+            } else if (arg.startsWith("-t") && !arg.equals("-top")) {
+                treeType = arg.substring(2).toLowerCase();
+                if (ShardedWordTree.newTree(treeType) == null) {
+                    flag = null;
+                    break;
+                }
+            } else if (arg.startsWith("-rm")) {
+                removeFiles.add(arg.substring(3));
+            } else if (arg.startsWith("-q")) {
+                query = arg.substring(2);
+            } else if (arg.startsWith("-ws")) {
+                queryWords = Arrays.asList(arg.substring(3).split(","));
+            } else if (arg.startsWith("-wp")) {
+                // Folded only: a prefix is not a whole word, so the stages do not apply to it
+                prefix = Tokenizer.fold(arg.substring(3));
+            } else if (arg.startsWith("-w")) {
+                queryWords = Collections.singletonList(arg.substring(2));
+            } else if (arg.startsWith("-f")) {
+                outputFile = arg.substring(2);
+            } else if (!arg.startsWith("-")) {
+                inputFiles.add(arg);
+            } else {
+                flag = null;
+                break;
+            }
+        }
+
+        if (flag == null || (inputFiles.isEmpty() && removeFiles.isEmpty() && queryWords == null && prefix == null && pageStart < 0 && topCount == 0
+                && query == null)) {
+            System.out.println(USAGE);
             return;
         }
 
-        String inputFile = args[0];
-        String flag = args[1];
-        String outputFile = (args.length == 3 && args[2].startsWith("-f")) ? args[2].substring(2) : null;
+        if (unicode && delimiters != null) {
+            System.out.println("-unicode and -d cannot be combined.");
+            return;
+        }
+        if (minLength > maxLength) {
+            System.out.println("-min cannot be greater than -max.");
+            return;
+        }
+
+        // Split input at word boundaries or delimiters, and look words up the way they are indexed
+        Tokenizer tokenizer = unicode ? Tokenizer.unicode()
+                : new Tokenizer((delimiters != null) ? " \t\n\r\f" + delimiters : Tokenizer.DEFAULT_DELIMITERS);
+        // Options that decide which words a file yields, kept in its record so that a file read
+        // again with other options is not skipped as unchanged
+        StringBuilder options = new StringBuilder(unicode ? "-unicode" : (delimiters != null) ? "-d" + delimiters : "");
+        // Filters run on the word as read, before stemming and before any tree lookup
+        if (stopFile != null) {
+            List<String> stopWords = stopFile.isEmpty() ? Tokenizer.ENGLISH_STOP_WORDS : readStopWords(stopFile);
+            if (stopWords == null) {
+                return;
+            }
+            tokenizer.addStage(Tokenizer.stopWords(stopWords));
+            // The words themselves, so that editing the stop-word file counts as a change too
+            options.append(" -stop").append(stopFile.isEmpty() ? "" : String.join(",", new TreeSet<>(stopWords)));
+        }
+        if (minLength > 1 || maxLength < Integer.MAX_VALUE) {
+            tokenizer.addStage(Tokenizer.lengthBetween(minLength, maxLength));
+            options.append(" -min").append(minLength).append(" -max").append(maxLength);
+        }
+        if (skipNumbers) {
+            tokenizer.addStage(Tokenizer.SKIP_NUMBERS);
+            options.append(" -nonum");
+        }
+        if (stem) {
+            tokenizer.addStage(Tokenizer.STEM);
+            options.append(" -stem");
+        }
+        String settings = options.toString();
+        if (queryWords != null) {
+            List<String> normalized = new ArrayList<>();
+            for (String text : queryWords) {
+                String word = tokenizer.normalize(text.trim());
+                normalized.add((word != null) ? word : Tokenizer.fold(text.trim()));
+            }
+            queryWords = normalized;
+        }
 
-        // Load any previous saved BST tree
-        BSTreeADT<Word> bst = loadTree();
+        // The off-heap store answers word and prefix lookups only
+        if (offHeap && (query != null || topCount > 0 || pageStart >= 0 || treeType != null || countOnly
+                || !removeFiles.isEmpty())) {
+            System.out.println("-q, -top, -pg, -t, -count and -rm are not supported with -offheap.");
+            return;
+        }
+
+        // The LSM index answers word and prefix lookups and removes files
+        if (lsmIndex && (query != null || topCount > 0 || pageStart >= 0 || treeType != null || countOnly
+                || offHeap)) {
+            System.out.println("-q, -top, -pg, -t, -count and -offheap are not supported with -lsm.");
+            return;
+        }
+
+        // Load any previous saved repository, or the off-heap store or LSM index
+        OffHeapWordStore store = offHeap ? loadStore() : null;
+        LsmWordIndex lsm = lsmIndex ? openIndex() : null;
+        if (lsmIndex && lsm == null) {
+            return;
+        }
+        boolean external = offHeap || lsmIndex; // words are kept outside the repository
+        Repository repository = external ? null : loadRepository(treeType);
+        BSTreeADT<Word> bst = external ? null : repository.getTree();
+
+        // Finish the changes of an earlier run that stopped before saving them
+        WriteAheadLog log = external ? null : new WriteAheadLog(new File(REPO_DIR, LOG_FILE));
+        if (log != null) {
+            replayLog(repository, log);
+        }
+        BackgroundSaver saver = (log != null) ? new BackgroundSaver(new File(REPO_DIR, INDEX_FILE)) : null;
+        long lastSave = System.currentTimeMillis();
+
+        // Drop files that are no longer wanted, along with words found only in them
+        for (String removeFile : removeFiles) {
+            if (lsm != null) {
+                System.out.println(lsm.removeFile(removeFile) ? "Removed " + removeFile + " from the index."
+                        : removeFile + " is not in the index.");
+            } else if (repository.removeFile(removeFile)) {
+                System.out.println("Removed " + removeFile + " from the repository.");
+                try {
+                    log.logRemove(removeFile);
+                } catch (IOException e) {
+                    System.err.println("Error writing log: " + e.getMessage());
+                    return;
+                }
+            } else {
+                System.out.println(removeFile + " is not in the repository.");
+            }
+        }
+
+        // Parse the input text files and update the tree
+        for (String inputFile : inputFiles) {
+            if (store != null || lsm != null) {
+                // An unreadable file is skipped, so the files read before it are still saved below
+                if (!new File(inputFile).canRead()) {
+                    System.err.println("Error reading file: " + inputFile + " cannot be read. Skipping it.");
+                    continue;
+                }
+                // No file records are kept here, so unchanged files are not skipped: a file read before
+                // is replaced rather than appended to
+                if ((lsm != null) ? lsm.removeFile(inputFile) : store.removeFile(inputFile)) {
+                    System.out.println("Replacing earlier occurrences from " + inputFile + ".");
+                }
+                if (ingest(null, store, lsm, tokenizer, inputFile, false, null, null)) {
+                    System.out.println("File processed and tree updated.");
+                }
+                continue;
+            }
+
+            try {
+                if (repository.isUnchanged(inputFile, countOnly, settings)) {
+                    System.out.println("Skipping unchanged file " + inputFile + ".");
+                    continue;
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading file: " + e.getMessage());
+                return;
+            }
 
-        // Parse the input text file and update the tree
-        try (BufferedReader reader = new BufferedReader(new FileReader(inputFile))) {
+            // A file read before is replaced rather than appended to
+            if (repository.removeFile(inputFile)) {
+                System.out.println("Replacing earlier occurrences from " + inputFile + ".");
+            }
+
+            // The record describes the bytes indexed: state taken before the read, hash taken during it
+            File source = new File(inputFile);
+            long size = source.length();
+            long modified = source.lastModified();
+            MessageDigest digest;
+            try {
+                digest = Repository.newDigest();
+            } catch (IOException e) {
+                System.err.println("Error reading file: " + e.getMessage());
+                return;
+            }
+            Set<String> fileWords = new HashSet<>();
+            if (!ingest(bst, null, null, tokenizer, inputFile, countOnly, fileWords, digest)) {
+                return;
+            }
+            repository.recordFile(inputFile, size, modified, digest, countOnly, settings, fileWords);
+            try {
+                log.logIngest(repository, inputFile, fileWords);
+            } catch (IOException e) {
+                System.err.println("Error writing log: " + e.getMessage());
+                return;
+            }
+            System.out.println("File processed and tree updated.");
+
+            // In long batches, save a snapshot in the background while the next files are read,
+            // and drop the logged records it holds once it is on disk
+            if (System.currentTimeMillis() - lastSave >= CHECKPOINT_MILLIS) {
+                try {
+                    File sealed = log.rotate();
+                    saver.save(repository, () -> log.discard(sealed));
+                } catch (IOException e) {
+                    System.err.println("Failed to save tree: " + e.getMessage());
+                }
+                lastSave = System.currentTimeMillis();
+            }
+        }
+
+        StringBuilder output = new StringBuilder();
+
+        if (query != null) {
+            // Multi-word query answered by merging posting lists
+            try {
+                appendQuery(output, query, WordQuery.evaluate(bst, query, tokenizer), flag);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
+        } else if (lsm != null) {
+            // Lookups merged from the runs on disk and the memtable
+            if (!appendFromIndex(output, lsm, queryWords, prefix, flag)) {
+                closeIndex(lsm);
+                return;
+            }
+        } else if (queryWords != null) {
+            // Point lookups: one descent per requested word
+            for (String text : queryWords) {
+                Word word;
+                if (store != null) {
+                    word = store.get(text.trim());
+                } else {
+                    BSTreeNode<Word> node = bst.search(new Word(text.trim()));
+                    word = (node != null) ? node.getElement() : null;
+                }
+                if (word != null) {
+                    appendWord(output, word, flag);
+                } else {
+                    output.append(Tokenizer.fold(text.trim())).append(" - not found\n");
+                }
+            }
+        } else if (prefix != null) {
+            // Prefix range: seek to the first candidate and stop where the prefix ends
+            Word end = prefixEnd(prefix);
+            Iterator<Word> iterator = (store != null)
+                    ? store.rangeIterator(prefix, (end != null) ? end.getWordText() : null)
+                    : bst.rangeIterator(new Word(prefix), end);
+            while (iterator.hasNext()) {
+                appendWord(output, iterator.next(), flag);
+            }
+        } else if (topCount > 0) {
+            // Most frequent words, highest frequency first
+            for (Word word : TopWords.select(bst, topCount)) {
+                appendWord(output, word, flag);
+            }
+        } else if (pageStart >= 0) {
+            // Alphabetical page: select the first word by position, then stream the rest of the page
+            if (pageStart < bst.size()) {
+                Iterator<Word> iterator = bst.tailIterator(bst.select(pageStart));
+                for (int i = 0; i < pageCount && iterator.hasNext(); i++) {
+                    appendWord(output, iterator.next(), flag);
+                }
+            }
+        } else {
+            // Build output from BST using inorder traversal
+            Iterator<Word> iterator = (store != null) ? store.inorderIterator() : bst.inorderIterator();
+            while (iterator.hasNext()) {
+                appendWord(output, iterator.next(), flag);
+            }
+        }
+
+        // Output results either to a file or to console
+        if (outputFile != null) {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
+                writer.write(output.toString());
+                System.out.println("Output written to file: " + outputFile);
+            } catch (IOException e) {
+                System.err.println("Failed to write to output file: " + e.getMessage());
+            }
+        } else {
+            System.out.println(output.toString());
+        }
+        if (stats) {
+            System.out.println(PostingCache.shared());
+        }
+
+        // Save updated BST to repository file for future use
+        if (!inputFiles.isEmpty() || !removeFiles.isEmpty()) {
+            if (store != null) {
+                saveStore(store);
+            } else if (lsm != null) {
+                closeIndex(lsm);
+            } else if (saveRepository(repository, saver)) {
+                clearLog(log);
+            }
+        } else if (lsm != null) {
+            closeIndex(lsm);
+        }
+    }
+
+    /**
+     * Reads one input file into the tree, or into the off-heap store or LSM index when one is not null,
+     * splitting each line into words with the tokenizer.
+     * Precondition: Exactly one of bst, store and lsm is not null; fileWords is not null when bst is not null.
+     * Postcondition: Every word of the file is recorded with its line number, or only counted if countOnly,
+     * the distinct words of the file are added to fileWords, and digest, if not null, is updated with every byte read.
+     *
+     * @return true if the file was read, false if it could not be read
+     */
+    private static boolean ingest(BSTreeADT<Word> bst, OffHeapWordStore store, LsmWordIndex lsm, Tokenizer tokenizer,
+            String inputFile, boolean countOnly, Set<String> fileWords, MessageDigest digest) {
+        try (InputStream in = (digest != null)
+                ? new DigestInputStream(new FileInputStream(inputFile), digest) : new FileInputStream(inputFile);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
             String line;
             int lineNumber = 1;
 
             while ((line = reader.readLine()) != null) {
-                StringTokenizer tokenizer = new StringTokenizer(line, " \t\n\r\f.,!?;:\"()[]{}<>");
+                tokenizer.reset(line);
+
+                String wordText;
+                while ((wordText = tokenizer.next()) != null) {
+                    if (store != null) {
+                        store.addOccurrence(wordText, inputFile, lineNumber);
+                        continue;
+                    }
+                    if (lsm != null) {
+                        lsm.addOccurrence(wordText, inputFile, lineNumber);
+                        continue;
+                    }
 
-                while (tokenizer.hasMoreTokens()) {
-                    String wordText = tokenizer.nextToken().toLowerCase();
                     Word temp = new Word(wordText);
-                    Word found = (bst.contains(temp)) ? bst.search(temp).getElement() : null;
+                    BSTreeNode<Word> found = bst.search(temp);
 
-                    if (found != null) {
-                        found.addOccurrence(inputFile, lineNumber);
+                    Word target = (found != null) ? found.getElement() : temp;
+                    if (countOnly) {
+                        target.addCount(inputFile);
                     } else {
-                        temp.addOccurrence(inputFile, lineNumber);
+                        target.addOccurrence(inputFile, lineNumber);
+                    }
+                    if (found == null) {
                         bst.add(temp);
                     }
+                    fileWords.add(target.getWordText()); // shares the text with the word in the tree
                 }
                 lineNumber++;
             }
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
-            return;
+            return false;
         }
+        return true;
+    }
 
-        System.out.println("File processed and tree updated.");
+    /**
+     * Appends the report lines for the result of a multi-word query according to the output flag.
+     * Precondition: result and flag must not be null.
+     * Postcondition: output lists the matching files, with line numbers for -pl and -po.
+     */
+    private static void appendQuery(StringBuilder output, String query, PostingList result, String flag) {
+        output.append(query.trim());
+        Map<String, List<Integer>> matches = result.toMap();
 
-        // Build output from BST using inorder traversal
-        Iterator<Word> iterator = bst.inorderIterator();
-        StringBuilder output = new StringBuilder();
+        if (matches.isEmpty()) {
+            output.append(" - no matches");
+        } else if (flag.equals("-pf")) {
+            output.append(" - ").append(matches.keySet());
+        } else {
+            for (Map.Entry<String, List<Integer>> entry : matches.entrySet()) {
+                output.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+            if (flag.equals("-po")) {
+                output.append("\n  Total matches: ").append(result.size());
+            }
+        }
 
-        while (iterator.hasNext()) {
-            Word word = iterator.next();
-            output.append(word.getWordText());
+        output.append("\n");
+    }
 
-            Map<String, List<Integer>> occurrences = word.getOccurrences();
+    /**
+     * Computes the smallest word that sorts after every word starting with the prefix.
+     * The bound is not folded: "john@" must end at "johnA", not at "johna", which would let "john_smith" in.
+     * Precondition: prefix must not be null.
+     * Postcondition: Returns the exclusive upper bound of the prefix range, or null if unbounded.
+     */
+    private static Word prefixEnd(String prefix) {
+        int last = prefix.length() - 1;
+        if (last < 0 || prefix.charAt(last) == Character.MAX_VALUE) {
+            return null;
+        }
+        return Word.bound(prefix.substring(0, last) + (char) (prefix.charAt(last) + 1));
+    }
 
-            if (flag.equals("-pf")) {
-                // Show only the filenames where the word appears
-                List<String> sortedFiles = new ArrayList<>(occurrences.keySet());
-                Collections.sort(sortedFiles);
-                output.append(" - ").append(sortedFiles);
-            } else if (flag.equals("-pl") || flag.equals("-po")) {
-                // Show filenames and line numbers (and frequency if requested)
-                List<String> sortedFiles = new ArrayList<>(occurrences.keySet());
-                Collections.sort(sortedFiles);
+    /**
+     * Appends the report lines for a single word according to the output flag.
+     * Precondition: word and flag must not be null.
+     * Postcondition: output contains the word followed by the requested details.
+     */
+    private static void appendWord(StringBuilder output, Word word, String flag) {
+        output.append(word.getWordText());
 
-                for (String file : sortedFiles) {
-                    output.append("\n  ").append(file).append(": ").append(occurrences.get(file));
+        Map<String, List<Integer>> occurrences = word.getOccurrences();
+        Map<String, Integer> counts = word.getCounts(); // every file, sorted by name
+
+        if (flag.equals("-pf")) {
+            // Show only the filenames where the word appears
+            output.append(" - ").append(counts.keySet());
+        } else if (flag.equals("-pl") || flag.equals("-po")) {
+            // Show filenames and line numbers (and frequency if requested)
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                List<Integer> lines = occurrences.get(entry.getKey());
+                output.append("\n  ").append(entry.getKey()).append(": ");
+                if (lines != null) {
+                    output.append(lines);
+                } else {
+                    // File was read with -count, so only the number of occurrences is known
+                    output.append(entry.getValue()).append(" occurrences");
                 }
+            }
 
-                if (flag.equals("-po")) {
-                    output.append("\n  Total occurrences: ").append(word.getFrequency());
+            if (flag.equals("-po")) {
+                output.append("\n  Total occurrences: ").append(word.getFrequency());
+            }
+        }
+
+        output.append("\n");
+    }
+
+    /**
+     * Loads the sharded repository from its directory if it exists.
+     * Precondition: Repository directory and legacy repository file may or may not exist.
+     * Postcondition: Returns the saved repository with no shard loaded yet, a repository converted
+     * from the single repository.ser file of earlier versions and saved at once, or a fresh one of the
+     * requested type.
+     * Shards saved with a different type than the one requested are converted as they are loaded.
+     * A corrupt index is rebuilt from the shard files, and a corrupt shard starts empty on its own.
+     */
+    @SuppressWarnings("unchecked")
+    private static Repository loadRepository(String treeType) {
+        File directory = new File(REPO_DIR);
+        File index = new File(directory, INDEX_FILE);
+
+        if (index.exists()) {
+            try {
+                Repository repository = (Repository) Segment.read(index);
+                ((ShardedWordTree) repository.getTree()).attach(directory, treeType);
+                return repository;
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                // The shards are still usable; only the file records are lost
+                System.err.println("Failed to load repository index (" + e.getMessage() + "). Rebuilding it from the shards.");
+                return new Repository(ShardedWordTree.recover(directory, (treeType != null) ? treeType : "bst"), false);
+            }
+        }
+
+        File legacy = new File(REPO_FILE);
+        if (legacy.exists()) {
+            // Repository files of earlier versions hold a Repository or just a tree
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(legacy)))) {
+                Object saved = in.readObject();
+                Repository repository = (saved instanceof Repository)
+                        ? (Repository) saved : new Repository((BSTreeADT<Word>) saved, false);
+                BSTreeADT<Word> savedTree = repository.getTree();
+                ShardedWordTree tree = new ShardedWordTree(directory,
+                        (treeType != null) ? treeType : ShardedWordTree.treeTypeOf(savedTree));
+                tree.addSorted(savedTree.inorderIterator());
+                repository.setTree(tree);
+                saveRepository(repository, new BackgroundSaver(new File(REPO_DIR, INDEX_FILE)));
+                System.out.println("Converted " + REPO_FILE + " into the " + REPO_DIR + " directory.");
+                return repository;
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                System.err.println("Failed to load existing tree. Starting fresh.");
+            }
+        }
+
+        return new Repository(new ShardedWordTree(directory, (treeType != null) ? treeType : "bst"), true);
+    }
+
+    /**
+     * Replays the write-ahead log left by a run that stopped before saving, then saves the result.
+     * Precondition: repository is the last saved repository.
+     * Postcondition: The logged changes are in the repository and, once saved, the log is deleted.
+     * A log that cannot be read is reported and deleted.
+     */
+    private static void replayLog(Repository repository, WriteAheadLog log) {
+        try {
+            int changes = log.replay(repository);
+            if (changes > 0) {
+                System.out.println("Recovered " + changes + " unsaved change(s) from the write-ahead log.");
+                if (saveRepository(repository, new BackgroundSaver(new File(REPO_DIR, INDEX_FILE)))) {
+                    clearLog(log);
                 }
             }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Failed to replay write-ahead log (" + e.getMessage() + "). Discarding it.");
+            clearLog(log);
+        }
+    }
 
-            output.append("\n");
+    /**
+     * Deletes the write-ahead log once its changes are saved.
+     * Precondition: The repository holding the logged changes has been saved.
+     * Postcondition: The log file is gone, or an error is reported.
+     */
+    private static void clearLog(WriteAheadLog log) {
+        try {
+            log.clear();
+        } catch (IOException e) {
+            System.err.println("Failed to delete write-ahead log: " + e.getMessage());
         }
+    }
 
-        // Output results either to a file or to console
-        if (outputFile != null) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
-                writer.write(output.toString());
-                System.out.println("Output written to file: " + outputFile);
+    /**
+     * Loads the off-heap store from its repository file if it exists.
+     * Precondition: Repository file may or may not exist.
+     * Postcondition: Returns the previously saved store or an empty one.
+     */
+    private static OffHeapWordStore loadStore() {
+        File file = new File(OFFHEAP_FILE);
+        if (file.exists()) {
+            try {
+                return OffHeapWordStore.load(file);
             } catch (IOException e) {
-                System.err.println("Failed to write to output file: " + e.getMessage());
+                System.err.println("Failed to load existing store. Starting fresh.");
             }
-        } else {
-            System.out.println(output.toString());
         }
+        return new OffHeapWordStore();
+    }
 
-        // Save updated BST to repository file for future use
-        saveTree(bst);
+    /**
+     * Reads a stop-word file: one or more words per line, separated by whitespace or commas,
+     * with everything after a # ignored.
+     * Precondition: None.
+     * Postcondition: Returns the words, or null after reporting why the file cannot be read.
+     */
+    private static List<String> readStopWords(String stopFile) {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(stopFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                for (String word : ((comment >= 0) ? line.substring(0, comment) : line).split("[\\s,]+")) {
+                    if (!word.isEmpty()) {
+                        words.add(word);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading stop-word file: " + e.getMessage());
+            return null;
+        }
+        return words;
     }
 
     /**
-     * Loads the BST tree from a serialized file if it exists.
-     * Precondition: Repository file may or may not exist.
-     * Postcondition: Returns a previously saved BST or a fresh empty BST.
+     * Opens the LSM index in its directory, creating it if it does not exist.
+     * Precondition: None.
+     * Postcondition: Returns the index, or null after reporting why it cannot be opened.
+     */
+    private static LsmWordIndex openIndex() {
+        try {
+            return LsmWordIndex.open(new File(LSM_DIR));
+        } catch (IOException e) {
+            System.err.println("Failed to open index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Flushes the LSM index and waits for its background merge.
+     * Precondition: lsm must not be null.
+     * Postcondition: Every change is in a run listed in the index manifest, or an error is reported.
      */
-    private static BSTreeADT<Word> loadTree() {
-        File file = new File(REPO_FILE);
-        if (!file.exists()) return new BSTree<>();
+    private static void closeIndex(LsmWordIndex lsm) {
+        try {
+            lsm.close();
+        } catch (IOException e) {
+            System.err.println("Failed to save index: " + e.getMessage());
+        }
+    }
 
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-            return (BSTreeADT<Word>) in.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Failed to load existing tree. Starting fresh.");
-            return new BSTree<>();
+    /**
+     * Appends the report lines for words looked up in the LSM index: the given words,
+     * the words starting with prefix, or every word when both are null.
+     * Precondition: lsm must not be null.
+     * Postcondition: Returns false after reporting a run that could not be read.
+     */
+    private static boolean appendFromIndex(StringBuilder output, LsmWordIndex lsm, List<String> queryWords,
+            String prefix, String flag) {
+        try {
+            if (queryWords != null) {
+                for (String text : queryWords) {
+                    Word word = lsm.get(text.trim());
+                    if (word != null) {
+                        appendWord(output, word, flag);
+                    } else {
+                        output.append(Tokenizer.fold(text.trim())).append(" - not found\n");
+                    }
+                }
+                return true;
+            }
+            Word end = (prefix != null) ? prefixEnd(prefix) : null;
+            Iterator<Word> iterator = (prefix != null)
+                    ? lsm.rangeIterator(prefix, (end != null) ? end.getWordText() : null)
+                    : lsm.inorderIterator();
+            while (iterator.hasNext()) {
+                appendWord(output, iterator.next(), flag);
+            }
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to read index: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves the off-heap store to its repository file.
+     * Precondition: store must not be null.
+     * Postcondition: Store is saved into the repository.dat file.
+     */
+    private static void saveStore(OffHeapWordStore store) {
+        try {
+            store.save(new File(OFFHEAP_FILE));
+        } catch (IOException e) {
+            System.err.println("Failed to save store: " + e.getMessage());
         }
     }
 
     /**
-     * Saves the BST tree to a serialized repository file.
+     * Saves the repository and waits until it is on disk, after any saves still queued on the saver:
+     * the loaded shards as new CRC-checked segment files in parallel, then the index holding file
+     * records, shard sizes and the names of the new shard files. Every file is written to a
+     * temporary file, forced to disk and renamed into place, and the index is renamed last, so a
+     * crash at any point leaves the previous or the new repository intact.
      * Precondition: Tree must be populated (can be empty).
-     * Postcondition: Tree is saved into the repository.ser file.
+     * Postcondition: Shards and file records are saved into the repository directory, the shard
+     * files of earlier saves are deleted and the saver is finished.
+     *
+     * @return true if the repository was saved
      */
-    private static void saveTree(BSTreeADT<Word> tree) {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(REPO_FILE))) {
-            out.writeObject(tree);
+    private static boolean saveRepository(Repository repository, BackgroundSaver saver) {
+        try {
+            saver.save(repository);
         } catch (IOException e) {
             System.err.println("Failed to save tree: " + e.getMessage());
+            saver.finish();
+            return false;
         }
+        return saver.finish();
     }
 }
@@ -0,0 +1,275 @@
+/**
+ * WriteAheadLog.java
+ *
+ * Records each change made to the repository during a run as soon as it is
+ * made: the words and line numbers of every file read, and every file
+ * removed. The log is forced to disk after each record and deleted once the
+ * repository has been saved, so if a run stops before saving, the next run
+ * replays the log instead of reading those files again. When a snapshot is
+ * saved in the middle of a run, the log is rotated: the records it covers are
+ * sealed into a numbered file that is deleted once the snapshot is on disk.
+ */
+
+package appDomain;
+
+import implementations.BSTreeNode;
+import utilities.BSTreeADT;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Append-only log of the file changes not yet saved in the repository.
+ */
+public class WriteAheadLog implements Closeable {
+    private final File file;     // log file, sealed files are named after it with a sequence number
+    private FileChannel channel; // open log, null until the first record
+
+    /**
+     * One logged change: a file read into the repository, or a file removed from it.
+     */
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String filename;                  // input file the change concerns
+        Repository.FileRecord record;     // state of the file when read, null for a removal
+        Map<String, List<Integer>> lines; // line numbers of each word in the file
+        Map<String, Integer> counts;      // occurrence count of each word in a count-only file
+    }
+
+    /**
+     * Creates a log stored in the given file.
+     * Precondition: None.
+     * Postcondition: Nothing is written until the first record.
+     *
+     * @param file log file
+     */
+    public WriteAheadLog(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Logs a file that was just read, with its record and its words' occurrences.
+     * Precondition: The file's words are in the tree and its record is stored.
+     * Postcondition: The change is on disk.
+     *
+     * @param repository repository the file was read into
+     * @param filename the input file name
+     * @param words the distinct words of the file
+     * @throws IOException if the log cannot be written
+     */
+    public void logIngest(Repository repository, String filename, Collection<String> words) throws IOException {
+        Entry entry = new Entry();
+        entry.filename = filename;
+        entry.record = repository.getRecord(filename);
+        boolean countOnly = entry.record.countOnly;
+        if (countOnly) {
+            entry.counts = new HashMap<>();
+        } else {
+            entry.lines = new HashMap<>();
+        }
+
+        BSTreeADT<Word> tree = repository.getTree();
+        for (String text : words) {
+            Word word = tree.search(new Word(text)).getElement();
+            if (countOnly) {
+                entry.counts.put(text, word.getCount(filename));
+            } else {
+                entry.lines.put(text, word.getOccurrences().get(filename));
+            }
+        }
+        append(entry);
+    }
+
+    /**
+     * Logs a file that was removed from the repository.
+     * Precondition: None.
+     * Postcondition: The change is on disk.
+     *
+     * @param filename the input file name
+     * @throws IOException if the log cannot be written
+     */
+    public void logRemove(String filename) throws IOException {
+        Entry entry = new Entry();
+        entry.filename = filename;
+        append(entry);
+    }
+
+    /**
+     * Applies the changes of a log left by a run that did not save its repository,
+     * the sealed files first, oldest first. A record cut short by a crash ends the replay of its file.
+     * Precondition: repository is the last saved repository.
+     * Postcondition: repository holds the logged changes in the order they were made.
+     *
+     * @param repository repository to update
+     * @return number of changes applied, 0 if there is no log
+     * @throws IOException if the log cannot be read
+     * @throws ClassNotFoundException if a logged class is unknown
+     */
+    public int replay(Repository repository) throws IOException, ClassNotFoundException {
+        List<Object> entries = new ArrayList<>();
+        for (File sealed : sealedFiles()) {
+            entries.addAll(Segment.readAll(sealed));
+        }
+        if (file.exists()) {
+            entries.addAll(Segment.readAll(file));
+        }
+        BSTreeADT<Word> tree = repository.getTree();
+        for (Object logged : entries) {
+            Entry entry = (Entry) logged;
+            repository.removeFile(entry.filename);
+            if (entry.record == null) {
+                continue;
+            }
+            if (entry.lines != null) {
+                for (Map.Entry<String, List<Integer>> lines : entry.lines.entrySet()) {
+                    Word word = wordOf(tree, lines.getKey());
+                    for (int line : lines.getValue()) {
+                        word.addOccurrence(entry.filename, line);
+                    }
+                }
+            } else {
+                for (Map.Entry<String, Integer> count : entry.counts.entrySet()) {
+                    Word word = wordOf(tree, count.getKey());
+                    for (int i = 0; i < count.getValue(); i++) {
+                        word.addCount(entry.filename);
+                    }
+                }
+            }
+            repository.putRecord(entry.filename, entry.record);
+        }
+        return entries.size();
+    }
+
+    /**
+     * Seals the records logged so far, so that they can be deleted once a snapshot holding them is saved.
+     * Precondition: A snapshot of the repository is taken right after, before anything else is logged.
+     * Postcondition: The next record starts a new log file.
+     *
+     * @return the sealed file, to be passed to discard once the snapshot is on disk, or null if nothing was logged
+     * @throws IOException if the log cannot be closed or renamed
+     */
+    public File rotate() throws IOException {
+        close();
+        if (!file.exists()) {
+            return null;
+        }
+        List<File> sealed = sealedFiles();
+        long sequence = sealed.isEmpty() ? 1 : sequenceOf(sealed.get(sealed.size() - 1)) + 1;
+        File target = new File(file.getPath() + "." + sequence);
+        Segment.replace(file.toPath(), target.toPath());
+        return target;
+    }
+
+    /**
+     * Deletes a sealed file and every file sealed before it, once a snapshot holding their records is saved.
+     * May be called from the thread that saved the snapshot while records are appended.
+     * Precondition: sealed was returned by rotate and the snapshot taken after it is on disk.
+     * Postcondition: Only records logged after the snapshot remain.
+     *
+     * @param sealed the sealed file, or null
+     */
+    public void discard(File sealed) {
+        if (sealed == null) {
+            return;
+        }
+        long last = sequenceOf(sealed);
+        for (File older : sealedFiles()) {
+            if (sequenceOf(older) <= last) {
+                older.delete();
+            }
+        }
+    }
+
+    /**
+     * Closes and deletes the log once its changes are saved.
+     * Precondition: The repository holding the logged changes has been saved.
+     * Postcondition: The log file and every sealed file are gone.
+     *
+     * @throws IOException if the log cannot be closed
+     */
+    public void clear() throws IOException {
+        close();
+        for (File sealed : sealedFiles()) {
+            sealed.delete();
+        }
+        file.delete();
+    }
+
+    /**
+     * Closes the log file, keeping its records.
+     *
+     * @throws IOException if the log cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Appends a record, opening the log on first use.
+     */
+    private void append(Entry entry) throws IOException {
+        if (channel == null) {
+            File directory = file.getAbsoluteFile().getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create directory " + directory);
+            }
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        Segment.append(channel, entry);
+    }
+
+    /**
+     * Lists the sealed files of this log, oldest first.
+     */
+    private List<File> sealedFiles() {
+        List<File> sealed = new ArrayList<>();
+        File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+        if (files != null) {
+            for (File candidate : files) {
+                if (sequenceOf(candidate) > 0) {
+                    sealed.add(candidate);
+                }
+            }
+        }
+        sealed.sort(Comparator.comparingLong(this::sequenceOf));
+        return sealed;
+    }
+
+    /**
+     * Returns the sequence number of a sealed file of this log, or 0 for any other file.
+     */
+    private long sequenceOf(File candidate) {
+        String prefix = file.getName() + ".";
+        String name = candidate.getName();
+        if (!name.startsWith(prefix) || name.length() == prefix.length() || name.length() - prefix.length() > 18) {
+            return 0;
+        }
+        for (int i = prefix.length(); i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return 0;
+            }
+        }
+        return Long.parseLong(name.substring(prefix.length()));
+    }
+
+    /**
+     * Finds a word in the tree, adding it if it is not there yet.
+     */
+    private static Word wordOf(BSTreeADT<Word> tree, String text) {
+        Word word = new Word(text);
+        BSTreeNode<Word> found = tree.search(word);
+        if (found != null) {
+            return found.getElement();
+        }
+        tree.add(word);
+        return word;
+    }
+}
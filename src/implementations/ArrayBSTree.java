@@ -0,0 +1,739 @@
+/**
+ * ArrayBSTree.java
+ *
+ * Implements the BSTreeADT as a binary search tree whose nodes live in
+ * parallel arrays instead of separate node objects. A node is an integer index
+ * into the element, left, right and size arrays, so the tree costs a few array
+ * slots per element instead of an object header and three references, its
+ * links sit next to each other in memory, and it serializes as a handful of
+ * flat arrays.
+ */
+
+package implementations;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Pointer-free binary search tree. Since there are no node objects, the
+ * BSTreeNode objects returned by getRoot, search, removeMin and removeMax are
+ * detached wrappers around the element: the element is shared with the tree,
+ * but the wrapper has no children.
+ */
+public class ArrayBSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int NIL = -1;              // index meaning "no node"
+    private static final int INITIAL_CAPACITY = 16; // node slots allocated up front
+
+    private Object[] elements; // element stored in each node slot
+    private int[] left;        // left child of each slot, or the next free slot when unused
+    private int[] right;       // right child of each slot
+    private int[] sizes;       // number of nodes in the subtree rooted at each slot
+    private int root;          // slot of the root node, NIL when empty
+    private int size;          // number of elements in the tree
+    private int used;          // slots handed out so far (live or freed)
+    private int freeHead;      // first slot of the free list, NIL when none
+
+    /**
+     * Constructs an empty array-backed tree.
+     * Precondition: None.
+     * Postcondition: Tree is initialized with no elements.
+     */
+    public ArrayBSTree() {
+        elements = new Object[INITIAL_CAPACITY];
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        sizes = new int[INITIAL_CAPACITY];
+        clear();
+    }
+
+    /**
+     * Returns a detached node holding the root element.
+     * Precondition: Tree is not empty.
+     * Postcondition: Tree is unchanged.
+     *
+     * @return node wrapping the root element
+     * @throws NullPointerException if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> getRoot() throws NullPointerException {
+        if (root == NIL) {
+            throw new NullPointerException("Tree is empty. No root node.");
+        }
+        return new BSTreeNode<>(element(root));
+    }
+
+    /**
+     * Calculates and returns the height of the tree.
+     * Precondition: None.
+     * Postcondition: Returns an integer representing height.
+     *
+     * @return height of the tree
+     */
+    @Override
+    public int getHeight() {
+        // Breadth-first, one level at a time, so degenerate trees do not recurse deeply
+        int height = 0;
+        int[] level = (root == NIL) ? new int[0] : new int[] { root };
+        while (level.length > 0) {
+            height++;
+            int[] nextLevel = new int[level.length * 2];
+            int count = 0;
+            for (int node : level) {
+                if (left[node] != NIL) {
+                    nextLevel[count++] = left[node];
+                }
+                if (right[node] != NIL) {
+                    nextLevel[count++] = right[node];
+                }
+            }
+            level = Arrays.copyOf(nextLevel, count);
+        }
+        return height;
+    }
+
+    /**
+     * Returns the total number of elements stored in the tree.
+     * Precondition: None.
+     * Postcondition: Size value is returned.
+     *
+     * @return number of elements
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the tree is empty.
+     * Precondition: None.
+     * Postcondition: Returns true if tree has no elements.
+     *
+     * @return true if empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all elements from the tree, keeping the allocated arrays.
+     * Precondition: None.
+     * Postcondition: Tree is cleared and size is reset to 0.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(elements, null);
+        root = NIL;
+        size = 0;
+        used = 0;
+        freeHead = NIL;
+    }
+
+    /**
+     * Checks if a specific entry exists in the tree.
+     * Precondition: entry must not be null.
+     * Postcondition: Returns true if found, false otherwise.
+     *
+     * @param entry the element to search for
+     * @return true if entry exists, false otherwise
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean contains(E entry) throws NullPointerException {
+        return search(entry) != null;
+    }
+
+    /**
+     * Searches for a node containing the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Returns a detached node wrapping the stored element, otherwise null.
+     *
+     * @param entry element to locate
+     * @return node wrapping the element or null
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        int node = root;
+        while (node != NIL) {
+            int cmp = entry.compareTo(element(node));
+            if (cmp == 0) {
+                return new BSTreeNode<>(element(node));
+            }
+            node = (cmp < 0) ? left[node] : right[node];
+        }
+        return null;
+    }
+
+    /**
+     * Adds a new element to the tree in the correct position.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is updated and size increases if added successfully.
+     *
+     * @param entry the element to add
+     * @return true if added, false if duplicate
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean add(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        if (root == NIL) {
+            root = allocate(entry);
+            size++;
+            return true;
+        }
+
+        // Grow subtree sizes on the way down; undo them if the entry is already present
+        int node = root;
+        while (true) {
+            int cmp = entry.compareTo(element(node));
+            if (cmp == 0) {
+                adjustSizes(entry, node, -1);
+                return false; // no duplicates allowed
+            }
+            sizes[node]++;
+            int child = (cmp < 0) ? left[node] : right[node];
+            if (child == NIL) {
+                int added = allocate(entry);
+                if (cmp < 0) {
+                    left[node] = added;
+                } else {
+                    right[node] = added;
+                }
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Adds delta to the subtree size of every node from the root down to, but not including, stop.
+     */
+    private void adjustSizes(E entry, int stop, int delta) {
+        int node = root;
+        while (node != stop) {
+            sizes[node] += delta;
+            node = (entry.compareTo(element(node)) < 0) ? left[node] : right[node];
+        }
+    }
+
+    /**
+     * Removes the given element. A slot with two children is replaced by its in-order successor.
+     * Precondition: entry must not be null.
+     * Postcondition: The element is removed if present and its slot is put on the free list.
+     *
+     * @param entry element to remove
+     * @return node containing the removed element or null if not found
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> remove(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        // Shrink subtree sizes on the way down; undo them if the entry is missing
+        int parent = NIL;
+        int current = root;
+        int cmp;
+        while (current != NIL && (cmp = entry.compareTo(element(current))) != 0) {
+            sizes[current]--;
+            parent = current;
+            current = (cmp < 0) ? left[current] : right[current];
+        }
+        if (current == NIL) {
+            adjustSizes(entry, NIL, 1);
+            return null;
+        }
+
+        int replacement;
+        if (left[current] == NIL) {
+            replacement = right[current];
+        } else if (right[current] == NIL) {
+            replacement = left[current];
+        } else {
+            // Detach the successor (leftmost slot of the right subtree) and put it in place of current
+            int successorParent = current;
+            replacement = right[current];
+            while (left[replacement] != NIL) {
+                sizes[replacement]--;
+                successorParent = replacement;
+                replacement = left[replacement];
+            }
+            if (successorParent != current) {
+                left[successorParent] = right[replacement];
+                right[replacement] = right[current];
+            }
+            left[replacement] = left[current];
+            sizes[replacement] = sizes[current] - 1;
+        }
+
+        if (parent == NIL) {
+            root = replacement;
+        } else if (left[parent] == current) {
+            left[parent] = replacement;
+        } else {
+            right[parent] = replacement;
+        }
+        return new BSTreeNode<>(release(current));
+    }
+
+    /**
+     * Removes the smallest element from the tree.
+     * Precondition: Tree must not be empty.
+     * Postcondition: Minimum element is removed and returned in a detached node.
+     *
+     * @return node containing the minimum element or null if empty
+     */
+    @Override
+    public BSTreeNode<E> removeMin() {
+        if (root == NIL) {
+            return null;
+        }
+
+        int parent = NIL;
+        int current = root;
+        while (left[current] != NIL) {
+            sizes[current]--; // minimum lies in this subtree
+            parent = current;
+            current = left[current];
+        }
+
+        if (parent == NIL) {
+            root = right[current];
+        } else {
+            left[parent] = right[current];
+        }
+        return new BSTreeNode<>(release(current));
+    }
+
+    /**
+     * Removes the largest element from the tree.
+     * Precondition: Tree must not be empty.
+     * Postcondition: Maximum element is removed and returned in a detached node.
+     *
+     * @return node containing the maximum element or null if empty
+     */
+    @Override
+    public BSTreeNode<E> removeMax() {
+        if (root == NIL) {
+            return null;
+        }
+
+        int parent = NIL;
+        int current = root;
+        while (right[current] != NIL) {
+            sizes[current]--; // maximum lies in this subtree
+            parent = current;
+            current = right[current];
+        }
+
+        if (parent == NIL) {
+            root = left[current];
+        } else {
+            right[parent] = left[current];
+        }
+        return new BSTreeNode<>(release(current));
+    }
+
+    /**
+     * Finds the smallest element greater than or equal to the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry element to compare against
+     * @return ceiling element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E ceiling(E entry) throws NullPointerException {
+        return above(entry, true);
+    }
+
+    /**
+     * Finds the smallest element strictly greater than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry element to compare against
+     * @return higher element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E higher(E entry) throws NullPointerException {
+        return above(entry, false);
+    }
+
+    /**
+     * Finds the greatest element less than or equal to the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry element to compare against
+     * @return floor element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E floor(E entry) throws NullPointerException {
+        return below(entry, true);
+    }
+
+    /**
+     * Finds the greatest element strictly less than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry element to compare against
+     * @return lower element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E lower(E entry) throws NullPointerException {
+        return below(entry, false);
+    }
+
+    /**
+     * Descends the tree remembering the last element that lies above the entry.
+     */
+    private E above(E entry, boolean inclusive) {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        E best = null;
+        int node = root;
+        while (node != NIL) {
+            int cmp = entry.compareTo(element(node));
+            if (cmp == 0 && inclusive) {
+                return element(node);
+            }
+            if (cmp < 0) {
+                best = element(node);
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Descends the tree remembering the last element that lies below the entry.
+     */
+    private E below(E entry, boolean inclusive) {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        E best = null;
+        int node = root;
+        while (node != NIL) {
+            int cmp = entry.compareTo(element(node));
+            if (cmp == 0 && inclusive) {
+                return element(node);
+            }
+            if (cmp > 0) {
+                best = element(node);
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts the elements in the tree that are strictly less than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged; runs in O(height) using subtree sizes.
+     *
+     * @param entry element to rank
+     * @return number of smaller elements
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public int rank(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            int cmp = entry.compareTo(element(node));
+            if (cmp < 0) {
+                node = left[node];
+            } else {
+                rank += sizeOf(left[node]);
+                if (cmp == 0) {
+                    break;
+                }
+                rank++;
+                node = right[node];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Retrieves the element at the given position of the natural ordering.
+     * Precondition: 0 &lt;= index &lt; size().
+     * Postcondition: Tree is unchanged; runs in O(height) using subtree sizes.
+     *
+     * @param index zero-based position in sorted order
+     * @return element at that position
+     * @throws IndexOutOfBoundsException if index is outside the tree
+     */
+    @Override
+    public E select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        int node = root;
+        while (true) {
+            int leftSize = sizeOf(left[node]);
+            if (index < leftSize) {
+                node = left[node];
+            } else if (index == leftSize) {
+                return element(node);
+            } else {
+                index -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    /**
+     * Provides a lazy in-order iterator over the tree.
+     * Precondition: None.
+     * Postcondition: Returns an iterator that visits elements in sorted order.
+     *
+     * @return in-order iterator
+     */
+    @Override
+    public Iterator<E> inorderIterator() {
+        return new SlotRangeIterator(null, null);
+    }
+
+    /**
+     * Provides a pre-order iterator over a snapshot of the tree.
+     * Precondition: None.
+     * Postcondition: Returns an iterator that visits root before children.
+     *
+     * @return pre-order iterator
+     */
+    @Override
+    public Iterator<E> preorderIterator() {
+        return new SnapshotIterator<>(traverse(true));
+    }
+
+    /**
+     * Provides a post-order iterator over a snapshot of the tree.
+     * Precondition: None.
+     * Postcondition: Returns an iterator that visits children before root.
+     *
+     * @return post-order iterator
+     */
+    @Override
+    public Iterator<E> postorderIterator() {
+        return new SnapshotIterator<>(traverse(false));
+    }
+
+    /**
+     * Provides a lazy in-order iterator starting at the given lower bound.
+     * Precondition: fromEntry must not be null.
+     * Postcondition: Returns an iterator positioned at the first element not less than fromEntry.
+     *
+     * @param fromEntry inclusive lower bound
+     * @return in-order iterator over the tail of the tree
+     * @throws NullPointerException if fromEntry is null
+     */
+    @Override
+    public Iterator<E> tailIterator(E fromEntry) throws NullPointerException {
+        if (fromEntry == null) {
+            throw new NullPointerException();
+        }
+        return new SlotRangeIterator(fromEntry, null);
+    }
+
+    /**
+     * Provides a lazy in-order iterator over the half-open range [fromEntry, toEntry).
+     * Precondition: None. Either bound may be null for an open end.
+     * Postcondition: Returns an iterator positioned at the first element in range.
+     *
+     * @param fromEntry inclusive lower bound, or null
+     * @param toEntry exclusive upper bound, or null
+     * @return in-order iterator over the range
+     */
+    @Override
+    public Iterator<E> rangeIterator(E fromEntry, E toEntry) {
+        return new SlotRangeIterator(fromEntry, toEntry);
+    }
+
+    /**
+     * Collects the elements in pre-order or post-order using an explicit stack.
+     */
+    private List<E> traverse(boolean preorder) {
+        List<E> result = new ArrayList<>(size);
+        int[] stack = new int[Math.max(1, size)];
+        int top = 0;
+        if (root != NIL) {
+            stack[top++] = root;
+        }
+
+        // Pre-order pushes right before left; post-order is a reversed root-right-left walk
+        while (top > 0) {
+            int node = stack[--top];
+            result.add(element(node));
+            int first = preorder ? right[node] : left[node];
+            int second = preorder ? left[node] : right[node];
+            if (first != NIL) {
+                stack[top++] = first;
+            }
+            if (second != NIL) {
+                stack[top++] = second;
+            }
+        }
+
+        if (!preorder) {
+            Collections.reverse(result);
+        }
+        return result;
+    }
+
+    /**
+     * Hands out a slot for a new leaf, reusing freed slots before growing the arrays.
+     */
+    private int allocate(E entry) {
+        int slot;
+        if (freeHead != NIL) {
+            slot = freeHead;
+            freeHead = left[slot];
+        } else {
+            if (used == elements.length) {
+                int capacity = elements.length * 2;
+                elements = Arrays.copyOf(elements, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            slot = used++;
+        }
+        elements[slot] = entry;
+        left[slot] = NIL;
+        right[slot] = NIL;
+        sizes[slot] = 1;
+        return slot;
+    }
+
+    /**
+     * Returns a slot to the free list and gives back the element it held.
+     */
+    private E release(int slot) {
+        E removed = element(slot);
+        elements[slot] = null;
+        left[slot] = freeHead;
+        right[slot] = NIL;
+        freeHead = slot;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Returns the subtree size of a slot, treating NIL as empty.
+     */
+    private int sizeOf(int node) {
+        return node == NIL ? 0 : sizes[node];
+    }
+
+    /**
+     * Reads the element stored in a slot.
+     */
+    @SuppressWarnings("unchecked")
+    private E element(int node) {
+        return (E) elements[node];
+    }
+
+    /**
+     * Trims the arrays to the slots in use before they are written, so the
+     * serialized form is just the live part of the node pool.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        int capacity = Math.max(used, 1);
+        if (elements.length > capacity) {
+            elements = Arrays.copyOf(elements, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Lazy in-order iterator over [from, to) using a stack of slot indices.
+     */
+    private class SlotRangeIterator implements Iterator<E> {
+        private int[] stack = new int[16]; // slots still waiting to be visited
+        private int top;                   // number of slots on the stack
+        private E to;                      // exclusive upper bound or null
+
+        /**
+         * Seeks to the first element not less than from with one descent.
+         */
+        SlotRangeIterator(E from, E to) {
+            this.to = to;
+            int node = root;
+            while (node != NIL) {
+                if (from == null || from.compareTo(element(node)) <= 0) {
+                    push(node);
+                    node = left[node];
+                } else {
+                    node = right[node];
+                }
+            }
+        }
+
+        private void push(int node) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+            }
+            stack[top++] = node;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return top > 0 && (to == null || element(stack[top - 1]).compareTo(to) < 0);
+        }
+
+        @Override
+        public E next() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int node = stack[--top];
+            for (int child = right[node]; child != NIL; child = left[child]) {
+                push(child);
+            }
+            return element(node);
+        }
+    }
+}
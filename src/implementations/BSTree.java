@@ -4,12 +4,19 @@
  * Implements a generic binary search tree (BST) that stores comparable elements.
  * Supports adding, searching, removing minimum and maximum elements,
  * and providing different types of iterators for tree traversal.
+ * An optional hash index from element to node can be kept alongside the tree
+ * so that lookups of existing elements skip the comparison-based descent.
  */
 
 package implementations;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import utilities.BSTreeADT;
 
 /**
@@ -18,8 +25,10 @@ import utilities.BSTreeADT;
 public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Serializable {
     private static final long serialVersionUID = 1L;
 
-    private BSTreeNode<E> root; // root node of the BST
-    private int size;           // total number of elements in the tree
+    protected BSTreeNode<E> root;  // root node of the BST
+    protected int size;            // total number of elements in the tree
+    private boolean hashIndexed;   // whether lookups go through the hash index
+    private transient Map<E, BSTreeNode<E>> index; // element to node, null when not indexed
 
     /**
      * Constructs an empty binary search tree.
@@ -117,6 +126,73 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
     public void clear() {
         root = null;
         size = 0;
+        if (index != null) {
+            index.clear();
+        }
+    }
+
+    /**
+     * Turns the hash index in front of search on or off.
+     * Precondition: Elements must have equals and hashCode consistent with compareTo.
+     * Postcondition: When enabled, the index holds every node and search runs in O(1) expected time.
+     * 
+     * @param hashIndexed true to maintain the index, false to drop it
+     */
+    public void setHashIndexed(boolean hashIndexed) {
+        this.hashIndexed = hashIndexed;
+        if (hashIndexed) {
+            rebuildIndex();
+        } else {
+            index = null;
+        }
+    }
+
+    /**
+     * Checks whether the hash index is maintained.
+     * Precondition: None.
+     * Postcondition: Returns the current index setting.
+     * 
+     * @return true if lookups use the hash index
+     */
+    public boolean isHashIndexed() {
+        return hashIndexed;
+    }
+
+    /**
+     * Rebuilds the hash index from the nodes currently in the tree.
+     * Precondition: None.
+     * Postcondition: Index maps every element in the tree to its node.
+     */
+    private void rebuildIndex() {
+        index = new HashMap<>(Math.max(16, size * 2));
+        Deque<BSTreeNode<E>> pending = new ArrayDeque<>();
+        if (root != null) {
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            BSTreeNode<E> node = pending.pop();
+            index.put(node.getElement(), node);
+            if (node.getLeft() != null) {
+                pending.push(node.getLeft());
+            }
+            if (node.getRight() != null) {
+                pending.push(node.getRight());
+            }
+        }
+    }
+
+    /**
+     * Creates a node for a new element and registers it in the hash index.
+     * 
+     * @param entry element for the node
+     * @return the new node
+     */
+    private BSTreeNode<E> newNode(E entry) {
+        BSTreeNode<E> node = new BSTreeNode<>(entry);
+        if (index != null) {
+            index.put(entry, node);
+        }
+        return node;
     }
 
     /**
@@ -150,6 +226,9 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
         if (entry == null) {
             throw new NullPointerException();
         }
+        if (index != null) {
+            return index.get(entry);
+        }
         return search(root, entry);
     }
 
@@ -192,7 +271,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
         }
 
         if (root == null) {
-            root = new BSTreeNode<>(entry);
+            root = newNode(entry);
             size++;
             return true;
         } else {
@@ -214,23 +293,30 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
     private boolean add(BSTreeNode<E> node, E entry) {
         int cmp = entry.compareTo(node.getElement());
 
+        boolean added;
+
         if (cmp == 0) {
             return false; // no duplicates allowed
         } else if (cmp < 0) {
             if (node.getLeft() == null) {
-                node.setLeft(new BSTreeNode<>(entry));
-                return true;
+                node.setLeft(newNode(entry));
+                added = true;
             } else {
-                return add(node.getLeft(), entry);
+                added = add(node.getLeft(), entry);
             }
         } else {
             if (node.getRight() == null) {
-                node.setRight(new BSTreeNode<>(entry));
-                return true;
+                node.setRight(newNode(entry));
+                added = true;
             } else {
-                return add(node.getRight(), entry);
+                added = add(node.getRight(), entry);
             }
         }
+
+        if (added) {
+            node.setSize(node.getSize() + 1); // one more node below this one
+        }
+        return added;
     }
 
     /**
@@ -250,6 +336,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
         BSTreeNode<E> current = root;
 
         while (current.getLeft() != null) {
+            current.setSize(current.getSize() - 1); // minimum lies in this subtree
             parent = current;
             current = current.getLeft();
         }
@@ -260,6 +347,9 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
             parent.setLeft(current.getRight());
         }
 
+        if (index != null) {
+            index.remove(current.getElement());
+        }
         size--;
         return current;
     }
@@ -281,6 +371,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
         BSTreeNode<E> current = root;
 
         while (current.getRight() != null) {
+            current.setSize(current.getSize() - 1); // maximum lies in this subtree
             parent = current;
             current = current.getRight();
         }
@@ -291,10 +382,184 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
             parent.setRight(current.getLeft());
         }
 
+        if (index != null) {
+            index.remove(current.getElement());
+        }
         size--;
         return current;
     }
 
+    /**
+     * Removes the node holding the given entry. A node with two children is
+     * replaced by its in-order successor.
+     * Precondition: entry must not be null.
+     * Postcondition: The element is removed and subtree sizes along the path are decreased.
+     * 
+     * @param entry element to remove
+     * @return the removed node or null if the entry is not in the tree
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> remove(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+        if (search(entry) == null) {
+            return null; // checked first so sizes are only changed when the entry is present
+        }
+
+        BSTreeNode<E> parent = null;
+        BSTreeNode<E> current = root;
+        int cmp;
+
+        while ((cmp = entry.compareTo(current.getElement())) != 0) {
+            current.setSize(current.getSize() - 1); // entry lies in this subtree
+            parent = current;
+            current = (cmp < 0) ? current.getLeft() : current.getRight();
+        }
+
+        BSTreeNode<E> replacement;
+        if (current.getLeft() == null) {
+            replacement = current.getRight();
+        } else if (current.getRight() == null) {
+            replacement = current.getLeft();
+        } else {
+            // Detach the successor (leftmost node of the right subtree) and put it in place of current
+            BSTreeNode<E> successorParent = current;
+            replacement = current.getRight();
+            while (replacement.getLeft() != null) {
+                replacement.setSize(replacement.getSize() - 1);
+                successorParent = replacement;
+                replacement = replacement.getLeft();
+            }
+            if (successorParent != current) {
+                successorParent.setLeft(replacement.getRight());
+                replacement.setRight(current.getRight());
+            }
+            replacement.setLeft(current.getLeft());
+            replacement.setSize(current.getSize() - 1);
+        }
+
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.getLeft() == current) {
+            parent.setLeft(replacement);
+        } else {
+            parent.setRight(replacement);
+        }
+
+        if (index != null) {
+            index.remove(current.getElement());
+        }
+        size--;
+        return current;
+    }
+
+    /**
+     * Counts the elements in the tree that are strictly less than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged; runs in O(height) using subtree sizes.
+     * 
+     * @param entry element to rank
+     * @return number of smaller elements, which is also the index entry has or would have
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public int rank(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        int rank = 0;
+        BSTreeNode<E> current = root;
+
+        while (current != null) {
+            int cmp = entry.compareTo(current.getElement());
+            if (cmp < 0) {
+                current = current.getLeft();
+            } else {
+                rank += sizeOf(current.getLeft());
+                if (cmp == 0) {
+                    break;
+                }
+                rank++;
+                current = current.getRight();
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Retrieves the element at the given position of the natural ordering.
+     * Precondition: 0 &lt;= index &lt; size().
+     * Postcondition: Tree is unchanged; runs in O(height) using subtree sizes.
+     * 
+     * @param index zero-based position in sorted order
+     * @return element at that position
+     * @throws IndexOutOfBoundsException if index is outside the tree
+     */
+    @Override
+    public E select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        BSTreeNode<E> current = root;
+
+        while (true) {
+            int leftSize = sizeOf(current.getLeft());
+            if (index < leftSize) {
+                current = current.getLeft();
+            } else if (index == leftSize) {
+                return current.getElement();
+            } else {
+                index -= leftSize + 1;
+                current = current.getRight();
+            }
+        }
+    }
+
+    /**
+     * Returns the subtree size stored in a node, treating null as an empty subtree.
+     * 
+     * @param node node to inspect
+     * @return number of nodes below and including node
+     */
+    private int sizeOf(BSTreeNode<E> node) {
+        return node == null ? 0 : node.getSize();
+    }
+
+    /**
+     * Recomputes subtree sizes bottom-up for a subtree.
+     * 
+     * @param node root of the subtree
+     * @return number of nodes in the subtree
+     */
+    private int rebuildSizes(BSTreeNode<E> node) {
+        if (node == null) {
+            return 0;
+        }
+        node.setSize(1 + rebuildSizes(node.getLeft()) + rebuildSizes(node.getRight()));
+        return node.getSize();
+    }
+
+    /**
+     * Restores the tree from a serialized stream.
+     * Precondition: Stream contains a tree written by writeObject.
+     * Postcondition: Subtree sizes are rebuilt if the tree was saved before nodes
+     * stored them, so repositories from older versions keep working. The hash
+     * index is not serialized and is rebuilt if it was enabled.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (root != null && root.getSize() != size) {
+            rebuildSizes(root);
+        }
+        if (hashIndexed) {
+            rebuildIndex();
+        }
+    }
+
     /**
      * Provides an in-order iterator over the tree.
      * Precondition: None.
@@ -303,7 +568,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
      * @return in-order iterator
      */
     @Override
-    public utilities.Iterator inorderIterator() {
+    public utilities.Iterator<E> inorderIterator() {
         return new InorderIterator<>(root);
     }
 
@@ -330,4 +595,151 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
     public utilities.Iterator<E> postorderIterator() {
         return new PostorderIterator<>(root);
     }
+
+    /**
+     * Provides a lazy in-order iterator starting at the given lower bound.
+     * Precondition: fromEntry must not be null.
+     * Postcondition: Returns an iterator positioned at the first element not less than fromEntry.
+     * 
+     * @param fromEntry inclusive lower bound
+     * @return in-order iterator over the tail of the tree
+     * @throws NullPointerException if fromEntry is null
+     */
+    @Override
+    public utilities.Iterator<E> tailIterator(E fromEntry) throws NullPointerException {
+        if (fromEntry == null) {
+            throw new NullPointerException();
+        }
+        return new RangeIterator<>(root, fromEntry);
+    }
+
+    /**
+     * Provides a lazy in-order iterator over the half-open range [fromEntry, toEntry).
+     * Precondition: None. Either bound may be null for an open end.
+     * Postcondition: Returns an iterator positioned at the first element in range.
+     * 
+     * @param fromEntry inclusive lower bound, or null
+     * @param toEntry exclusive upper bound, or null
+     * @return in-order iterator over the range
+     */
+    @Override
+    public utilities.Iterator<E> rangeIterator(E fromEntry, E toEntry) {
+        return new RangeIterator<>(root, fromEntry, toEntry);
+    }
+
+    /**
+     * Finds the greatest element less than or equal to the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     * 
+     * @param entry element to compare against
+     * @return floor element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E floor(E entry) throws NullPointerException {
+        return below(entry, true);
+    }
+
+    /**
+     * Finds the smallest element greater than or equal to the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     * 
+     * @param entry element to compare against
+     * @return ceiling element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E ceiling(E entry) throws NullPointerException {
+        return above(entry, true);
+    }
+
+    /**
+     * Finds the smallest element strictly greater than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     * 
+     * @param entry element to compare against
+     * @return higher element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E higher(E entry) throws NullPointerException {
+        return above(entry, false);
+    }
+
+    /**
+     * Finds the greatest element strictly less than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     * 
+     * @param entry element to compare against
+     * @return lower element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E lower(E entry) throws NullPointerException {
+        return below(entry, false);
+    }
+
+    /**
+     * Descends the tree remembering the last element that lies above the entry.
+     * 
+     * @param entry element to compare against
+     * @param inclusive true if an equal element qualifies
+     * @return closest element above entry or null
+     */
+    private E above(E entry, boolean inclusive) {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        E best = null;
+        BSTreeNode<E> current = root;
+
+        while (current != null) {
+            int cmp = entry.compareTo(current.getElement());
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                best = current.getElement();
+                if (cmp == 0) {
+                    break;
+                }
+                current = current.getLeft();
+            } else {
+                current = current.getRight();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Descends the tree remembering the last element that lies below the entry.
+     * 
+     * @param entry element to compare against
+     * @param inclusive true if an equal element qualifies
+     * @return closest element below entry or null
+     */
+    private E below(E entry, boolean inclusive) {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        E best = null;
+        BSTreeNode<E> current = root;
+
+        while (current != null) {
+            int cmp = entry.compareTo(current.getElement());
+            if (cmp > 0 || (cmp == 0 && inclusive)) {
+                best = current.getElement();
+                if (cmp == 0) {
+                    break;
+                }
+                current = current.getRight();
+            } else {
+                current = current.getLeft();
+            }
+        }
+        return best;
+    }
 }
@@ -3,6 +3,8 @@
  *
  * Defines a node for use in a binary search tree (BST).
  * Each node stores a single element and links to its left and right child nodes.
+ * Nodes are augmented with the size of the subtree they root so that the tree
+ * can answer rank and select queries by descending a single path.
  */
 
 package implementations;
@@ -18,11 +20,12 @@ public class BSTreeNode<E> implements Serializable {
     private E element;                // data stored in this node
     private BSTreeNode<E> left;        // link to the left child
     private BSTreeNode<E> right;       // link to the right child
+    private int size;                  // number of nodes in the subtree rooted here
 
     /**
      * Creates a new BSTreeNode containing the given element.
      * Precondition: element must not be null.
-     * Postcondition: Node is created with null children.
+     * Postcondition: Node is created with null children and a subtree size of one.
      * 
      * @param element the value to store in the node
      */
@@ -30,6 +33,7 @@ public class BSTreeNode<E> implements Serializable {
         this.element = element;
         this.left = null;
         this.right = null;
+        this.size = 1;
     }
 
     /**
@@ -97,4 +101,35 @@ public class BSTreeNode<E> implements Serializable {
     public void setRight(BSTreeNode<E> right) {
         this.right = right;
     }
+
+    /**
+     * Retrieves the number of nodes in the subtree rooted at this node.
+     * Precondition: None.
+     * Postcondition: Returns the stored subtree size (0 if never computed).
+     * 
+     * @return subtree size including this node
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the number of nodes in the subtree rooted at this node.
+     * Precondition: size must be positive.
+     * Postcondition: The stored subtree size is replaced.
+     * 
+     * @param size the new subtree size
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Recomputes the subtree size from the sizes stored in the children.
+     * Precondition: Children subtree sizes are correct.
+     * Postcondition: This node's subtree size is correct.
+     */
+    public void updateSize() {
+        size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+    }
 }
@@ -0,0 +1,896 @@
+/**
+ * BTree.java
+ *
+ * Implements the BSTreeADT with a B-tree. Each node holds a sorted array of up
+ * to 2 * DEGREE - 1 elements, so a lookup performs a binary search inside a
+ * handful of wide nodes instead of following one pointer per comparison, and
+ * the tree is an order of magnitude shallower than a binary search tree of the
+ * same size. Nodes also record how many elements their subtree holds to
+ * support rank and select.
+ */
+
+package implementations;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * B-tree of comparable elements. Because its nodes are not binary, the
+ * BSTreeNode objects returned by getRoot, search, removeMin and removeMax are
+ * detached wrappers around the element: the element is shared with the tree,
+ * but the wrapper has no children.
+ */
+public class BTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEGREE = 32;               // minimum number of children of an internal node
+    private static final int MAX_KEYS = 2 * DEGREE - 1; // a full node holds this many elements
+
+    private Node root;  // root node, null when the tree is empty
+    private int size;   // total number of elements in the tree
+
+    /**
+     * A wide node: sorted elements with one more child than elements when internal.
+     */
+    private static class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        Object[] keys = new Object[MAX_KEYS]; // sorted elements, first n in use
+        Node[] children;                      // null for a leaf
+        int n;                                // number of elements in this node
+        int count;                            // number of elements in this subtree
+
+        Node(boolean leaf) {
+            children = leaf ? null : new Node[MAX_KEYS + 1];
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+
+        void recount() {
+            count = n;
+            if (children != null) {
+                for (int i = 0; i <= n; i++) {
+                    count += children[i].count;
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs an empty B-tree.
+     * Precondition: None.
+     * Postcondition: Tree is initialized with no elements.
+     */
+    public BTree() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Returns a detached node holding the first element of the root node.
+     * Precondition: Tree is not empty.
+     * Postcondition: Tree is unchanged.
+     *
+     * @return node wrapping the first root element
+     * @throws NullPointerException if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> getRoot() throws NullPointerException {
+        if (root == null) {
+            throw new NullPointerException("Tree is empty. No root node.");
+        }
+        return new BSTreeNode<>(key(root, 0));
+    }
+
+    /**
+     * Returns the number of node levels in the tree.
+     * Precondition: None.
+     * Postcondition: Returns 0 for an empty tree.
+     *
+     * @return height of the tree
+     */
+    @Override
+    public int getHeight() {
+        int height = 0;
+        for (Node node = root; node != null; node = node.isLeaf() ? null : node.children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the total number of elements stored in the tree.
+     * Precondition: None.
+     * Postcondition: Size value is returned.
+     *
+     * @return number of elements
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the tree is empty.
+     * Precondition: None.
+     * Postcondition: Returns true if tree has no elements.
+     *
+     * @return true if empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all elements from the tree.
+     * Precondition: None.
+     * Postcondition: Tree is cleared and size is reset to 0.
+     */
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Checks if a specific entry exists in the tree.
+     * Precondition: entry must not be null.
+     * Postcondition: Returns true if found, false otherwise.
+     *
+     * @param entry the element to search for
+     * @return true if entry exists, false otherwise
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean contains(E entry) throws NullPointerException {
+        return search(entry) != null;
+    }
+
+    /**
+     * Searches for the given entry with a binary search in each node on the path.
+     * Precondition: entry must not be null.
+     * Postcondition: Returns a detached node wrapping the stored element, otherwise null.
+     *
+     * @param entry element to locate
+     * @return node wrapping the element or null
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        Node node = root;
+        while (node != null) {
+            int pos = find(node, entry);
+            if (pos >= 0) {
+                return new BSTreeNode<>(key(node, pos));
+            }
+            node = node.isLeaf() ? null : node.children[-pos - 1];
+        }
+        return null;
+    }
+
+    /**
+     * Adds a new element, splitting full nodes on the way down.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is updated and size increases if added successfully.
+     *
+     * @param entry the element to add
+     * @return true if added, false if duplicate
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean add(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        if (root == null) {
+            root = new Node(true);
+        } else if (root.n == MAX_KEYS) {
+            Node newRoot = new Node(false);
+            newRoot.children[0] = root;
+            newRoot.count = root.count;
+            splitChild(newRoot, 0);
+            root = newRoot;
+        }
+
+        boolean added = insertNonFull(root, entry);
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    /**
+     * Inserts into the subtree of a node that is known not to be full.
+     *
+     * @param node subtree root with room for one more element
+     * @param entry element to insert
+     * @return true if inserted, false if already present
+     */
+    private boolean insertNonFull(Node node, E entry) {
+        int pos = find(node, entry);
+        if (pos >= 0) {
+            return false; // no duplicates allowed
+        }
+        int i = -pos - 1;
+
+        boolean added;
+        if (node.isLeaf()) {
+            System.arraycopy(node.keys, i, node.keys, i + 1, node.n - i);
+            node.keys[i] = entry;
+            node.n++;
+            added = true;
+        } else {
+            if (node.children[i].n == MAX_KEYS) {
+                splitChild(node, i);
+                int cmp = entry.compareTo(key(node, i));
+                if (cmp == 0) {
+                    return false;
+                } else if (cmp > 0) {
+                    i++;
+                }
+            }
+            added = insertNonFull(node.children[i], entry);
+        }
+
+        if (added) {
+            node.count++;
+        }
+        return added;
+    }
+
+    /**
+     * Splits the full child at index i around its median, which moves up into parent.
+     *
+     * @param parent non-full node whose child is split
+     * @param i index of the full child
+     */
+    private void splitChild(Node parent, int i) {
+        Node full = parent.children[i];
+        Node sibling = new Node(full.isLeaf());
+
+        sibling.n = DEGREE - 1;
+        System.arraycopy(full.keys, DEGREE, sibling.keys, 0, DEGREE - 1);
+        if (!full.isLeaf()) {
+            System.arraycopy(full.children, DEGREE, sibling.children, 0, DEGREE);
+        }
+
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.n - i);
+        parent.children[i + 1] = sibling;
+        System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.n - i);
+        parent.keys[i] = full.keys[DEGREE - 1];
+        parent.n++;
+
+        full.n = DEGREE - 1;
+        clearFrom(full, DEGREE - 1);
+        full.recount();
+        sibling.recount();
+    }
+
+    /**
+     * Removes the smallest element from the tree.
+     * Precondition: Tree must not be empty.
+     * Postcondition: Minimum element is removed and returned in a detached node.
+     *
+     * @return node containing the minimum element or null if empty
+     */
+    @Override
+    public BSTreeNode<E> removeMin() {
+        if (root == null) {
+            return null;
+        }
+        Node node = root;
+        while (!node.isLeaf()) {
+            node = node.children[0];
+        }
+        return new BSTreeNode<>(delete(key(node, 0)));
+    }
+
+    /**
+     * Removes the largest element from the tree.
+     * Precondition: Tree must not be empty.
+     * Postcondition: Maximum element is removed and returned in a detached node.
+     *
+     * @return node containing the maximum element or null if empty
+     */
+    @Override
+    public BSTreeNode<E> removeMax() {
+        if (root == null) {
+            return null;
+        }
+        Node node = root;
+        while (!node.isLeaf()) {
+            node = node.children[node.n];
+        }
+        return new BSTreeNode<>(delete(key(node, node.n - 1)));
+    }
+
+    /**
+     * Removes the given element, merging or borrowing along the way down so no node underflows.
+     * Precondition: entry must not be null.
+     * Postcondition: The element is removed if present and returned in a detached node.
+     *
+     * @param entry element to remove
+     * @return node containing the removed element or null if not found
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> remove(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            return null;
+        }
+        E removed = delete(entry);
+        return (removed == null) ? null : new BSTreeNode<>(removed);
+    }
+
+    /**
+     * Deletes an element from the tree and shrinks the root if it became empty.
+     *
+     * @param entry element to delete
+     * @return the stored element that was removed, or null if absent
+     */
+    private E delete(E entry) {
+        E removed = delete(root, entry);
+        if (removed != null) {
+            size--;
+        }
+        if (root.n == 0) {
+            root = root.isLeaf() ? null : root.children[0];
+        }
+        return removed;
+    }
+
+    /**
+     * Deletes an element from a subtree, topping up children with fewer than
+     * DEGREE elements before descending so a single pass suffices.
+     *
+     * @param node subtree root holding at least DEGREE elements (or the tree root)
+     * @param entry element to delete
+     * @return the stored element that was removed, or null if absent
+     */
+    private E delete(Node node, E entry) {
+        int pos = find(node, entry);
+        E removed;
+
+        if (pos >= 0) {
+            removed = key(node, pos);
+            if (node.isLeaf()) {
+                System.arraycopy(node.keys, pos + 1, node.keys, pos, node.n - pos - 1);
+                node.n--;
+                node.keys[node.n] = null;
+            } else if (node.children[pos].n >= DEGREE) {
+                // Replace with the predecessor, then delete the predecessor below
+                E predecessor = maxOf(node.children[pos]);
+                node.keys[pos] = predecessor;
+                delete(node.children[pos], predecessor);
+            } else if (node.children[pos + 1].n >= DEGREE) {
+                // Replace with the successor, then delete the successor below
+                E successor = minOf(node.children[pos + 1]);
+                node.keys[pos] = successor;
+                delete(node.children[pos + 1], successor);
+            } else {
+                merge(node, pos);
+                delete(node.children[pos], entry);
+            }
+        } else {
+            if (node.isLeaf()) {
+                return null;
+            }
+            int i = -pos - 1;
+            if (node.children[i].n < DEGREE) {
+                if (i > 0 && node.children[i - 1].n >= DEGREE) {
+                    borrowFromLeft(node, i);
+                } else if (i < node.n && node.children[i + 1].n >= DEGREE) {
+                    borrowFromRight(node, i);
+                } else if (i < node.n) {
+                    merge(node, i);
+                } else {
+                    merge(node, i - 1);
+                    i--;
+                }
+            }
+            removed = delete(node.children[i], entry);
+        }
+
+        if (removed != null) {
+            node.count--;
+        }
+        return removed;
+    }
+
+    /**
+     * Merges child i, the separating element and child i + 1 into child i.
+     */
+    private void merge(Node node, int i) {
+        Node left = node.children[i];
+        Node right = node.children[i + 1];
+
+        left.keys[left.n] = node.keys[i];
+        System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+        if (!left.isLeaf()) {
+            System.arraycopy(right.children, 0, left.children, left.n + 1, right.n + 1);
+        }
+        left.n += right.n + 1;
+        left.count += right.count + 1;
+
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.n - i - 1);
+        System.arraycopy(node.children, i + 2, node.children, i + 1, node.n - i - 1);
+        node.n--;
+        node.keys[node.n] = null;
+        node.children[node.n + 1] = null;
+    }
+
+    /**
+     * Moves one element from child i - 1 through the parent into child i.
+     */
+    private void borrowFromLeft(Node node, int i) {
+        Node child = node.children[i];
+        Node left = node.children[i - 1];
+
+        System.arraycopy(child.keys, 0, child.keys, 1, child.n);
+        child.keys[0] = node.keys[i - 1];
+        int moved = 0;
+        if (!child.isLeaf()) {
+            System.arraycopy(child.children, 0, child.children, 1, child.n + 1);
+            child.children[0] = left.children[left.n];
+            left.children[left.n] = null;
+            moved = child.children[0].count;
+        }
+        child.n++;
+        child.count += moved + 1;
+
+        node.keys[i - 1] = left.keys[left.n - 1];
+        left.n--;
+        left.keys[left.n] = null;
+        left.count -= moved + 1;
+    }
+
+    /**
+     * Moves one element from child i + 1 through the parent into child i.
+     */
+    private void borrowFromRight(Node node, int i) {
+        Node child = node.children[i];
+        Node right = node.children[i + 1];
+
+        child.keys[child.n] = node.keys[i];
+        int moved = 0;
+        if (!child.isLeaf()) {
+            child.children[child.n + 1] = right.children[0];
+            moved = right.children[0].count;
+            System.arraycopy(right.children, 1, right.children, 0, right.n);
+            right.children[right.n] = null;
+        }
+        child.n++;
+        child.count += moved + 1;
+
+        node.keys[i] = right.keys[0];
+        System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+        right.n--;
+        right.keys[right.n] = null;
+        right.count -= moved + 1;
+    }
+
+    /**
+     * Finds the smallest element greater than or equal to the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry element to compare against
+     * @return ceiling element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E ceiling(E entry) throws NullPointerException {
+        return above(entry, true);
+    }
+
+    /**
+     * Finds the smallest element strictly greater than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry element to compare against
+     * @return higher element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E higher(E entry) throws NullPointerException {
+        return above(entry, false);
+    }
+
+    /**
+     * Finds the greatest element less than or equal to the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry element to compare against
+     * @return floor element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E floor(E entry) throws NullPointerException {
+        return below(entry, true);
+    }
+
+    /**
+     * Finds the greatest element strictly less than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged.
+     *
+     * @param entry element to compare against
+     * @return lower element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E lower(E entry) throws NullPointerException {
+        return below(entry, false);
+    }
+
+    /**
+     * Descends the tree remembering the closest element above the entry.
+     */
+    private E above(E entry, boolean inclusive) {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        E best = null;
+        Node node = root;
+        while (node != null) {
+            int pos = find(node, entry);
+            if (pos >= 0 && inclusive) {
+                return key(node, pos);
+            }
+            int i = (pos >= 0) ? pos + 1 : -pos - 1;
+            if (i < node.n) {
+                best = key(node, i);
+            }
+            node = node.isLeaf() ? null : node.children[i];
+        }
+        return best;
+    }
+
+    /**
+     * Descends the tree remembering the closest element below the entry.
+     */
+    private E below(E entry, boolean inclusive) {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        E best = null;
+        Node node = root;
+        while (node != null) {
+            int pos = find(node, entry);
+            if (pos >= 0 && inclusive) {
+                return key(node, pos);
+            }
+            int i = (pos >= 0) ? pos : -pos - 1;
+            if (i > 0) {
+                best = key(node, i - 1);
+            }
+            node = node.isLeaf() ? null : node.children[i];
+        }
+        return best;
+    }
+
+    /**
+     * Counts the elements in the tree that are strictly less than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is unchanged; runs in O(height * DEGREE).
+     *
+     * @param entry element to rank
+     * @return number of smaller elements
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public int rank(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int pos = find(node, entry);
+            int i = (pos >= 0) ? pos : -pos - 1;
+            rank += i;
+            if (!node.isLeaf()) {
+                for (int j = 0; j < i; j++) {
+                    rank += node.children[j].count;
+                }
+            }
+            if (pos >= 0) {
+                if (!node.isLeaf()) {
+                    rank += node.children[pos].count;
+                }
+                break;
+            }
+            node = node.isLeaf() ? null : node.children[i];
+        }
+        return rank;
+    }
+
+    /**
+     * Retrieves the element at the given position of the natural ordering.
+     * Precondition: 0 &lt;= index &lt; size().
+     * Postcondition: Tree is unchanged; runs in O(height * DEGREE).
+     *
+     * @param index zero-based position in sorted order
+     * @return element at that position
+     * @throws IndexOutOfBoundsException if index is outside the tree
+     */
+    @Override
+    public E select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        Node node = root;
+        while (true) {
+            int j = 0;
+            for (; j <= node.n; j++) {
+                int below = node.isLeaf() ? 0 : node.children[j].count;
+                if (index < below) {
+                    break;
+                }
+                index -= below;
+                if (j < node.n) {
+                    if (index == 0) {
+                        return key(node, j);
+                    }
+                    index--;
+                }
+            }
+            node = node.children[j];
+        }
+    }
+
+    /**
+     * Provides a lazy in-order iterator over the tree.
+     * Precondition: None.
+     * Postcondition: Returns an iterator that visits elements in sorted order.
+     *
+     * @return in-order iterator
+     */
+    @Override
+    public Iterator<E> inorderIterator() {
+        return new NodeRangeIterator(null, null);
+    }
+
+    /**
+     * Provides a pre-order iterator: the elements of a node come before those of its children.
+     * Precondition: None.
+     * Postcondition: Returns an iterator over a snapshot of the tree.
+     *
+     * @return pre-order iterator
+     */
+    @Override
+    public Iterator<E> preorderIterator() {
+        List<E> elements = new ArrayList<>(size);
+        collect(root, elements, true);
+        return new SnapshotIterator<>(elements);
+    }
+
+    /**
+     * Provides a post-order iterator: the elements of a node come after those of its children.
+     * Precondition: None.
+     * Postcondition: Returns an iterator over a snapshot of the tree.
+     *
+     * @return post-order iterator
+     */
+    @Override
+    public Iterator<E> postorderIterator() {
+        List<E> elements = new ArrayList<>(size);
+        collect(root, elements, false);
+        return new SnapshotIterator<>(elements);
+    }
+
+    /**
+     * Provides a lazy in-order iterator starting at the given lower bound.
+     * Precondition: fromEntry must not be null.
+     * Postcondition: Returns an iterator positioned at the first element not less than fromEntry.
+     *
+     * @param fromEntry inclusive lower bound
+     * @return in-order iterator over the tail of the tree
+     * @throws NullPointerException if fromEntry is null
+     */
+    @Override
+    public Iterator<E> tailIterator(E fromEntry) throws NullPointerException {
+        if (fromEntry == null) {
+            throw new NullPointerException();
+        }
+        return new NodeRangeIterator(fromEntry, null);
+    }
+
+    /**
+     * Provides a lazy in-order iterator over the half-open range [fromEntry, toEntry).
+     * Precondition: None. Either bound may be null for an open end.
+     * Postcondition: Returns an iterator positioned at the first element in range.
+     *
+     * @param fromEntry inclusive lower bound, or null
+     * @param toEntry exclusive upper bound, or null
+     * @return in-order iterator over the range
+     */
+    @Override
+    public Iterator<E> rangeIterator(E fromEntry, E toEntry) {
+        return new NodeRangeIterator(fromEntry, toEntry);
+    }
+
+    /**
+     * Collects elements node by node for the pre-order and post-order snapshots.
+     */
+    private void collect(Node node, List<E> elements, boolean keysFirst) {
+        if (node == null) {
+            return;
+        }
+        if (keysFirst) {
+            addKeys(node, elements);
+        }
+        if (!node.isLeaf()) {
+            for (int i = 0; i <= node.n; i++) {
+                collect(node.children[i], elements, keysFirst);
+            }
+        }
+        if (!keysFirst) {
+            addKeys(node, elements);
+        }
+    }
+
+    /**
+     * Appends the elements of one node in order.
+     */
+    private void addKeys(Node node, List<E> elements) {
+        for (int i = 0; i < node.n; i++) {
+            elements.add(key(node, i));
+        }
+    }
+
+    /**
+     * Binary search for an entry among the elements of a node.
+     *
+     * @return index of the entry if present, otherwise -(insertion point) - 1
+     */
+    private int find(Node node, E entry) {
+        int low = 0;
+        int high = node.n - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = entry.compareTo(key(node, middle));
+            if (cmp == 0) {
+                return middle;
+            } else if (cmp < 0) {
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Returns the smallest element of a subtree.
+     */
+    private E minOf(Node node) {
+        while (!node.isLeaf()) {
+            node = node.children[0];
+        }
+        return key(node, 0);
+    }
+
+    /**
+     * Returns the largest element of a subtree.
+     */
+    private E maxOf(Node node) {
+        while (!node.isLeaf()) {
+            node = node.children[node.n];
+        }
+        return key(node, node.n - 1);
+    }
+
+    /**
+     * Clears element and child references past the used part of a node so they can be collected.
+     */
+    private void clearFrom(Node node, int from) {
+        for (int i = from; i < MAX_KEYS; i++) {
+            node.keys[i] = null;
+        }
+        if (!node.isLeaf()) {
+            for (int i = from + 1; i <= MAX_KEYS; i++) {
+                node.children[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Reads the element at index i of a node.
+     */
+    @SuppressWarnings("unchecked")
+    private E key(Node node, int i) {
+        return (E) node.keys[i];
+    }
+
+    /**
+     * Lazy in-order iterator over [from, to) that keeps one (node, position) frame per level.
+     */
+    private class NodeRangeIterator implements Iterator<E> {
+        private Deque<Node> nodes = new ArrayDeque<>();         // nodes on the current path
+        private Deque<int[]> positions = new ArrayDeque<>();    // next element index in each node
+        private E to;                                            // exclusive upper bound or null
+
+        /**
+         * Seeks to the first element not less than from by descending once.
+         */
+        NodeRangeIterator(E from, E to) {
+            this.to = to;
+            Node node = root;
+            while (node != null) {
+                int i = 0;
+                if (from != null) {
+                    int pos = find(node, from);
+                    i = (pos >= 0) ? pos : -pos - 1;
+                }
+                nodes.push(node);
+                positions.push(new int[] { i });
+                // An exact match needs nothing from the child to its left
+                if (from != null && i < node.n && from.compareTo(key(node, i)) == 0) {
+                    break;
+                }
+                node = node.isLeaf() ? null : node.children[i];
+            }
+        }
+
+        /**
+         * Drops frames whose elements have all been returned.
+         */
+        private void settle() {
+            while (!nodes.isEmpty() && positions.peek()[0] >= nodes.peek().n) {
+                nodes.pop();
+                positions.pop();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            settle();
+            return !nodes.isEmpty()
+                    && (to == null || key(nodes.peek(), positions.peek()[0]).compareTo(to) < 0);
+        }
+
+        @Override
+        public E next() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node node = nodes.peek();
+            int[] position = positions.peek();
+            E element = key(node, position[0]);
+            position[0]++;
+
+            // Everything in the child right of this element comes next
+            Node child = node.isLeaf() ? null : node.children[position[0]];
+            while (child != null) {
+                nodes.push(child);
+                positions.push(new int[] { 0 });
+                child = child.isLeaf() ? null : child.children[0];
+            }
+            return element;
+        }
+    }
+}
@@ -0,0 +1,724 @@
+/**
+ * RadixTrie.java
+ *
+ * Implements the BSTreeADT as a compressed radix trie over string keys. Each
+ * edge is labelled with a run of characters and chains of single-child nodes
+ * are merged into one edge, so a lookup reads each character of the key once
+ * instead of re-comparing shared prefixes at every level of a comparison tree.
+ * Lookup cost depends on the key length, not on the number of elements, and
+ * all keys sharing a prefix sit in one subtree. Every node records how many
+ * elements its subtree holds to support rank and select, which also answer the
+ * floor and ceiling queries.
+ */
+
+package implementations;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+import utilities.KeyExtractor;
+
+/**
+ * Radix trie of elements indexed by a string key. Since elements live on trie
+ * nodes rather than binary nodes, the BSTreeNode objects returned by getRoot,
+ * search, removeMin and removeMax are detached wrappers around the element.
+ */
+public class RadixTrie<E extends Comparable<? super E>> implements BSTreeADT<E>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private KeyExtractor<E> keys; // maps elements to the keys they are stored under
+    private Node root;            // root node with an empty label
+    private int size;             // total number of elements in the trie
+
+    /**
+     * A trie node: the edge label leading to it, an optional element and children sorted by first character.
+     */
+    private static class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String label;                // characters on the edge from the parent
+        Object element;              // element whose key ends here, or null
+        Node[] children = new Node[0]; // children ordered by the first character of their label
+        int count;                   // number of elements in this subtree
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Constructs an empty trie.
+     * Precondition: keys must order elements the same way as their natural ordering.
+     * Postcondition: Trie is initialized with no elements.
+     *
+     * @param keys function giving the string key of an element
+     */
+    public RadixTrie(KeyExtractor<E> keys) {
+        this.keys = keys;
+        clear();
+    }
+
+    /**
+     * Returns a detached node holding the smallest element, since the trie root holds no element.
+     * Precondition: Trie is not empty.
+     * Postcondition: Trie is unchanged.
+     *
+     * @return node wrapping the first element
+     * @throws NullPointerException if the trie is empty
+     */
+    @Override
+    public BSTreeNode<E> getRoot() throws NullPointerException {
+        if (size == 0) {
+            throw new NullPointerException("Tree is empty. No root node.");
+        }
+        return new BSTreeNode<>(select(0));
+    }
+
+    /**
+     * Returns the number of edges on the longest path from the root.
+     * Precondition: None.
+     * Postcondition: Returns 0 for an empty trie.
+     *
+     * @return height of the trie
+     */
+    @Override
+    public int getHeight() {
+        return height(root) - 1;
+    }
+
+    /**
+     * Helper method to recursively calculate the height of a subtree.
+     */
+    private int height(Node node) {
+        int tallest = 0;
+        for (Node child : node.children) {
+            tallest = Math.max(tallest, height(child));
+        }
+        return 1 + tallest;
+    }
+
+    /**
+     * Returns the total number of elements stored in the trie.
+     * Precondition: None.
+     * Postcondition: Size value is returned.
+     *
+     * @return number of elements
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the trie is empty.
+     * Precondition: None.
+     * Postcondition: Returns true if trie has no elements.
+     *
+     * @return true if empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all elements from the trie.
+     * Precondition: None.
+     * Postcondition: Trie is cleared and size is reset to 0.
+     */
+    @Override
+    public void clear() {
+        root = new Node("");
+        size = 0;
+    }
+
+    /**
+     * Checks if a specific entry exists in the trie.
+     * Precondition: entry must not be null.
+     * Postcondition: Returns true if found, false otherwise.
+     *
+     * @param entry the element to search for
+     * @return true if entry exists, false otherwise
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean contains(E entry) throws NullPointerException {
+        return search(entry) != null;
+    }
+
+    /**
+     * Follows the key of the entry character by character.
+     * Precondition: entry must not be null.
+     * Postcondition: Returns a detached node wrapping the stored element, otherwise null.
+     *
+     * @param entry element to locate
+     * @return node wrapping the element or null
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+        Node node = locate(keys.keyOf(entry));
+        return (node == null || node.element == null) ? null : new BSTreeNode<>(element(node));
+    }
+
+    /**
+     * Finds the node whose path spells exactly the key.
+     *
+     * @param key key to follow
+     * @return the node, or null if no node ends at the key
+     */
+    private Node locate(String key) {
+        Node node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            int i = childIndex(node, key.charAt(pos));
+            if (i < 0) {
+                return null;
+            }
+            Node child = node.children[i];
+            if (!key.startsWith(child.label, pos)) {
+                return null;
+            }
+            pos += child.label.length();
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Adds a new element, splitting an edge where its key leaves an existing label.
+     * Precondition: entry must not be null.
+     * Postcondition: Trie is updated and size increases if added successfully.
+     *
+     * @param entry the element to add
+     * @return true if added, false if duplicate
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean add(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        String key = keys.keyOf(entry);
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int pos = 0;
+
+        while (true) {
+            path.add(node);
+            if (pos == key.length()) {
+                if (node.element != null) {
+                    return false; // no duplicates allowed
+                }
+                node.element = entry;
+                break;
+            }
+
+            int i = childIndex(node, key.charAt(pos));
+            if (i < 0) {
+                Node leaf = new Node(key.substring(pos));
+                leaf.element = entry;
+                leaf.count = 1;
+                insertChild(node, -i - 1, leaf);
+                break;
+            }
+
+            Node child = node.children[i];
+            int common = commonPrefix(child.label, key, pos);
+            if (common < child.label.length()) {
+                // The key leaves the edge part way: split it at the divergence point
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[] { child };
+                middle.count = child.count;
+                node.children[i] = middle;
+                child = middle;
+            }
+            pos += common;
+            node = child;
+        }
+
+        for (Node visited : path) {
+            visited.count++;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the smallest element from the trie.
+     * Precondition: Trie must not be empty.
+     * Postcondition: Minimum element is removed and returned in a detached node.
+     *
+     * @return node containing the minimum element or null if empty
+     */
+    @Override
+    public BSTreeNode<E> removeMin() {
+        return (size == 0) ? null : new BSTreeNode<>(delete(select(0)));
+    }
+
+    /**
+     * Removes the largest element from the trie.
+     * Precondition: Trie must not be empty.
+     * Postcondition: Maximum element is removed and returned in a detached node.
+     *
+     * @return node containing the maximum element or null if empty
+     */
+    @Override
+    public BSTreeNode<E> removeMax() {
+        return (size == 0) ? null : new BSTreeNode<>(delete(select(size - 1)));
+    }
+
+    /**
+     * Removes the given element and merges the nodes it leaves behind into their neighbours.
+     * Precondition: entry must not be null.
+     * Postcondition: The element is removed if present.
+     *
+     * @param entry element to remove
+     * @return node containing the removed element or null if not found
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> remove(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+        E removed = delete(entry);
+        return (removed == null) ? null : new BSTreeNode<>(removed);
+    }
+
+    /**
+     * Deletes an element and re-compresses the nodes it leaves behind.
+     *
+     * @param entry element to delete
+     * @return the stored element that was removed, or null if absent
+     */
+    private E delete(E entry) {
+        String key = keys.keyOf(entry);
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int pos = 0;
+        path.add(node);
+
+        while (pos < key.length()) {
+            int i = childIndex(node, key.charAt(pos));
+            if (i < 0 || !key.startsWith(node.children[i].label, pos)) {
+                return null;
+            }
+            node = node.children[i];
+            pos += node.label.length();
+            path.add(node);
+        }
+        if (node.element == null) {
+            return null;
+        }
+
+        E removed = element(node);
+        node.element = null;
+        for (Node visited : path) {
+            visited.count--;
+        }
+        size--;
+
+        // Drop or merge element-less nodes bottom-up so every edge stays maximal
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            Node current = path.get(depth);
+            Node parent = path.get(depth - 1);
+            if (current.element != null) {
+                break;
+            }
+            if (current.children.length == 0) {
+                removeChild(parent, childIndex(parent, current.label.charAt(0)));
+            } else if (current.children.length == 1) {
+                Node only = current.children[0];
+                only.label = current.label + only.label;
+                parent.children[childIndex(parent, current.label.charAt(0))] = only;
+            } else {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Finds the smallest element greater than or equal to the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Trie is unchanged.
+     *
+     * @param entry element to compare against
+     * @return ceiling element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E ceiling(E entry) throws NullPointerException {
+        int rank = rank(entry);
+        return (rank < size) ? select(rank) : null;
+    }
+
+    /**
+     * Finds the smallest element strictly greater than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Trie is unchanged.
+     *
+     * @param entry element to compare against
+     * @return higher element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E higher(E entry) throws NullPointerException {
+        int rank = rank(entry) + (contains(entry) ? 1 : 0);
+        return (rank < size) ? select(rank) : null;
+    }
+
+    /**
+     * Finds the greatest element less than or equal to the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Trie is unchanged.
+     *
+     * @param entry element to compare against
+     * @return floor element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E floor(E entry) throws NullPointerException {
+        BSTreeNode<E> found = search(entry);
+        return (found != null) ? found.getElement() : lower(entry);
+    }
+
+    /**
+     * Finds the greatest element strictly less than the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Trie is unchanged.
+     *
+     * @param entry element to compare against
+     * @return lower element or null if none exists
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public E lower(E entry) throws NullPointerException {
+        int rank = rank(entry);
+        return (rank > 0) ? select(rank - 1) : null;
+    }
+
+    /**
+     * Counts the elements whose keys sort before the key of the given entry.
+     * Precondition: entry must not be null.
+     * Postcondition: Trie is unchanged; runs in O(key length) node visits.
+     *
+     * @param entry element to rank
+     * @return number of smaller elements
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public int rank(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        String key = keys.keyOf(entry);
+        int rank = 0;
+        Node node = root;
+        int pos = 0;
+
+        while (pos < key.length()) {
+            // A key ending here is a proper prefix of the target, so it sorts first
+            if (node.element != null) {
+                rank++;
+            }
+            char next = key.charAt(pos);
+            Node follow = null;
+            for (Node child : node.children) {
+                char first = child.label.charAt(0);
+                if (first < next) {
+                    rank += child.count;
+                } else {
+                    if (first == next) {
+                        follow = child;
+                    }
+                    break;
+                }
+            }
+            if (follow == null) {
+                break;
+            }
+
+            int common = commonPrefix(follow.label, key, pos);
+            if (common == follow.label.length()) {
+                pos += common;
+                node = follow;
+            } else {
+                // Diverged inside the edge: the whole subtree is on one side of the key
+                if (pos + common < key.length() && follow.label.charAt(common) < key.charAt(pos + common)) {
+                    rank += follow.count;
+                }
+                break;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Retrieves the element at the given position of the natural ordering.
+     * Precondition: 0 &lt;= index &lt; size().
+     * Postcondition: Trie is unchanged.
+     *
+     * @param index zero-based position in sorted order
+     * @return element at that position
+     * @throws IndexOutOfBoundsException if index is outside the trie
+     */
+    @Override
+    public E select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        Node node = root;
+        while (true) {
+            if (node.element != null) {
+                if (index == 0) {
+                    return element(node);
+                }
+                index--;
+            }
+            for (Node child : node.children) {
+                if (index < child.count) {
+                    node = child;
+                    break;
+                }
+                index -= child.count;
+            }
+        }
+    }
+
+    /**
+     * Provides a lazy in-order iterator over the trie.
+     * Precondition: None.
+     * Postcondition: Returns an iterator that visits elements in sorted order.
+     *
+     * @return in-order iterator
+     */
+    @Override
+    public Iterator<E> inorderIterator() {
+        return new TrieRangeIterator(0, null);
+    }
+
+    /**
+     * Provides a pre-order iterator. In a trie a node's own element precedes
+     * its children, so this is the same order as the in-order iterator.
+     * Precondition: None.
+     * Postcondition: Returns an iterator that visits nodes before their children.
+     *
+     * @return pre-order iterator
+     */
+    @Override
+    public Iterator<E> preorderIterator() {
+        return new TrieRangeIterator(0, null);
+    }
+
+    /**
+     * Provides a post-order iterator over a snapshot of the trie.
+     * Precondition: None.
+     * Postcondition: Returns an iterator that visits children before their node.
+     *
+     * @return post-order iterator
+     */
+    @Override
+    public Iterator<E> postorderIterator() {
+        List<E> elements = new ArrayList<>(size);
+        collectPostorder(root, elements);
+        return new SnapshotIterator<>(elements);
+    }
+
+    /**
+     * Provides a lazy in-order iterator starting at the given lower bound.
+     * Precondition: fromEntry must not be null.
+     * Postcondition: Returns an iterator positioned at the first element not less than fromEntry.
+     *
+     * @param fromEntry inclusive lower bound
+     * @return in-order iterator over the tail of the trie
+     * @throws NullPointerException if fromEntry is null
+     */
+    @Override
+    public Iterator<E> tailIterator(E fromEntry) throws NullPointerException {
+        return new TrieRangeIterator(rank(fromEntry), null);
+    }
+
+    /**
+     * Provides a lazy in-order iterator over the half-open range [fromEntry, toEntry).
+     * Precondition: None. Either bound may be null for an open end.
+     * Postcondition: Returns an iterator positioned at the first element in range.
+     *
+     * @param fromEntry inclusive lower bound, or null
+     * @param toEntry exclusive upper bound, or null
+     * @return in-order iterator over the range
+     */
+    @Override
+    public Iterator<E> rangeIterator(E fromEntry, E toEntry) {
+        return new TrieRangeIterator(fromEntry == null ? 0 : rank(fromEntry), toEntry);
+    }
+
+    /**
+     * Collects the elements of a subtree with children before their node.
+     */
+    private void collectPostorder(Node node, List<E> elements) {
+        for (Node child : node.children) {
+            collectPostorder(child, elements);
+        }
+        if (node.element != null) {
+            elements.add(element(node));
+        }
+    }
+
+    /**
+     * Binary search among the children of a node by first label character.
+     *
+     * @return index of the child if present, otherwise -(insertion point) - 1
+     */
+    private int childIndex(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char c = node.children[middle].label.charAt(0);
+            if (c == first) {
+                return middle;
+            } else if (c < first) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Counts how many leading characters of label match key starting at pos.
+     */
+    private int commonPrefix(String label, String key, int pos) {
+        int limit = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < limit && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Inserts a child at the given index of the sorted child array.
+     */
+    private void insertChild(Node node, int index, Node child) {
+        Node[] children = Arrays.copyOf(node.children, node.children.length + 1);
+        System.arraycopy(children, index, children, index + 1, node.children.length - index);
+        children[index] = child;
+        node.children = children;
+    }
+
+    /**
+     * Removes the child at the given index of the sorted child array.
+     */
+    private void removeChild(Node node, int index) {
+        Node[] children = new Node[node.children.length - 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        node.children = children;
+    }
+
+    /**
+     * Reads the element stored on a node.
+     */
+    @SuppressWarnings("unchecked")
+    private E element(Node node) {
+        return (E) node.element;
+    }
+
+    /**
+     * Lazy depth-first iterator that seeks to a position by descending once and
+     * then streams elements in key order until the upper bound.
+     */
+    private class TrieRangeIterator implements Iterator<E> {
+        private Deque<Node> nodes = new ArrayDeque<>();       // nodes on the current path
+        private Deque<int[]> nextChild = new ArrayDeque<>();  // next child index of each node
+        private Node pending;                                 // node holding the next element
+        private E to;                                         // exclusive upper bound or null
+
+        /**
+         * Positions the iterator on the element with the given rank.
+         */
+        TrieRangeIterator(int start, E to) {
+            this.to = to;
+            if (start >= size) {
+                return;
+            }
+
+            Node node = root;
+            while (pending == null) {
+                if (node.element != null) {
+                    if (start == 0) {
+                        pending = node;
+                    } else {
+                        start--;
+                    }
+                }
+                int i = 0;
+                if (pending == null) {
+                    while (start >= node.children[i].count) {
+                        start -= node.children[i].count;
+                        i++;
+                    }
+                }
+                nodes.push(node);
+                nextChild.push(new int[] { pending == null ? i + 1 : 0 });
+                if (pending == null) {
+                    node = node.children[i];
+                }
+            }
+        }
+
+        /**
+         * Walks the depth-first order until a node with an element is found.
+         */
+        private void advance() {
+            while (pending == null && !nodes.isEmpty()) {
+                Node node = nodes.peek();
+                int[] next = nextChild.peek();
+                if (next[0] < node.children.length) {
+                    Node child = node.children[next[0]++];
+                    nodes.push(child);
+                    nextChild.push(new int[] { 0 });
+                    if (child.element != null) {
+                        pending = child;
+                    }
+                } else {
+                    nodes.pop();
+                    nextChild.pop();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            advance();
+            return pending != null && (to == null || element(pending).compareTo(to) < 0);
+        }
+
+        @Override
+        public E next() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            E result = element(pending);
+            pending = null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * RangeIterator.java
+ *
+ * Provides a lazy in-order iterator over a binary search tree restricted to a
+ * key range. Only the path from the root to the current position is kept on a
+ * stack, so seeking to the lower bound costs O(height) and each element is
+ * produced on demand until the upper bound is reached.
+ */
+
+package implementations;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import utilities.Iterator;
+
+/**
+ * Lazy in-order iterator over the half-open range [from, to).
+ */
+public class RangeIterator<E extends Comparable<? super E>> implements Iterator<E> {
+    private Deque<BSTreeNode<E>> stack; // ancestors still waiting to be visited
+    private E to;                       // exclusive upper bound, null if unbounded
+
+    /**
+     * Builds an iterator positioned at the smallest element greater than or equal to from.
+     * Precondition: root may be null (empty tree), from may be null for no lower bound.
+     * Postcondition: Stack holds the path to the first element in range.
+     *
+     * @param root the root node of the tree
+     * @param from inclusive lower bound, or null to start at the minimum
+     */
+    public RangeIterator(BSTreeNode<E> root, E from) {
+        this(root, from, null);
+    }
+
+    /**
+     * Builds an iterator over the elements between from (inclusive) and to (exclusive).
+     * Precondition: root may be null (empty tree), either bound may be null for no limit.
+     * Postcondition: Stack holds the path to the first element in range.
+     *
+     * @param root the root node of the tree
+     * @param from inclusive lower bound, or null to start at the minimum
+     * @param to exclusive upper bound, or null to continue to the maximum
+     */
+    public RangeIterator(BSTreeNode<E> root, E from, E to) {
+        this.to = to;
+        stack = new ArrayDeque<>();
+        BSTreeNode<E> node = root;
+
+        // Ordered descent: remember every node that is still in range on the way down
+        while (node != null) {
+            if (from == null || from.compareTo(node.getElement()) <= 0) {
+                stack.push(node);
+                node = node.getLeft();
+            } else {
+                node = node.getRight();
+            }
+        }
+    }
+
+    /**
+     * Pushes the leftmost path of a subtree onto the stack.
+     * Precondition: node may be null.
+     * Postcondition: Smallest element of the subtree is on top of the stack.
+     *
+     * @param node root of the subtree to descend
+     */
+    private void pushLeft(BSTreeNode<E> node) {
+        while (node != null) {
+            stack.push(node);
+            node = node.getLeft();
+        }
+    }
+
+    /**
+     * Checks if there are more elements to iterate.
+     * Precondition: None.
+     * Postcondition: Returns true if more elements are available.
+     *
+     * @return true if next element exists, false otherwise
+     */
+    @Override
+    public boolean hasNext() {
+        return !stack.isEmpty() && (to == null || stack.peek().getElement().compareTo(to) < 0);
+    }
+
+    /**
+     * Returns the next element in in-order sequence.
+     * Precondition: hasNext() must be true.
+     * Postcondition: The iterator advances to the in-order successor.
+     *
+     * @return next element in the range
+     * @throws NoSuchElementException if no elements remain
+     */
+    @Override
+    public E next() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BSTreeNode<E> node = stack.pop();
+        pushLeft(node.getRight());
+        return node.getElement();
+    }
+}
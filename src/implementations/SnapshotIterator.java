@@ -0,0 +1,61 @@
+/**
+ * SnapshotIterator.java
+ *
+ * Provides an iterator over a list of elements that has already been collected
+ * from a tree. Used by trees whose nodes are not BSTreeNode objects to offer the
+ * same copy-based traversal iterators as BSTree.
+ */
+
+package implementations;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import utilities.Iterator;
+
+/**
+ * Iterator over a pre-collected list of tree elements.
+ */
+class SnapshotIterator<E> implements Iterator<E> {
+    private List<E> elements;   // elements in traversal order
+    private int currentIndex;   // position of the next element to return
+
+    /**
+     * Creates an iterator over the given elements.
+     * Precondition: elements must not be null.
+     * Postcondition: Iterator starts at the first element.
+     *
+     * @param elements elements in the order they should be returned
+     */
+    SnapshotIterator(List<E> elements) {
+        this.elements = elements;
+        this.currentIndex = 0;
+    }
+
+    /**
+     * Checks if there are more elements to iterate.
+     * Precondition: None.
+     * Postcondition: Returns true if more elements are available.
+     *
+     * @return true if next element exists, false otherwise
+     */
+    @Override
+    public boolean hasNext() {
+        return currentIndex < elements.size();
+    }
+
+    /**
+     * Returns the next element.
+     * Precondition: hasNext() must be true.
+     * Postcondition: Current index is advanced by one.
+     *
+     * @return next element in the list
+     * @throws NoSuchElementException if no elements remain
+     */
+    @Override
+    public E next() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return elements.get(currentIndex++);
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * SplayTree.java
+ *
+ * Implements a self-adjusting binary search tree. Every search, insertion and
+ * removal splays the accessed element to the root through rotations, so
+ * elements that are accessed often stay near the top of the tree and the
+ * amortized cost of a lookup follows how skewed the accesses are rather than
+ * the total number of elements.
+ */
+
+package implementations;
+
+/**
+ * Splay tree built on the BSTree node structure. Ordered queries, rank and
+ * select, and the traversal iterators are inherited and do not restructure
+ * the tree.
+ */
+public class SplayTree<E extends Comparable<? super E>> extends BSTree<E> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an empty splay tree.
+     * Precondition: None.
+     * Postcondition: Tree is initialized with no elements.
+     */
+    public SplayTree() {
+        super();
+    }
+
+    /**
+     * Ignores requests for a hash index, since splaying is what keeps frequently
+     * used elements cheap to reach in this tree.
+     * Precondition: None.
+     * Postcondition: The tree stays without a hash index.
+     *
+     * @param hashIndexed ignored
+     */
+    @Override
+    public void setHashIndexed(boolean hashIndexed) {
+        super.setHashIndexed(false);
+    }
+
+    /**
+     * Searches for the entry and splays it (or the last node visited) to the root.
+     * Precondition: entry must not be null.
+     * Postcondition: The accessed node becomes the root.
+     *
+     * @param entry element to locate
+     * @return node containing the element or null
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+        root = splay(root, entry);
+        if (root != null && entry.compareTo(root.getElement()) == 0) {
+            return root;
+        }
+        return null;
+    }
+
+    /**
+     * Adds a new element and makes it the root.
+     * Precondition: entry must not be null.
+     * Postcondition: Tree is updated and size increases if added successfully.
+     *
+     * @param entry the element to add
+     * @return true if added, false if duplicate
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public boolean add(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException();
+        }
+
+        if (root == null) {
+            root = new BSTreeNode<>(entry);
+            size++;
+            return true;
+        }
+
+        root = splay(root, entry);
+        int cmp = entry.compareTo(root.getElement());
+        if (cmp == 0) {
+            return false; // no duplicates allowed
+        }
+
+        // The splayed root is the closest neighbour, so the new node slots in above it
+        BSTreeNode<E> node = new BSTreeNode<>(entry);
+        if (cmp < 0) {
+            node.setLeft(root.getLeft());
+            node.setRight(root);
+            root.setLeft(null);
+        } else {
+            node.setRight(root.getRight());
+            node.setLeft(root);
+            root.setRight(null);
+        }
+        root.updateSize();
+        node.updateSize();
+        root = node;
+        size++;
+        return true;
+    }
+
+    /**
+     * Splays the smallest element to the root and removes it.
+     * Precondition: Tree must not be empty.
+     * Postcondition: Minimum node is removed and returned.
+     *
+     * @return node containing the minimum element or null if empty
+     */
+    @Override
+    public BSTreeNode<E> removeMin() {
+        if (root == null) {
+            return null;
+        }
+
+        BSTreeNode<E> current = root;
+        while (current.getLeft() != null) {
+            current = current.getLeft();
+        }
+
+        root = splay(root, current.getElement());
+        BSTreeNode<E> removed = root;
+        root = removed.getRight();
+        size--;
+        return removed;
+    }
+
+    /**
+     * Splays the largest element to the root and removes it.
+     * Precondition: Tree must not be empty.
+     * Postcondition: Maximum node is removed and returned.
+     *
+     * @return node containing the maximum element or null if empty
+     */
+    @Override
+    public BSTreeNode<E> removeMax() {
+        if (root == null) {
+            return null;
+        }
+
+        BSTreeNode<E> current = root;
+        while (current.getRight() != null) {
+            current = current.getRight();
+        }
+
+        root = splay(root, current.getElement());
+        BSTreeNode<E> removed = root;
+        root = removed.getLeft();
+        size--;
+        return removed;
+    }
+
+    /**
+     * Splays the entry to the root, removes it and joins its two subtrees by
+     * splaying the largest element of the left subtree to its top.
+     * Precondition: entry must not be null.
+     * Postcondition: The element is removed if present.
+     *
+     * @param entry element to remove
+     * @return node containing the removed element or null if not found
+     * @throws NullPointerException if entry is null
+     */
+    @Override
+    public BSTreeNode<E> remove(E entry) throws NullPointerException {
+        if (search(entry) == null) {
+            return null;
+        }
+
+        BSTreeNode<E> removed = root;
+        if (removed.getLeft() == null) {
+            root = removed.getRight();
+        } else {
+            // Every element on the left is smaller than entry, so this splays the left maximum up
+            root = splay(removed.getLeft(), entry);
+            root.setRight(removed.getRight());
+            root.updateSize();
+        }
+        size--;
+        return removed;
+    }
+
+    /**
+     * Splays the node holding entry, or the last node on its search path, to the
+     * top of the subtree using zig-zig and zig-zag rotation pairs.
+     *
+     * @param node root of the subtree
+     * @param entry element being accessed
+     * @return new root of the subtree
+     */
+    private BSTreeNode<E> splay(BSTreeNode<E> node, E entry) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = entry.compareTo(node.getElement());
+
+        if (cmp < 0) {
+            BSTreeNode<E> left = node.getLeft();
+            if (left == null) {
+                return node;
+            }
+            int childCmp = entry.compareTo(left.getElement());
+            if (childCmp < 0) {
+                // zig-zig: bring the grandchild up, then rotate twice to the right
+                left.setLeft(splay(left.getLeft(), entry));
+                node = rotateRight(node);
+            } else if (childCmp > 0) {
+                // zig-zag: bring the grandchild up, then rotate left and right
+                left.setRight(splay(left.getRight(), entry));
+                if (left.getRight() != null) {
+                    node.setLeft(rotateLeft(left));
+                }
+            }
+            return (node.getLeft() == null) ? node : rotateRight(node);
+        } else if (cmp > 0) {
+            BSTreeNode<E> right = node.getRight();
+            if (right == null) {
+                return node;
+            }
+            int childCmp = entry.compareTo(right.getElement());
+            if (childCmp > 0) {
+                right.setRight(splay(right.getRight(), entry));
+                node = rotateLeft(node);
+            } else if (childCmp < 0) {
+                right.setLeft(splay(right.getLeft(), entry));
+                if (right.getLeft() != null) {
+                    node.setRight(rotateRight(right));
+                }
+            }
+            return (node.getRight() == null) ? node : rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotates the left child of node above it, keeping subtree sizes correct.
+     *
+     * @param node subtree root with a left child
+     * @return the new subtree root
+     */
+    private BSTreeNode<E> rotateRight(BSTreeNode<E> node) {
+        BSTreeNode<E> left = node.getLeft();
+        node.setLeft(left.getRight());
+        left.setRight(node);
+        node.updateSize();
+        left.updateSize();
+        return left;
+    }
+
+    /**
+     * Rotates the right child of node above it, keeping subtree sizes correct.
+     *
+     * @param node subtree root with a right child
+     * @return the new subtree root
+     */
+    private BSTreeNode<E> rotateLeft(BSTreeNode<E> node) {
+        BSTreeNode<E> right = node.getRight();
+        node.setRight(right.getLeft());
+        right.setLeft(node);
+        node.updateSize();
+        right.updateSize();
+        return right;
+    }
+}
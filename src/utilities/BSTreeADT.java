@@ -102,6 +102,16 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public BSTreeNode<E> removeMax();
 
+	/**
+	 * Removes the element equal to the given entry according to the natural
+	 * ordering established by the Comparable implementation.
+	 * 
+	 * @param entry the element being removed from the tree
+	 * @return the removed element or null if it is not in the tree
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public BSTreeNode<E> remove( E entry ) throws NullPointerException;
+
 	/**
 	 * Generates an in-order iteration over the contents of the tree. Elements are
 	 * in their natural order.
@@ -125,4 +135,91 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 * @return an iterator with the elements in a root element last order
 	 */
 	public Iterator<E> postorderIterator();
+
+	/**
+	 * Generates a lazy in-order iteration that begins at the smallest element
+	 * greater than or equal to the given element. The starting position is found
+	 * by an ordered descent of the tree, so callers that stop early (for example
+	 * once a prefix no longer matches) never visit the rest of the tree.
+	 * 
+	 * @param fromEntry the inclusive lower bound of the iteration
+	 * @return an iterator with the elements from the lower bound onwards in their
+	 *         natural order
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public Iterator<E> tailIterator( E fromEntry ) throws NullPointerException;
+
+	/**
+	 * Generates a lazy in-order iteration over the elements greater than or equal
+	 * to the first element and strictly less than the second. The start is found
+	 * in O(height) and elements are produced on demand, so a range can be paged
+	 * through without walking the whole tree.
+	 * 
+	 * @param fromEntry the inclusive lower bound, or null for no lower bound
+	 * @param toEntry the exclusive upper bound, or null for no upper bound
+	 * @return an iterator with the elements in the range in their natural order
+	 */
+	public Iterator<E> rangeIterator( E fromEntry, E toEntry );
+
+	/**
+	 * Returns the greatest element in the tree less than or equal to the given
+	 * element.
+	 * 
+	 * @param entry the element to compare against
+	 * @return the greatest element not greater than entry, or null if none exists
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public E floor( E entry ) throws NullPointerException;
+
+	/**
+	 * Returns the smallest element in the tree greater than or equal to the given
+	 * element.
+	 * 
+	 * @param entry the element to compare against
+	 * @return the smallest element not less than entry, or null if none exists
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public E ceiling( E entry ) throws NullPointerException;
+
+	/**
+	 * Returns the smallest element in the tree strictly greater than the given
+	 * element.
+	 * 
+	 * @param entry the element to compare against
+	 * @return the smallest element greater than entry, or null if none exists
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public E higher( E entry ) throws NullPointerException;
+
+	/**
+	 * Returns the greatest element in the tree strictly less than the given
+	 * element.
+	 * 
+	 * @param entry the element to compare against
+	 * @return the greatest element less than entry, or null if none exists
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public E lower( E entry ) throws NullPointerException;
+
+	/**
+	 * Counts the elements in the tree that are strictly less than the given
+	 * element. This is the zero-based position the element has, or would have,
+	 * in the natural ordering.
+	 * 
+	 * @param entry the element to rank
+	 * @return the number of elements less than entry
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public int rank( E entry ) throws NullPointerException;
+
+	/**
+	 * Retrieves the element at the given zero-based position of the natural
+	 * ordering without iterating from the smallest element.
+	 * 
+	 * @param index the position of the element in sorted order
+	 * @return the element at that position
+	 * @throws IndexOutOfBoundsException if index is negative or not less than the
+	 *         size of the tree
+	 */
+	public E select( int index ) throws IndexOutOfBoundsException;
 }
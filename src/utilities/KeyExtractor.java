@@ -0,0 +1,23 @@
+package utilities;
+
+import java.io.Serializable;
+
+/**
+ * This interface maps the elements of a data structure to the string keys it
+ * indexes them by. It is used by the string-keyed implementations of
+ * <code>BSTreeADT</code>, which compare keys character by character instead of
+ * calling <code>compareTo</code>. The natural ordering of the elements must
+ * agree with the ordering of their keys under <code>String.compareTo</code>.
+ *
+ * @param <E> The type of element the keys are extracted from.
+ */
+public interface KeyExtractor<E> extends Serializable
+{
+	/**
+	 * Returns the string key of the given element.
+	 *
+	 * @param element the element to extract the key from
+	 * @return the key of the element, never null
+	 */
+	public String keyOf( E element );
+}
@@ -0,0 +1,138 @@
+/**
+ * ArrayBSTreeTest.java
+ *
+ * Unit tests for the ArrayBSTree class to verify that the array-backed node
+ * pool behaves like a linked binary search tree, including slot reuse after
+ * removals and serialization of the flat arrays.
+ */
+
+package unitTests;
+
+import implementations.ArrayBSTree;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.Iterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the array-backed implementation of the BSTreeADT.
+ */
+public class ArrayBSTreeTest {
+    private ArrayBSTree<Integer> tree; // tree holding 44, 22, 66, 11, 55, 33, 77
+
+    /**
+     * Builds a balanced seven element tree before each test.
+     * Precondition: None.
+     * Postcondition: Tree holds seven elements with 44 at the root.
+     */
+    @Before
+    public void setUp() {
+        tree = new ArrayBSTree<>();
+        int[] values = { 44, 22, 66, 11, 55, 33, 77 };
+        for (int value : values) {
+            tree.add(value);
+        }
+    }
+
+    /**
+     * Tests size, height, root and duplicate handling.
+     * Precondition: Tree holds seven elements.
+     * Postcondition: Structure matches the equivalent linked tree.
+     */
+    @Test
+    public void testStructure() {
+        assertEquals(7, tree.size());
+        assertEquals(3, tree.getHeight());
+        assertEquals(44, tree.getRoot().getElement().intValue());
+        assertFalse(tree.add(33));
+        assertEquals(7, tree.size());
+        assertEquals(33, tree.select(2).intValue());
+    }
+
+    /**
+     * Tests the three traversal orders.
+     * Precondition: Tree holds seven elements.
+     * Postcondition: Orders match the equivalent linked tree.
+     */
+    @Test
+    public void testTraversals() {
+        assertOrder(new int[] { 11, 22, 33, 44, 55, 66, 77 }, tree.inorderIterator());
+        assertOrder(new int[] { 44, 22, 11, 33, 66, 55, 77 }, tree.preorderIterator());
+        assertOrder(new int[] { 11, 33, 22, 55, 77, 66, 44 }, tree.postorderIterator());
+        assertOrder(new int[] { 33, 44, 55 }, tree.rangeIterator(30, 60));
+    }
+
+    /**
+     * Tests that removed slots are reused and rank stays correct.
+     * Precondition: Tree holds seven elements.
+     * Postcondition: Elements added after removals are found in order.
+     */
+    @Test
+    public void testRemoveAndReuse() {
+        assertEquals(11, tree.removeMin().getElement().intValue());
+        assertEquals(77, tree.removeMax().getElement().intValue());
+        tree.add(10);
+        tree.add(80);
+        assertEquals(7, tree.size());
+        assertEquals(0, tree.rank(10));
+        assertEquals(6, tree.rank(80));
+        assertEquals(Integer.valueOf(22), tree.higher(10));
+        assertEquals(Integer.valueOf(66), tree.lower(80));
+    }
+
+    /**
+     * Tests that the tree survives a serialization round trip.
+     * Precondition: Tree holds seven elements.
+     * Postcondition: Copy holds the same elements and accepts new ones.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSerialization() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(tree);
+        }
+        ArrayBSTree<Integer> copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ArrayBSTree<Integer>) in.readObject();
+        }
+        assertTrue(copy.add(50));
+        assertOrder(new int[] { 11, 22, 33, 44, 50, 55, 66, 77 }, copy.inorderIterator());
+    }
+
+    /**
+     * Asserts that an iterator returns exactly the expected values.
+     */
+    private void assertOrder(int[] expected, Iterator<Integer> it) {
+        for (int value : expected) {
+            assertEquals(value, it.next().intValue());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Tests removal of inner slots, including the root, and reuse of the freed slots.
+     * Precondition: Tree holds seven elements.
+     * Postcondition: Order and ranks stay correct after removals.
+     */
+    @Test
+    public void testRemove() {
+        assertNull(tree.remove(50));
+        assertEquals(7, tree.size());
+        assertEquals(1, tree.rank(22));
+
+        assertEquals(44, tree.remove(44).getElement().intValue());
+        assertEquals(22, tree.remove(22).getElement().intValue());
+        assertEquals(55, tree.getRoot().getElement().intValue());
+        tree.add(20);
+        assertOrder(new int[] { 11, 20, 33, 55, 66, 77 }, tree.inorderIterator());
+        assertEquals(3, tree.rank(55));
+        assertEquals(Integer.valueOf(66), tree.select(4));
+    }
+}
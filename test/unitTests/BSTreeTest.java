@@ -607,4 +607,232 @@ public class BSTreeTest
 	{
 		assertNull( "Failed to return maximum value.", tree.removeMax() );
 	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#tailIterator(Comparable)} to
+	 * return the elements from the lower bound onwards in natural order.
+	 */
+	@Test
+	public void testTailIterator()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		Integer[] shouldBe = { three, four, five, six, seven };
+		Iterator<Integer> it = tree.tailIterator( 30 );
+		int i = 0;
+		while( it.hasNext() )
+		{
+			assertEquals( "Failed to return the correct tail element.", shouldBe[i++], it.next() );
+		}
+		assertEquals( "Failed to return every element in the tail.", shouldBe.length, i );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#tailIterator(Comparable)} to
+	 * return an empty iteration when the lower bound is above the maximum.
+	 */
+	@Test
+	public void testTailIterator_PastMaximum()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+
+		assertFalse( tree.tailIterator( 99 ).hasNext() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rangeIterator(Comparable, Comparable)}
+	 * to return only the elements in the half-open range.
+	 */
+	@Test
+	public void testRangeIterator()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		Integer[] shouldBe = { two, three, four, five };
+		Iterator<Integer> it = tree.rangeIterator( two, six );
+		int i = 0;
+		while( it.hasNext() )
+		{
+			assertEquals( "Failed to return the correct range element.", shouldBe[i++], it.next() );
+		}
+		assertEquals( "Failed to stop at the upper bound.", shouldBe.length, i );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#floor(Comparable)} and
+	 * {@link implementations.BSTree#ceiling(Comparable)} for present and absent
+	 * elements.
+	 */
+	@Test
+	public void testFloorAndCeiling()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+
+		assertEquals( "Failed to return exact floor.", four, tree.floor( four ) );
+		assertEquals( "Failed to return floor.", two, tree.floor( 40 ) );
+		assertNull( "Failed to return null floor.", tree.floor( 10 ) );
+		assertEquals( "Failed to return exact ceiling.", four, tree.ceiling( four ) );
+		assertEquals( "Failed to return ceiling.", six, tree.ceiling( 50 ) );
+		assertNull( "Failed to return null ceiling.", tree.ceiling( 70 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#higher(Comparable)} and
+	 * {@link implementations.BSTree#lower(Comparable)} to skip equal elements.
+	 */
+	@Test
+	public void testHigherAndLower()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+
+		assertEquals( "Failed to return higher.", six, tree.higher( four ) );
+		assertEquals( "Failed to return lower.", two, tree.lower( four ) );
+		assertNull( "Failed to return null higher.", tree.higher( six ) );
+		assertNull( "Failed to return null lower.", tree.lower( two ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rank(Comparable)} to count
+	 * the smaller elements for present and absent elements.
+	 */
+	@Test
+	public void testRank()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+
+		assertEquals( "Failed to rank the minimum.", 0, tree.rank( one ) );
+		assertEquals( "Failed to rank the root.", 2, tree.rank( four ) );
+		assertEquals( "Failed to rank an absent element.", 2, tree.rank( 30 ) );
+		assertEquals( "Failed to rank past the maximum.", 5, tree.rank( 99 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#select(int)} to return the
+	 * element at each position, including after removals.
+	 */
+	@Test
+	public void testSelect()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		Integer[] shouldBe = { one, two, three, four, five, six, seven };
+		for( int i = 0; i < shouldBe.length; i++ )
+		{
+			assertEquals( "Failed to select the correct element.", shouldBe[i], tree.select( i ) );
+		}
+
+		tree.removeMin();
+		tree.removeMax();
+		assertEquals( "Failed to select after removeMin.", two, tree.select( 0 ) );
+		assertEquals( "Failed to select after removeMax.", six, tree.select( 4 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#select(int)} to throw
+	 * IndexOutOfBoundsException for a position outside the tree.
+	 */
+	@Test
+	public void testSelect_IndexOutOfBoundsException()
+	{
+		tree.add( four );
+		try
+		{
+			tree.select( 1 );
+			fail( "Failed to throw IndexOutOfBoundsException." );
+		}
+		catch( IndexOutOfBoundsException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#setHashIndexed(boolean)} to
+	 * keep search results consistent through additions and removals.
+	 */
+	@Test
+	public void testSearch_HashIndexed()
+	{
+		tree.setHashIndexed( true );
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+
+		assertEquals( "Failed to find indexed element.", two, tree.search( two ).getElement() );
+		assertNull( "Failed to miss absent element.", tree.search( five ) );
+
+		tree.removeMin();
+		tree.removeMax();
+		assertFalse( tree.contains( one ) );
+		assertFalse( tree.contains( six ) );
+		assertTrue( tree.contains( four ) );
+
+		tree.clear();
+		assertFalse( tree.contains( four ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#remove(java.lang.Comparable)}
+	 * to remove leaves, nodes with one child, nodes with two children and the root.
+	 */
+	@Test
+	public void testRemove()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( three );
+		tree.add( five );
+		tree.add( seven );
+
+		assertNull( "Failed to ignore absent element.", tree.remove( 50 ) );
+		assertEquals( "Failed to keep size for absent element.", 7, tree.size() );
+
+		assertEquals( "Failed to remove leaf.", one, tree.remove( one ).getElement() );
+		assertEquals( "Failed to remove node with one child.", two, tree.remove( two ).getElement() );
+		assertEquals( "Failed to remove root.", four, tree.remove( four ).getElement() );
+		assertEquals( "Failed to promote successor.", five, tree.getRoot().getElement() );
+
+		assertEquals( 4, tree.size() );
+		assertFalse( tree.contains( four ) );
+		assertEquals( "Failed to keep ranks after removal.", 2, tree.rank( six ) );
+		assertEquals( "Failed to keep select after removal.", seven, tree.select( 3 ) );
+
+		Iterator<Integer> it = tree.inorderIterator();
+		assertEquals( three, it.next() );
+		assertEquals( five, it.next() );
+		assertEquals( six, it.next() );
+		assertEquals( seven, it.next() );
+		assertFalse( it.hasNext() );
+	}
 }
@@ -0,0 +1,152 @@
+/**
+ * BTreeTest.java
+ *
+ * Unit tests for the BTree class to verify that wide nodes keep the elements
+ * ordered through node splits, merges and borrowing, and that the ordered
+ * queries agree with java.util.TreeSet.
+ */
+
+package unitTests;
+
+import implementations.BTree;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.Iterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the B-tree implementation of the BSTreeADT.
+ */
+public class BTreeTest {
+    private BTree<Integer> tree;       // tree under test
+    private TreeSet<Integer> expected; // reference holding the same elements
+
+    /**
+     * Fills the tree and the reference set with the same 2000 shuffled numbers.
+     * Precondition: None.
+     * Postcondition: Both hold the even numbers from 0 to 3998.
+     */
+    @Before
+    public void setUp() {
+        tree = new BTree<>();
+        expected = new TreeSet<>();
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            values.add(i * 2);
+        }
+        Collections.shuffle(values, new Random(42));
+        for (int value : values) {
+            assertTrue(tree.add(value));
+            expected.add(value);
+        }
+    }
+
+    /**
+     * Tests that size, membership and duplicate rejection work after many splits.
+     * Precondition: Tree holds 2000 elements.
+     * Postcondition: Every element is found and odd numbers are not.
+     */
+    @Test
+    public void testAddAndSearch() {
+        assertEquals(2000, tree.size());
+        assertFalse(tree.add(10));
+        for (int i = 0; i < 4000; i++) {
+            assertEquals(i % 2 == 0, tree.contains(i));
+        }
+        assertTrue(tree.getHeight() <= 3);
+    }
+
+    /**
+     * Tests that the in-order iteration returns every element in order.
+     * Precondition: Tree holds 2000 elements.
+     * Postcondition: Iteration matches the reference set.
+     */
+    @Test
+    public void testInorderIterator() {
+        Iterator<Integer> it = tree.inorderIterator();
+        for (int value : expected) {
+            assertEquals(value, it.next().intValue());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Tests range iteration and the floor, ceiling, higher and lower queries.
+     * Precondition: Tree holds the even numbers.
+     * Postcondition: Results match the reference set.
+     */
+    @Test
+    public void testOrderedQueries() {
+        Iterator<Integer> it = tree.rangeIterator(101, 140);
+        for (int value : expected.subSet(101, 140)) {
+            assertEquals(value, it.next().intValue());
+        }
+        assertFalse(it.hasNext());
+
+        for (int i = -1; i < 4001; i += 7) {
+            assertEquals(expected.floor(i), tree.floor(i));
+            assertEquals(expected.ceiling(i), tree.ceiling(i));
+            assertEquals(expected.higher(i), tree.higher(i));
+            assertEquals(expected.lower(i), tree.lower(i));
+        }
+    }
+
+    /**
+     * Tests that rank and select agree with sorted positions.
+     * Precondition: Tree holds the even numbers.
+     * Postcondition: select(i) is 2i and rank(2i) is i.
+     */
+    @Test
+    public void testRankAndSelect() {
+        for (int i = 0; i < 2000; i += 13) {
+            assertEquals(i * 2, tree.select(i).intValue());
+            assertEquals(i, tree.rank(i * 2));
+            assertEquals(i + 1, tree.rank(i * 2 + 1));
+        }
+    }
+
+    /**
+     * Tests that repeated removal of the extremes rebalances nodes correctly.
+     * Precondition: Tree holds 2000 elements.
+     * Postcondition: Elements come out in order and the tree ends empty.
+     */
+    @Test
+    public void testRemoveMinAndMax() {
+        while (!expected.isEmpty()) {
+            assertEquals(expected.pollFirst(), tree.removeMin().getElement());
+            if (!expected.isEmpty()) {
+                assertEquals(expected.pollLast(), tree.removeMax().getElement());
+            }
+            if (expected.size() % 100 == 0 && !expected.isEmpty()) {
+                assertEquals(expected.first(), tree.select(0));
+            }
+        }
+        assertTrue(tree.isEmpty());
+        assertNull(tree.removeMin());
+    }
+
+    /**
+     * Tests that removing arbitrary elements keeps the tree in step with the reference set.
+     * Precondition: Tree holds the even numbers.
+     * Postcondition: Removed and absent elements are reported correctly and order is kept.
+     */
+    @Test
+    public void testRemove() {
+        Random random = new Random(3);
+        for (int i = 0; i < 3000; i++) {
+            int value = random.nextInt(4000);
+            Integer removed = tree.remove(value) == null ? null : value;
+            assertEquals(expected.remove(value) ? Integer.valueOf(value) : null, removed);
+        }
+        assertEquals(expected.size(), tree.size());
+        testInorderIterator();
+        testOrderedQueries();
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * BackgroundSaverTest.java
+ *
+ * Unit tests for the BackgroundSaver class to verify that no more than two
+ * snapshots are pending at a time, that a failed write is reported when the
+ * saver finishes, and that the index is only written once the shards are.
+ */
+
+package unitTests;
+
+import appDomain.BackgroundSaver;
+import appDomain.Repository;
+import appDomain.ShardedWordTree;
+import appDomain.Word;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the background repository saver.
+ */
+public class BackgroundSaverTest {
+    private File directory;        // directory holding the shard and index files
+    private ShardedWordTree tree;  // tree saved by the tests
+    private Repository repository; // repository around the tree
+
+    /**
+     * Creates a repository holding a few words in several shards.
+     * Precondition: None.
+     * Postcondition: Nothing is saved yet.
+     *
+     * @throws Exception if the temporary directory cannot be created
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("saver").toFile();
+        tree = new ShardedWordTree(new File(directory, "shards"), "bst");
+        for (String text : new String[] { "apple", "mango", "zebra" }) {
+            Word word = new Word(text);
+            word.addOccurrence("a.txt", 1);
+            tree.add(word);
+        }
+        repository = new Repository(tree, true);
+    }
+
+    /**
+     * Deletes every file written by the tests.
+     * Precondition: None.
+     * Postcondition: The temporary directory is removed.
+     */
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    /**
+     * Tests that a third save waits until the oldest pending one is on disk.
+     * Precondition: Repository is not saved.
+     * Postcondition: The third save returns only after the first is committed, and every save succeeds.
+     *
+     * @throws Exception if the repository cannot be saved
+     */
+    @Test
+    public void testThirdSaveBlocks() throws Exception {
+        BackgroundSaver saver = new BackgroundSaver(new File(directory, "index.ser"));
+        CountDownLatch release = new CountDownLatch(1);
+        saver.save(repository, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        saver.save(repository);
+
+        AtomicBoolean saved = new AtomicBoolean();
+        Thread third = new Thread(() -> {
+            try {
+                saver.save(repository);
+                saved.set(true);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        third.start();
+        third.join(300);
+        assertTrue(third.isAlive());
+        assertFalse(saved.get());
+
+        release.countDown();
+        third.join(TimeUnit.SECONDS.toMillis(30));
+        assertTrue(saved.get());
+        assertTrue(saver.finish());
+    }
+
+    /**
+     * Tests that an error of the writer thread is reported by finish.
+     * Precondition: The index cannot be written because its directory does not exist.
+     * Postcondition: finish returns false and the commit task does not run.
+     *
+     * @throws Exception if the repository cannot be serialized
+     */
+    @Test
+    public void testFailureReported() throws Exception {
+        BackgroundSaver saver = new BackgroundSaver(new File(directory, "missing" + File.separator + "index.ser"));
+        AtomicBoolean committed = new AtomicBoolean();
+        saver.save(repository, () -> committed.set(true));
+        assertFalse(saver.finish());
+        assertFalse(committed.get());
+    }
+
+    /**
+     * Tests that the index is written only after every shard, and not at all if a shard cannot be written.
+     * Precondition: Repository is not saved.
+     * Postcondition: A failed shard write leaves no index; a successful save commits the index last.
+     *
+     * @throws Exception if the files cannot be used
+     */
+    @Test
+    public void testIndexCommittedAfterShards() throws Exception {
+        File index = new File(directory, "index.ser");
+        File shards = new File(directory, "shards");
+        assertTrue(shards.createNewFile()); // a file in place of the shard directory
+        BackgroundSaver failing = new BackgroundSaver(index);
+        failing.save(repository);
+        assertFalse(failing.finish());
+        assertFalse(index.exists());
+
+        assertTrue(shards.delete());
+        BackgroundSaver saver = new BackgroundSaver(index);
+        AtomicBoolean complete = new AtomicBoolean();
+        saver.save(repository, () -> {
+            String[] names = shards.list();
+            complete.set(index.exists() && names != null && names.length > 0);
+        });
+        assertTrue(saver.finish());
+        assertTrue(complete.get());
+    }
+
+    /**
+     * Deletes a file or a directory with everything in it.
+     */
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
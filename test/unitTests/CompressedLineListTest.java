@@ -0,0 +1,73 @@
+/**
+ * CompressedLineListTest.java
+ *
+ * Unit tests for the CompressedLineList class to verify that delta encoded
+ * line numbers read back unchanged, in order and after serialization.
+ */
+
+package unitTests;
+
+import appDomain.CompressedLineList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the compressed list of line numbers.
+ */
+public class CompressedLineListTest {
+
+    /**
+     * Tests that ascending, repeated, backwards and large line numbers are all kept.
+     * Precondition: None.
+     * Postcondition: The list equals an ArrayList holding the same numbers.
+     */
+    @Test
+    public void testAddAndGet() {
+        List<Integer> expected = Arrays.asList(1, 2, 2, 7, 1, 3, 200000, 5, Integer.MAX_VALUE);
+        List<Integer> lines = new CompressedLineList();
+        lines.addAll(expected);
+
+        assertEquals(expected.size(), lines.size());
+        assertEquals(expected, lines);
+        assertEquals(Integer.valueOf(200000), lines.get(6));
+        assertEquals(Integer.valueOf(2), lines.get(1));
+        assertEquals(expected.toString(), lines.toString());
+    }
+
+    /**
+     * Tests that a list survives serialization and can still be appended to.
+     * Precondition: None.
+     * Postcondition: The restored list matches the original and grows correctly.
+     *
+     * @throws Exception if serialization fails
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSerialization() throws Exception {
+        List<Integer> lines = new CompressedLineList();
+        for (int i = 1; i <= 1000; i++) {
+            lines.add(i * 3);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(lines);
+        }
+        List<Integer> restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (List<Integer>) in.readObject();
+        }
+
+        assertEquals(lines, restored);
+        restored.add(3001);
+        assertEquals(Integer.valueOf(3001), restored.get(1000));
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * LsmWordIndexTest.java
+ *
+ * Unit tests for the LsmWordIndex class to verify that words flushed to
+ * sorted runs, merged in the background and still held in memory are read
+ * back as one ordered repository, and that removed files stay removed.
+ */
+
+package unitTests;
+
+import appDomain.LsmWordIndex;
+import appDomain.Word;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.Iterator;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the LSM word index.
+ */
+public class LsmWordIndexTest {
+    private File directory;   // directory holding the runs and manifest
+    private LsmWordIndex lsm; // index under test, flushing every four occurrences
+
+    /**
+     * Adds a few words from two files, spread over a run and the memtable.
+     * Precondition: None.
+     * Postcondition: Index holds "apple", "banana" and "cherry" in one run and the memtable.
+     *
+     * @throws Exception if the temporary directory cannot be used
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("lsm").toFile();
+        lsm = LsmWordIndex.open(directory, 4);
+        lsm.addOccurrence("banana", "a.txt", 1);
+        lsm.addOccurrence("apple", "a.txt", 2);
+        lsm.addOccurrence("banana", "b.txt", 300);
+        lsm.addOccurrence("cherry", "b.txt", 4);
+        lsm.addOccurrence("banana", "a.txt", 5);
+    }
+
+    /**
+     * Closes the index and deletes its files.
+     * Precondition: None.
+     * Postcondition: The temporary directory is removed.
+     *
+     * @throws Exception if the index cannot be closed
+     */
+    @After
+    public void tearDown() throws Exception {
+        lsm.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Tests that a lookup merges the postings of a word from a run and the memtable.
+     * Precondition: Index holds three words, banana both in a run and in memory.
+     * Postcondition: Postings of a file split by the flush are joined in order.
+     *
+     * @throws Exception if the index cannot be read
+     */
+    @Test
+    public void testGet() throws Exception {
+        assertEquals(1, lsm.runCount());
+        Word banana = lsm.get("Banana");
+        assertEquals(Arrays.asList(1, 5), banana.getOccurrences().get("a.txt"));
+        assertEquals(Arrays.asList(300), banana.getOccurrences().get("b.txt"));
+        assertEquals(3, banana.getFrequency());
+        assertNull(lsm.get("date"));
+    }
+
+    /**
+     * Tests ordered and range iteration across the run and the memtable.
+     * Precondition: Index holds three words.
+     * Postcondition: Words are returned once each, alphabetically, and the range stops at its bound.
+     *
+     * @throws Exception if the index cannot be read
+     */
+    @Test
+    public void testIterators() throws Exception {
+        assertWords(lsm.inorderIterator(), "apple", "banana", "cherry");
+        lsm.addOccurrence("apricot", "a.txt", 9);
+        assertWords(lsm.rangeIterator("ap", "aq"), "apple", "apricot");
+        assertWords(lsm.rangeIterator("b", null), "banana", "cherry");
+    }
+
+    /**
+     * Tests that a removed file disappears from runs and memtable, and that reading it again
+     * is not hidden by the tombstone.
+     * Precondition: Index holds three words.
+     * Postcondition: Words found only in the removed file are gone until it is added again.
+     *
+     * @throws Exception if the index cannot be read
+     */
+    @Test
+    public void testRemoveFile() throws Exception {
+        assertTrue(lsm.removeFile("a.txt"));
+        assertFalse(lsm.removeFile("a.txt"));
+        assertNull(lsm.get("apple"));
+        assertEquals(Arrays.asList(300), lsm.get("banana").getOccurrences().get("b.txt"));
+        assertNull(lsm.get("banana").getOccurrences().get("a.txt"));
+        assertWords(lsm.inorderIterator(), "banana", "cherry");
+
+        lsm.addOccurrence("apple", "a.txt", 7);
+        lsm.flush();
+        assertEquals(Arrays.asList(7), lsm.get("apple").getOccurrences().get("a.txt"));
+    }
+
+    /**
+     * Tests that re-reading a file keeps the lines other files hold of a shared word,
+     * both in the memtable and in a run.
+     * Precondition: Index holds three words.
+     * Postcondition: Shared words keep the other file's lines and get the re-read file's new lines.
+     *
+     * @throws Exception if the index cannot be read
+     */
+    @Test
+    public void testRemoveSharedWord() throws Exception {
+        lsm.addOccurrence("cherry", "a.txt", 6);
+        lsm.addOccurrence("cherry", "b.txt", 8);
+        assertEquals(1, lsm.runCount());
+        assertTrue(lsm.removeFile("a.txt"));
+        assertEquals(Arrays.asList(4, 8), lsm.get("cherry").getOccurrences().get("b.txt"));
+        assertEquals(Arrays.asList(300), lsm.get("banana").getOccurrences().get("b.txt"));
+
+        lsm.addOccurrence("cherry", "a.txt", 2);
+        Word cherry = lsm.get("cherry");
+        assertEquals(Arrays.asList(4, 8), cherry.getOccurrences().get("b.txt"));
+        assertEquals(Arrays.asList(2), cherry.getOccurrences().get("a.txt"));
+        assertWords(lsm.inorderIterator(), "banana", "cherry");
+    }
+
+    /**
+     * Tests that many runs are merged in the background and everything survives a reopen.
+     * Precondition: Index holds three words.
+     * Postcondition: The reopened index holds fewer runs and the same words.
+     *
+     * @throws Exception if the index cannot be used
+     */
+    @Test
+    public void testMergeAndReopen() throws Exception {
+        for (int i = 0; i < 400; i++) {
+            lsm.addOccurrence("word" + (i % 50), "c.txt", i + 1);
+        }
+        lsm.removeFile("b.txt");
+        lsm.close();
+
+        lsm = LsmWordIndex.open(directory, 4);
+        assertTrue(lsm.runCount() < 100);
+        assertEquals(8, lsm.get("word7").getFrequency());
+        assertEquals(Arrays.asList(8, 58, 108, 158, 208, 258, 308, 358),
+                lsm.get("word7").getOccurrences().get("c.txt"));
+        assertNull(lsm.get("cherry"));
+        assertNull(lsm.get("word50"));
+        assertEquals(Arrays.asList(1, 5), lsm.get("banana").getOccurrences().get("a.txt"));
+        assertWords(lsm.rangeIterator("word48", "word5"), "word48", "word49");
+    }
+
+    /**
+     * Tests that merging small runs leaves a large older run untouched.
+     * Precondition: Index holds two small runs once reopened.
+     * Postcondition: The four newest small runs are merged into one and the large run file is kept.
+     *
+     * @throws Exception if the index cannot be used
+     */
+    @Test
+    public void testSmallRunsMergeWithoutLargeRun() throws Exception {
+        lsm.close();
+        lsm = LsmWordIndex.open(directory, 1000);
+        for (int i = 0; i < 999; i++) {
+            lsm.addOccurrence("large" + i, "c.txt", i + 1);
+        }
+        lsm.flush();
+        File large = null;
+        for (File file : directory.listFiles()) {
+            if (file.getName().endsWith(".lsm") && (large == null || file.length() > large.length())) {
+                large = file;
+            }
+        }
+        long modified = large.lastModified();
+        int before = lsm.runCount();
+
+        for (int i = 0; i < 4; i++) {
+            lsm.addOccurrence("small" + i, "d.txt", i + 1);
+            lsm.flush();
+        }
+        lsm.close();
+
+        lsm = LsmWordIndex.open(directory, 1000);
+        assertEquals(before + 1, lsm.runCount());
+        assertTrue(large.exists());
+        assertEquals(modified, large.lastModified());
+        assertEquals(Arrays.asList(500), lsm.get("large499").getOccurrences().get("c.txt"));
+        assertWords(lsm.rangeIterator("small", null), "small0", "small1", "small2", "small3");
+    }
+
+    /**
+     * Checks that an iterator returns exactly the given words.
+     */
+    private void assertWords(Iterator<Word> iterator, String... expected) {
+        for (String text : expected) {
+            assertTrue(iterator.hasNext());
+            assertEquals(text, iterator.next().getWordText());
+        }
+        assertFalse(iterator.hasNext());
+    }
+}
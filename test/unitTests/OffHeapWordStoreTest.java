@@ -0,0 +1,187 @@
+/**
+ * OffHeapWordStoreTest.java
+ *
+ * Unit tests for the OffHeapWordStore class to verify that words and postings
+ * packed into direct memory come back as the same Word objects the trees
+ * hold, in alphabetical order, and survive a save and load.
+ */
+
+package unitTests;
+
+import appDomain.OffHeapWordStore;
+import appDomain.Word;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.Iterator;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the off-heap word store.
+ */
+public class OffHeapWordStoreTest {
+    private OffHeapWordStore store; // store under test
+
+    /**
+     * Adds a few words from two files.
+     * Precondition: None.
+     * Postcondition: Store holds "apple", "banana" and "cherry".
+     */
+    @Before
+    public void setUp() {
+        store = new OffHeapWordStore();
+        store.addOccurrence("banana", "a.txt", 1);
+        store.addOccurrence("apple", "a.txt", 2);
+        store.addOccurrence("banana", "b.txt", 300);
+        store.addOccurrence("cherry", "b.txt", 4);
+        store.addOccurrence("banana", "a.txt", 5);
+    }
+
+    /**
+     * Tests that lookups rebuild the word with all of its occurrences.
+     * Precondition: Store holds three words.
+     * Postcondition: Postings are returned per file in insertion order.
+     */
+    @Test
+    public void testGet() {
+        assertEquals(3, store.size());
+        Word banana = store.get("Banana");
+        assertEquals("banana", banana.getWordText());
+        assertEquals(Arrays.asList(1, 5), banana.getOccurrences().get("a.txt"));
+        assertEquals(Arrays.asList(300), banana.getOccurrences().get("b.txt"));
+        assertEquals(3, banana.getFrequency());
+        assertNull(store.get("date"));
+    }
+
+    /**
+     * Tests ordered and range iteration, including words added after a first iteration.
+     * Precondition: Store holds three words.
+     * Postcondition: Words are returned alphabetically and the range stops at its bound.
+     */
+    @Test
+    public void testIterators() {
+        assertWords(store.inorderIterator(), "apple", "banana", "cherry");
+        store.addOccurrence("apricot", "a.txt", 9);
+        assertWords(store.rangeIterator("ap", "aq"), "apple", "apricot");
+        assertWords(store.rangeIterator("b", null), "banana", "cherry");
+    }
+
+    /**
+     * Tests that a removed file is replaced when read again, also after a save and load.
+     * Precondition: Store holds three words.
+     * Postcondition: Shared words keep the other file's lines and words only in the file are gone.
+     *
+     * @throws Exception if the temporary file cannot be used
+     */
+    @Test
+    public void testRemoveFile() throws Exception {
+        assertTrue(store.removeFile("a.txt"));
+        assertFalse(store.removeFile("a.txt"));
+        assertNull(store.get("apple"));
+        assertEquals(2, store.size());
+        assertNull(store.get("banana").getOccurrences().get("a.txt"));
+        assertEquals(Arrays.asList(300), store.get("banana").getOccurrences().get("b.txt"));
+        assertWords(store.inorderIterator(), "banana", "cherry");
+
+        store.addOccurrence("banana", "a.txt", 7);
+        store.addOccurrence("apple", "a.txt", 8);
+        File file = File.createTempFile("offheap", ".dat");
+        try {
+            store.save(file);
+            OffHeapWordStore loaded = OffHeapWordStore.load(file);
+            assertEquals(Arrays.asList(7), loaded.get("banana").getOccurrences().get("a.txt"));
+            assertEquals(Arrays.asList(300), loaded.get("banana").getOccurrences().get("b.txt"));
+            assertEquals(Arrays.asList(8), loaded.get("apple").getOccurrences().get("a.txt"));
+            assertTrue(loaded.removeFile("b.txt"));
+            assertWords(loaded.inorderIterator(), "apple", "banana");
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that re-reading files many times keeps every other word reachable and
+     * does not grow the saved repository.
+     * Precondition: Store holds three words.
+     * Postcondition: Words of the other files are all found and the compacted file keeps its size.
+     *
+     * @throws Exception if the temporary file cannot be used
+     */
+    @Test
+    public void testRemoveFileBoundsGrowth() throws Exception {
+        for (int i = 0; i < 5000; i++) {
+            store.addOccurrence("word" + i, (i % 2 == 0) ? "even.txt" : "odd.txt", i + 1);
+        }
+        File file = File.createTempFile("offheap", ".dat");
+        try {
+            long[] lengths = new long[2];
+            for (int round = 0; round < 2; round++) {
+                for (int reread = 0; reread < 5; reread++) {
+                    assertTrue(store.removeFile("odd.txt"));
+                    assertEquals(2503, store.size());
+                    for (int i = 1; i < 5000; i += 2) {
+                        store.addOccurrence("word" + i, "odd.txt", i + 1);
+                    }
+                }
+                store.save(file);
+                lengths[round] = file.length();
+            }
+            assertEquals(lengths[0], lengths[1]);
+
+            OffHeapWordStore loaded = OffHeapWordStore.load(file);
+            assertEquals(5003, loaded.size());
+            assertTrue(loaded.removeFile("even.txt"));
+            for (int i = 0; i < 5000; i++) {
+                Word word = loaded.get("word" + i);
+                if (i % 2 == 0) {
+                    assertNull(word);
+                } else {
+                    assertEquals(Arrays.asList(i + 1), word.getOccurrences().get("odd.txt"));
+                }
+            }
+            assertEquals(Arrays.asList(300), loaded.get("banana").getOccurrences().get("b.txt"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that many words and long posting chains spanning several arena chunks survive a round trip.
+     * Precondition: None.
+     * Postcondition: The loaded store matches the saved one.
+     *
+     * @throws Exception if the temporary file cannot be used
+     */
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        for (int i = 0; i < 1000000; i++) {
+            store.addOccurrence("word" + (i % 50000), "c.txt", i + 1);
+        }
+        File file = File.createTempFile("offheap", ".dat");
+        try {
+            store.save(file);
+            OffHeapWordStore loaded = OffHeapWordStore.load(file);
+            assertEquals(store.size(), loaded.size());
+            assertEquals(store.get("word123").getOccurrences(), loaded.get("word123").getOccurrences());
+            assertEquals(20, loaded.get("word49999").getFrequency());
+            assertEquals(Arrays.asList(300), loaded.get("banana").getOccurrences().get("b.txt"));
+            assertWords(loaded.rangeIterator("c", "word0"), "cherry");
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Checks that an iterator returns exactly the given words.
+     */
+    private void assertWords(Iterator<Word> iterator, String... expected) {
+        for (String text : expected) {
+            assertTrue(iterator.hasNext());
+            assertEquals(text, iterator.next().getWordText());
+        }
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * PostingCacheTest.java
+ *
+ * Unit tests for the PostingCache class to verify that a cache filled past
+ * its byte bound drops the least recently read records first, keeps records
+ * read again recently, and counts its hits, misses and evictions. Records are
+ * read through the words of a saved and reloaded sharded tree, with the
+ * shared cache resized for each test.
+ */
+
+package unitTests;
+
+import appDomain.PostingCache;
+import appDomain.ShardedWordTree;
+import appDomain.Word;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the byte-bounded LRU posting cache.
+ */
+public class PostingCacheTest {
+    private static final String[] WORDS = { "almond", "apple", "apricot", "avocado" };
+
+    private File directory;     // directory holding the shard files
+    private Word[] words;       // saved words whose occurrences are read through the cache
+    private PostingCache cache; // shared cache under test
+    private long capacity;      // capacity of the shared cache before the test
+
+    /**
+     * Saves four words of the same shard, each on one line of "x.txt", and reads the tree back.
+     * Precondition: None.
+     * Postcondition: Word i holds line i + 1 of "x.txt", not yet decoded, and the shared cache is empty.
+     *
+     * @throws Exception if the tree cannot be saved or read back
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("postings").toFile();
+        ShardedWordTree tree = new ShardedWordTree(directory, "bst");
+        for (int i = 0; i < WORDS.length; i++) {
+            Word word = new Word(WORDS[i]);
+            word.addOccurrence("x.txt", i + 1);
+            tree.add(word);
+        }
+        tree.save();
+        File index = new File(directory, "index.ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(index))) {
+            out.writeObject(tree);
+        }
+        ShardedWordTree reloaded;
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(index))) {
+            reloaded = (ShardedWordTree) in.readObject();
+        }
+        reloaded.attach(directory, null);
+        words = new Word[WORDS.length];
+        for (int i = 0; i < WORDS.length; i++) {
+            words[i] = reloaded.search(new Word(WORDS[i])).getElement();
+        }
+
+        cache = PostingCache.shared();
+        capacity = cache.capacity();
+        cache.setCapacity(0);
+    }
+
+    /**
+     * Restores the shared cache and deletes the shard files.
+     * Precondition: None.
+     * Postcondition: The shared cache has its former capacity and the temporary directory is removed.
+     */
+    @After
+    public void tearDown() {
+        cache.setCapacity(capacity);
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Tests that a cache with room for three records evicts the least recently read one.
+     * Precondition: The four words have records of equal weight.
+     * Postcondition: The record read again survives, the oldest is dropped and the counters match.
+     */
+    @Test
+    public void testEviction() {
+        cache.setCapacity(Long.MAX_VALUE);
+        read(0);
+        long weight = cache.bytes();
+        assertTrue(weight > 0);
+        cache.setCapacity(0); // empty again
+
+        cache.setCapacity(3 * weight);
+        long hits = cache.hits();
+        long misses = cache.misses();
+        long evictions = cache.evictions();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Arrays.asList(i + 1), read(i));
+        }
+        assertEquals(misses + 3, cache.misses());
+        assertEquals(3 * weight, cache.bytes());
+
+        read(0); // record 0 is now the most recent, record 1 the oldest
+        read(3);
+        assertEquals(hits + 1, cache.hits());
+        assertEquals(misses + 4, cache.misses());
+        assertEquals(evictions + 1, cache.evictions());
+        assertTrue(cache.bytes() <= cache.capacity());
+
+        read(0);
+        assertEquals(hits + 2, cache.hits());
+        assertEquals(Arrays.asList(2), read(1));
+        assertEquals(misses + 5, cache.misses());
+        assertEquals(evictions + 2, cache.evictions());
+        assertEquals(3 * weight, cache.bytes());
+    }
+
+    /**
+     * Tests that a record heavier than the whole cache is returned but not kept.
+     * Precondition: The four words have records.
+     * Postcondition: The cache stays empty and every read is a miss.
+     */
+    @Test
+    public void testOversizedRecord() {
+        cache.setCapacity(1);
+        long hits = cache.hits();
+        long misses = cache.misses();
+        long evictions = cache.evictions();
+        assertEquals(Arrays.asList(1), read(0));
+        read(0);
+        assertEquals(hits, cache.hits());
+        assertEquals(misses + 2, cache.misses());
+        assertEquals(evictions, cache.evictions());
+        assertEquals(0, cache.bytes());
+    }
+
+    /**
+     * Reads the lines of word i in "x.txt" through the cache.
+     */
+    private List<Integer> read(int i) {
+        return words[i].getOccurrences().get("x.txt");
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * PostingListTest.java
+ *
+ * Unit tests for the PostingList class to verify conversion from words and the
+ * boolean and proximity merges used by multi-word queries, and that query
+ * words are normalized like the indexed text.
+ */
+
+package unitTests;
+
+import appDomain.PostingList;
+import appDomain.Tokenizer;
+import appDomain.Word;
+import appDomain.WordQuery;
+import implementations.BSTree;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests posting list merging.
+ */
+public class PostingListTest {
+    private PostingList hello;  // postings of "hello"
+    private PostingList kitty;  // postings of "kitty"
+
+    /**
+     * Builds two words spread over three files before each test.
+     * Precondition: None.
+     * Postcondition: hello appears in a.txt and b.txt, kitty in a.txt and c.txt.
+     */
+    @Before
+    public void setUp() {
+        Word helloWord = new Word("hello");
+        helloWord.addOccurrence("a.txt", 1);
+        helloWord.addOccurrence("a.txt", 5);
+        helloWord.addOccurrence("b.txt", 2);
+        hello = PostingList.of(helloWord);
+
+        Word kittyWord = new Word("kitty");
+        kittyWord.addOccurrence("a.txt", 2);
+        kittyWord.addOccurrence("a.txt", 1);
+        kittyWord.addOccurrence("c.txt", 7);
+        kitty = PostingList.of(kittyWord);
+    }
+
+    /**
+     * Tests that a word's postings are sorted and de-duplicated.
+     * Precondition: Word has unsorted and repeated line numbers.
+     * Postcondition: Posting list holds each line once in ascending order.
+     */
+    @Test
+    public void testOfSortsAndDeduplicates() {
+        Word word = new Word("again");
+        word.addOccurrence("a.txt", 3);
+        word.addOccurrence("a.txt", 1);
+        word.addOccurrence("a.txt", 3);
+        PostingList list = PostingList.of(word);
+        assertEquals(2, list.size());
+        assertEquals(Arrays.asList(1, 3), list.toMap().get("a.txt"));
+        assertTrue(PostingList.of(null).isEmpty());
+    }
+
+    /**
+     * Tests that AND keeps only files containing both words.
+     * Precondition: Words share a.txt only.
+     * Postcondition: Result holds the a.txt postings of both words.
+     */
+    @Test
+    public void testAnd() {
+        Map<String, List<Integer>> result = hello.and(kitty).toMap();
+        assertEquals(1, result.size());
+        assertEquals(Arrays.asList(1, 2, 5), result.get("a.txt"));
+    }
+
+    /**
+     * Tests that OR and NOT work at file level.
+     * Precondition: Words cover three files between them.
+     * Postcondition: OR covers all files, NOT leaves only b.txt.
+     */
+    @Test
+    public void testOrAndNot() {
+        assertEquals(3, hello.or(kitty).toMap().size());
+        Map<String, List<Integer>> result = hello.andNot(kitty).toMap();
+        assertEquals(1, result.size());
+        assertTrue(result.containsKey("b.txt"));
+    }
+
+    /**
+     * Tests that LINE and NEAR compare line numbers within shared files.
+     * Precondition: Both words are on line 1 of a.txt, kitty also on line 2.
+     * Postcondition: LINE matches line 1 only, NEAR also includes line 2.
+     */
+    @Test
+    public void testSameLineAndNear() {
+        assertEquals(Arrays.asList(1), hello.sameLine(kitty).toMap().get("a.txt"));
+        assertEquals(Arrays.asList(1, 2), hello.near(kitty, 1).toMap().get("a.txt"));
+    }
+
+    /**
+     * Tests that intersections of long lists are correct when skip pointers are followed.
+     * Precondition: Two long lists overlapping on every third line.
+     * Postcondition: LINE returns exactly the shared lines.
+     */
+    @Test
+    public void testSameLineWithSkips() {
+        Word even = new Word("even");
+        Word third = new Word("third");
+        for (int line = 1; line <= 300; line++) {
+            if (line % 2 == 0) {
+                even.addOccurrence("big.txt", line);
+            }
+            if (line % 3 == 0) {
+                third.addOccurrence("big.txt", line);
+            }
+        }
+        PostingList result = PostingList.of(even).sameLine(PostingList.of(third));
+        assertEquals(50, result.size());
+        assertEquals(6, result.toMap().get("big.txt").get(0).intValue());
+    }
+
+    /**
+     * Tests that query words are normalized by the tokenizer the repository was built with.
+     * Precondition: Tree holds stemmed words.
+     * Postcondition: Plural and capitalized query words find their stems.
+     */
+    @Test
+    public void testQueryUsesTokenizer() {
+        BSTree<Word> tree = new BSTree<>();
+        Word cat = new Word("cat");
+        cat.addOccurrence("a.txt", 1);
+        tree.add(cat);
+        Word hat = new Word("hat");
+        hat.addOccurrence("a.txt", 1);
+        hat.addOccurrence("b.txt", 2);
+        tree.add(hat);
+
+        Tokenizer tokenizer = new Tokenizer().addStage(Tokenizer.STEM);
+        assertEquals(Arrays.asList(1), WordQuery.evaluate(tree, "Cats LINE hats", tokenizer).toMap().get("a.txt"));
+        assertTrue(WordQuery.evaluate(tree, "Cats LINE hats").isEmpty());
+        assertEquals(2, WordQuery.evaluate(tree, "CAT OR hat").toMap().size());
+    }
+}
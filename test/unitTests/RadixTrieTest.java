@@ -0,0 +1,167 @@
+/**
+ * RadixTrieTest.java
+ *
+ * Unit tests for the RadixTrie class to verify that edge splitting and
+ * re-compression keep the words ordered, and that the ordered queries agree
+ * with java.util.TreeSet on keys with heavy prefix overlap.
+ */
+
+package unitTests;
+
+import implementations.RadixTrie;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.Iterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the radix trie implementation of the BSTreeADT.
+ */
+public class RadixTrieTest {
+    private RadixTrie<String> trie;   // trie under test
+    private TreeSet<String> expected; // reference holding the same words
+
+    /**
+     * Fills the trie and the reference set with words that share many prefixes.
+     * Precondition: None.
+     * Postcondition: Both hold every word of up to three letters over "abc", except the empty word.
+     */
+    @Before
+    public void setUp() {
+        trie = new RadixTrie<>(s -> s);
+        expected = new TreeSet<>();
+        List<String> words = new ArrayList<>();
+        for (String a : new String[] { "a", "b", "c" }) {
+            words.add(a);
+            for (String b : new String[] { "a", "b", "c" }) {
+                words.add(a + b);
+                for (String c : new String[] { "a", "b", "c" }) {
+                    words.add(a + b + c);
+                }
+            }
+        }
+        words.add("cabbage");
+        words.add("cabin");
+        Collections.shuffle(words, new Random(7));
+        for (String word : words) {
+            assertTrue(trie.add(word));
+            expected.add(word);
+        }
+    }
+
+    /**
+     * Tests that size, membership and duplicate rejection work after edge splits.
+     * Precondition: Trie holds 41 words.
+     * Postcondition: Every word is found and partial labels are not.
+     */
+    @Test
+    public void testAddAndSearch() {
+        assertEquals(41, trie.size());
+        assertFalse(trie.add("cab"));
+        assertTrue(trie.contains("cabin"));
+        assertFalse(trie.contains("cabi"));
+        assertFalse(trie.contains("cabins"));
+        assertFalse(trie.contains("d"));
+        assertEquals("cabbage", trie.search("cabbage").getElement());
+    }
+
+    /**
+     * Tests that the in-order iteration returns every word in order.
+     * Precondition: Trie holds 41 words.
+     * Postcondition: Iteration matches the reference set.
+     */
+    @Test
+    public void testInorderIterator() {
+        Iterator<String> it = trie.inorderIterator();
+        for (String word : expected) {
+            assertEquals(word, it.next());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Tests prefix ranges, tail iteration and the floor, ceiling, higher and lower queries.
+     * Precondition: Trie holds 41 words.
+     * Postcondition: Results match the reference set.
+     */
+    @Test
+    public void testOrderedQueries() {
+        Iterator<String> it = trie.rangeIterator("ca", "cb");
+        for (String word : expected.subSet("ca", "cb")) {
+            assertEquals(word, it.next());
+        }
+        assertFalse(it.hasNext());
+
+        it = trie.tailIterator("cabc");
+        for (String word : expected.tailSet("cabc")) {
+            assertEquals(word, it.next());
+        }
+        assertFalse(it.hasNext());
+
+        for (String probe : new String[] { "", "a", "aab", "abd", "b", "bz", "cab", "caba", "cabd", "cc", "d" }) {
+            assertEquals(expected.floor(probe), trie.floor(probe));
+            assertEquals(expected.ceiling(probe), trie.ceiling(probe));
+            assertEquals(expected.higher(probe), trie.higher(probe));
+            assertEquals(expected.lower(probe), trie.lower(probe));
+        }
+    }
+
+    /**
+     * Tests that rank and select agree with sorted positions.
+     * Precondition: Trie holds 41 words.
+     * Postcondition: select and rank are inverse to each other.
+     */
+    @Test
+    public void testRankAndSelect() {
+        int index = 0;
+        for (String word : expected) {
+            assertEquals(word, trie.select(index));
+            assertEquals(index, trie.rank(word));
+            index++;
+        }
+        assertEquals(expected.headSet("cabb").size(), trie.rank("cabb"));
+    }
+
+    /**
+     * Tests that removing the extremes re-compresses the trie correctly.
+     * Precondition: Trie holds 41 words.
+     * Postcondition: Words come out in order and the trie ends empty.
+     */
+    @Test
+    public void testRemoveMinAndMax() {
+        while (!expected.isEmpty()) {
+            assertEquals(expected.pollFirst(), trie.removeMin().getElement());
+            if (!expected.isEmpty()) {
+                assertEquals(expected.pollLast(), trie.removeMax().getElement());
+                assertEquals(expected.first(), trie.select(0));
+                assertFalse(trie.contains(expected.first() + "z"));
+            }
+        }
+        assertTrue(trie.isEmpty());
+        assertNull(trie.removeMin());
+    }
+
+    /**
+     * Tests that removing words from the middle of shared prefixes keeps the trie compressed and ordered.
+     * Precondition: Trie holds 41 words.
+     * Postcondition: The trie matches the reference set after each removal.
+     */
+    @Test
+    public void testRemove() {
+        for (String word : new String[] { "cab", "ca", "c", "cabin", "zzz", "aaa", "cabbage" }) {
+            assertEquals(expected.remove(word), trie.remove(word) != null);
+            assertEquals(expected.size(), trie.size());
+        }
+        assertFalse(trie.contains("cab"));
+        assertTrue(trie.contains("cac"));
+        testInorderIterator();
+        testRankAndSelect();
+    }
+}
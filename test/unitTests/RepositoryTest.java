@@ -0,0 +1,162 @@
+/**
+ * RepositoryTest.java
+ *
+ * Unit tests for the Repository class to verify that unchanged input files
+ * are recognised by size, modification time and content hash.
+ */
+
+package unitTests;
+
+import appDomain.Repository;
+import appDomain.Word;
+import implementations.BSTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.BSTreeADT;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the file records kept by the repository.
+ */
+public class RepositoryTest {
+    private Repository repository; // repository under test
+    private File file;             // input file whose state is recorded
+
+    /**
+     * Creates an empty repository and a small input file.
+     * Precondition: None.
+     * Postcondition: The file exists and has no record.
+     *
+     * @throws Exception if the temporary file cannot be created
+     */
+    @Before
+    public void setUp() throws Exception {
+        repository = new Repository(new BSTree<Word>(), true);
+        file = File.createTempFile("repository", ".txt");
+        Files.write(file.toPath(), "hello world".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes the input file.
+     * Precondition: None.
+     * Postcondition: The temporary file is removed.
+     */
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Tests that only recorded files are reported as possibly present or unchanged.
+     * Precondition: File has no record.
+     * Postcondition: After recording, the file is unchanged in the same mode and with the same options only.
+     *
+     * @throws Exception if the file cannot be read
+     */
+    @Test
+    public void testRecordFile() throws Exception {
+        String name = file.getPath();
+        assertFalse(repository.mayContain(name));
+        assertFalse(repository.isUnchanged(name, false, ""));
+
+        repository.recordFile(name, false, " -stop -stem", Collections.<String>emptyList());
+        assertTrue(repository.mayContain(name));
+        assertTrue(repository.isUnchanged(name, false, " -stop -stem"));
+        assertFalse(repository.isUnchanged(name, true, " -stop -stem"));
+        assertFalse(repository.isUnchanged(name, false, " -stop"));
+        assertFalse(repository.isUnchanged(name, false, ""));
+        assertTrue(new Repository(new BSTree<Word>(), false).mayContain(name));
+    }
+
+    /**
+     * Tests that a new modification time only counts as a change if the content differs.
+     * Precondition: File is recorded.
+     * Postcondition: Touched files are unchanged; rewritten files of the same size are changed.
+     *
+     * @throws Exception if the file cannot be written
+     */
+    @Test
+    public void testContentHash() throws Exception {
+        String name = file.getPath();
+        repository.recordFile(name, false, "", Collections.<String>emptyList());
+
+        assertTrue(file.setLastModified(file.lastModified() - 60000));
+        assertTrue(repository.isUnchanged(name, false, ""));
+
+        Files.write(file.toPath(), "hello there".getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(file.lastModified() - 120000));
+        assertFalse(repository.isUnchanged(name, false, ""));
+    }
+
+    /**
+     * Tests that a record describes the bytes that were read, not the file as it is afterwards.
+     * Precondition: File has no record.
+     * Postcondition: A file rewritten after it was read is changed; the bytes read match the file's hash.
+     *
+     * @throws Exception if the file cannot be written
+     */
+    @Test
+    public void testRecordBytesRead() throws Exception {
+        String name = file.getPath();
+        long size = file.length();
+        long modified = file.lastModified();
+        MessageDigest digest = Repository.newDigest();
+        digest.update("hello world".getBytes(StandardCharsets.UTF_8));
+        repository.recordFile(name, size, modified, digest, false, "", Collections.<String>emptyList());
+        assertTrue(repository.isUnchanged(name, false, ""));
+
+        // Rewritten while it was read: the recorded time is older and the content differs
+        Files.write(file.toPath(), "hello there".getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(modified + 60000));
+        assertFalse(repository.isUnchanged(name, false, ""));
+
+        // Only touched: the content still matches the bytes read
+        Files.write(file.toPath(), "hello world".getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(modified + 120000));
+        assertTrue(repository.isUnchanged(name, false, ""));
+    }
+
+    /**
+     * Tests that removing a file drops its occurrences and the words found only in it.
+     * Precondition: Two files share the word "hello".
+     * Postcondition: Only the other file's words remain, found through the file's word list or a full scan.
+     *
+     * @throws Exception if the file cannot be read
+     */
+    @Test
+    public void testRemoveFile() throws Exception {
+        String name = file.getPath();
+        BSTreeADT<Word> tree = repository.getTree();
+        Word hello = new Word("hello");
+        Word world = new Word("world");
+        Word other = new Word("other");
+        hello.addOccurrence(name, 1);
+        world.addOccurrence(name, 1);
+        hello.addOccurrence("other.txt", 2);
+        other.addOccurrence("other.txt", 2);
+        tree.add(hello);
+        tree.add(world);
+        tree.add(other);
+        repository.recordFile(name, false, "", Arrays.asList("hello", "world"));
+
+        assertTrue(repository.removeFile(name));
+        assertFalse(repository.removeFile(name));
+        assertFalse(repository.mayContain(name));
+        assertEquals(2, tree.size());
+        assertFalse(tree.contains(world));
+        assertEquals(1, tree.search(hello).getElement().getFrequency());
+
+        Repository legacy = new Repository(tree, false);
+        assertTrue(legacy.removeFile("other.txt"));
+        assertTrue(tree.isEmpty());
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * ShardedWordTreeTest.java
+ *
+ * Unit tests for the ShardedWordTree class to verify that words spread over
+ * alphabetical shards keep their order, and that a saved tree reloads each
+ * shard only when it is needed.
+ */
+
+package unitTests;
+
+import appDomain.PostingCache;
+import appDomain.ShardedWordTree;
+import appDomain.Word;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.Iterator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the sharded word tree.
+ */
+public class ShardedWordTreeTest {
+    private static final String[] WORDS = { "apple", "ant", "banana", "mango", "melon", "zebra", "42", "_under", "{brace" };
+
+    private File directory;           // directory holding the shard files
+    private ShardedWordTree tree;     // tree under test
+    private TreeSet<String> expected; // reference holding the same words
+
+    /**
+     * Fills a tree with words that fall into several shards, including the first and last.
+     * Precondition: None.
+     * Postcondition: Tree and reference set hold the same nine words.
+     *
+     * @throws Exception if the temporary directory cannot be created
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("shards").toFile();
+        tree = new ShardedWordTree(directory, "bst");
+        expected = new TreeSet<>();
+        for (String text : WORDS) {
+            assertTrue(tree.add(new Word(text)));
+            expected.add(text);
+        }
+    }
+
+    /**
+     * Deletes the shard files and their directory.
+     * Precondition: None.
+     * Postcondition: The temporary directory is removed.
+     */
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Tests that iteration, rank, select and the floor and ceiling queries cross shard boundaries.
+     * Precondition: Tree holds nine words.
+     * Postcondition: Results match the reference set.
+     */
+    @Test
+    public void testOrderAcrossShards() {
+        assertEquals(expected.size(), tree.size());
+        Iterator<Word> it = tree.inorderIterator();
+        int index = 0;
+        for (String text : expected) {
+            assertEquals(text, it.next().getWordText());
+            assertEquals(text, tree.select(index).getWordText());
+            assertEquals(index, tree.rank(new Word(text)));
+            index++;
+        }
+        assertFalse(it.hasNext());
+
+        for (String probe : new String[] { "a", "b", "c", "n", "zz", "0", "{", "~" }) {
+            assertEquals(expected.floor(probe), text(tree.floor(new Word(probe))));
+            assertEquals(expected.ceiling(probe), text(tree.ceiling(new Word(probe))));
+            assertEquals(expected.lower(probe), text(tree.lower(new Word(probe))));
+            assertEquals(expected.higher(probe), text(tree.higher(new Word(probe))));
+        }
+
+        it = tree.rangeIterator(new Word("b"), new Word("n"));
+        for (String text : expected.subSet("b", "n")) {
+            assertEquals(text, it.next().getWordText());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Tests that a saved tree reloads with its sizes known before any shard is read,
+     * and that a requested tree type converts the shards as they are read.
+     * Precondition: Tree holds nine words.
+     * Postcondition: The reloaded tree matches the original after removing a word.
+     *
+     * @throws Exception if the tree cannot be saved or read back
+     */
+    @Test
+    public void testSaveAndReload() throws Exception {
+        ShardedWordTree reloaded = reload(tree);
+        reloaded.attach(directory, "splay");
+
+        assertEquals(expected.size(), reloaded.size());
+        assertEquals("melon", reloaded.search(new Word("melon")).getElement().getWordText());
+        assertNotNull(reloaded.remove(new Word("zebra")));
+        expected.remove("zebra");
+        assertEquals(expected.size(), reloaded.size());
+
+        Iterator<Word> it = reloaded.inorderIterator();
+        for (String text : expected) {
+            assertEquals(text, it.next().getWordText());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Tests that a damaged shard file fails its checksum and resets only that shard,
+     * and that a tree can be recovered from the shard files without its sizes.
+     * Precondition: Tree holds nine words and is saved.
+     * Postcondition: Every word but the two in the "m" shard is found again.
+     *
+     * @throws Exception if the shard files cannot be written
+     */
+    @Test
+    public void testCorruptShard() throws Exception {
+        tree.save();
+        File mShard = directory.listFiles((dir, name) -> name.startsWith("shard-13") && name.endsWith(".ser"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(mShard, "rw")) {
+            file.seek(file.length() - 8);
+            file.writeLong(0L);
+        }
+        expected.remove("mango");
+        expected.remove("melon");
+
+        ShardedWordTree recovered = ShardedWordTree.recover(directory, "bst");
+        assertEquals(expected.size(), recovered.size());
+        assertFalse(recovered.contains(new Word("melon")));
+        Iterator<Word> it = recovered.inorderIterator();
+        for (String text : expected) {
+            assertEquals(text, it.next().getWordText());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Tests that the saved Bloom filters answer lookups of missing words without reading a shard.
+     * Precondition: Tree holds nine words.
+     * Postcondition: Missing words are not found while the "m" shard file is gone, and
+     * present words are still found once they are read.
+     *
+     * @throws Exception if the tree cannot be saved or read back
+     */
+    @Test
+    public void testBloomFilter() throws Exception {
+        ShardedWordTree reloaded = reload(tree);
+        for (File file : directory.listFiles((dir, name) -> name.startsWith("shard-13"))) {
+            assertTrue(file.delete());
+        }
+        for (int i = 0; i < 100; i++) {
+            assertNull(reloaded.search(new Word("m-missing" + i)));
+        }
+        assertEquals(WORDS.length, reloaded.size()); // the "m" shard was never read
+
+        assertNotNull(reload(tree).search(new Word("apple")));
+        assertNull(reload(tree).search(new Word("apples")));
+    }
+
+    /**
+     * Tests that reading a saved word's occurrences goes through the posting cache
+     * until the word is changed.
+     * Precondition: Tree holds nine words.
+     * Postcondition: The second read is a cache hit, and a changed word holds its own occurrences.
+     *
+     * @throws Exception if the tree cannot be saved or read back
+     */
+    @Test
+    public void testPostingCache() throws Exception {
+        tree.search(new Word("apple")).getElement().addOccurrence("a.txt", 3);
+        Word apple = reload(tree).search(new Word("apple")).getElement();
+        PostingCache cache = PostingCache.shared();
+        long hits = cache.hits();
+        long misses = cache.misses();
+
+        assertEquals(Arrays.asList(3), apple.getOccurrences().get("a.txt"));
+        assertEquals(misses + 1, cache.misses());
+        assertEquals(1, apple.getCount("a.txt"));
+        assertEquals(hits + 1, cache.hits());
+        assertTrue(cache.bytes() <= cache.capacity());
+
+        apple.addOccurrence("a.txt", 9);
+        assertEquals(Arrays.asList(3, 9), apple.getOccurrences().get("a.txt"));
+        assertEquals(hits + 1, cache.hits());
+        assertEquals(misses + 1, cache.misses());
+    }
+
+    /**
+     * Tests that occurrences saved apart from the dictionary read back unchanged,
+     * both when decoded after a reload and when copied undecoded by a second save.
+     * Precondition: Tree holds nine words.
+     * Postcondition: Every word keeps its lines and counts across two reloads.
+     *
+     * @throws Exception if the tree cannot be saved or read back
+     */
+    @Test
+    public void testPostings() throws Exception {
+        Iterator<Word> words = tree.inorderIterator();
+        while (words.hasNext()) {
+            Word word = words.next();
+            word.addOccurrence("a.txt", word.getWordText().length());
+            word.addOccurrence("a.txt", 40);
+            word.addCount("b.txt");
+        }
+
+        ShardedWordTree reloaded = reload(tree);
+        assertEquals(3, reloaded.search(new Word("banana")).getElement().getFrequency());
+        assertEquals(Arrays.asList(5, 40),
+                reloaded.search(new Word("melon")).getElement().getOccurrences().get("a.txt"));
+        reloaded.search(new Word("melon")).getElement().addOccurrence("c.txt", 7);
+
+        ShardedWordTree again = reload(reloaded);
+        Iterator<Word> it = again.inorderIterator();
+        for (String text : expected) {
+            Word word = it.next();
+            assertEquals(text.equals("melon") ? 4 : 3, word.getFrequency());
+            assertEquals(Arrays.asList(text.length(), 40), word.getOccurrences().get("a.txt"));
+            assertEquals(Integer.valueOf(1), word.getCounts().get("b.txt"));
+        }
+    }
+
+    /**
+     * Saves a tree with its index and reads it back as a later run would.
+     */
+    private ShardedWordTree reload(ShardedWordTree saved) throws Exception {
+        saved.save();
+        File index = new File(directory, "index.ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(index))) {
+            out.writeObject(saved);
+        }
+        ShardedWordTree reloaded;
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(index))) {
+            reloaded = (ShardedWordTree) in.readObject();
+        }
+        reloaded.attach(directory, null);
+        return reloaded;
+    }
+
+    /**
+     * Returns the text of a word, or null.
+     */
+    private static String text(Word word) {
+        return (word == null) ? null : word.getWordText();
+    }
+}
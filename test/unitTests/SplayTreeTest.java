@@ -0,0 +1,130 @@
+/**
+ * SplayTreeTest.java
+ *
+ * Unit tests for the SplayTree class to verify that accessed elements move to
+ * the root while ordering, sizes, rank and select stay correct.
+ */
+
+package unitTests;
+
+import implementations.SplayTree;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests self-adjusting behaviour of the splay tree.
+ */
+public class SplayTreeTest {
+    private SplayTree<Integer> tree; // tree holding 1 to 20
+
+    /**
+     * Fills a splay tree with the numbers 1 to 20 in ascending order.
+     * Precondition: None.
+     * Postcondition: Tree holds 20 elements.
+     */
+    @Before
+    public void setUp() {
+        tree = new SplayTree<>();
+        for (int i = 1; i <= 20; i++) {
+            tree.add(i);
+        }
+    }
+
+    /**
+     * Tests that adding and searching move the accessed element to the root.
+     * Precondition: Tree holds 1 to 20.
+     * Postcondition: The last accessed element is the root.
+     */
+    @Test
+    public void testAccessMovesToRoot() {
+        assertEquals(20, tree.getRoot().getElement().intValue());
+        assertNotNull(tree.search(3));
+        assertEquals(3, tree.getRoot().getElement().intValue());
+        assertNull(tree.search(99));
+    }
+
+    /**
+     * Tests that duplicates are rejected and size is tracked.
+     * Precondition: Tree holds 1 to 20.
+     * Postcondition: Adding an existing element leaves size unchanged.
+     */
+    @Test
+    public void testAddDuplicate() {
+        assertFalse(tree.add(7));
+        assertEquals(20, tree.size());
+    }
+
+    /**
+     * Tests that the in-order iteration stays sorted after many splays.
+     * Precondition: Several elements have been searched.
+     * Postcondition: Iteration yields 1 to 20 in order.
+     */
+    @Test
+    public void testInorderAfterSplaying() {
+        tree.search(10);
+        tree.search(2);
+        tree.search(17);
+        Iterator<Integer> it = tree.inorderIterator();
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(i, it.next().intValue());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Tests that subtree sizes survive rotations so rank and select stay correct.
+     * Precondition: Several elements have been searched.
+     * Postcondition: select and rank agree with the sorted positions.
+     */
+    @Test
+    public void testRankAndSelectAfterSplaying() {
+        tree.search(10);
+        tree.search(2);
+        tree.removeMin();
+        for (int i = 0; i < 19; i++) {
+            assertEquals(i + 2, tree.select(i).intValue());
+            assertEquals(i, tree.rank(i + 2));
+        }
+    }
+
+    /**
+     * Tests removal of the minimum and maximum.
+     * Precondition: Tree holds 1 to 20.
+     * Postcondition: Extremes are removed in order and size decreases.
+     */
+    @Test
+    public void testRemoveMinAndMax() {
+        assertEquals(1, tree.removeMin().getElement().intValue());
+        assertEquals(20, tree.removeMax().getElement().intValue());
+        assertEquals(2, tree.removeMin().getElement().intValue());
+        assertEquals(17, tree.size());
+        assertFalse(tree.contains(1));
+    }
+
+    /**
+     * Tests that removing an inner element joins its subtrees in order.
+     * Precondition: Tree holds 1 to 20.
+     * Postcondition: Removed elements are gone and ranks stay correct.
+     */
+    @Test
+    public void testRemove() {
+        assertEquals(10, tree.remove(10).getElement().intValue());
+        assertNull(tree.remove(10));
+        assertEquals(1, tree.remove(1).getElement().intValue());
+        assertEquals(20, tree.remove(20).getElement().intValue());
+        assertEquals(17, tree.size());
+        assertEquals(8, tree.rank(10));
+        assertEquals(11, tree.select(8).intValue());
+
+        Iterator<Integer> it = tree.inorderIterator();
+        for (int i = 2; i < 20; i++) {
+            if (i != 10) {
+                assertEquals(i, it.next().intValue());
+            }
+        }
+        assertFalse(it.hasNext());
+    }
+}
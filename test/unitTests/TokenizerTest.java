@@ -0,0 +1,108 @@
+/**
+ * TokenizerTest.java
+ *
+ * Unit tests for the Tokenizer class to verify that lines are split at
+ * delimiters or at Unicode word boundaries, folded to lowercase without
+ * regard to the default locale, and passed through the optional stages.
+ */
+
+package unitTests;
+
+import appDomain.Tokenizer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the tokenizer pipeline.
+ */
+public class TokenizerTest {
+
+    /**
+     * Tests that the default delimiters split a line as before.
+     * Precondition: None.
+     * Postcondition: Punctuation separates tokens and apostrophes and hyphens stay inside them.
+     */
+    @Test
+    public void testDefaultDelimiters() {
+        assertEquals(Arrays.asList("the", "cat's", "e-mail", "x", "42"),
+                tokens(new Tokenizer(), "The CAT's (e-mail): x, 42!"));
+        assertEquals(Arrays.asList("a", "b c"), tokens(new Tokenizer("|"), "a|b c|"));
+    }
+
+    /**
+     * Tests word-boundary splitting of accented, ideographic and mixed text.
+     * Precondition: None.
+     * Postcondition: Accented words stay whole, each ideograph stands alone and apostrophes join letters.
+     */
+    @Test
+    public void testUnicode() {
+        assertEquals(Arrays.asList("caf\u00e9", "na\u00efve", "\u4e2d", "\u6587", "don't", "e", "mail"),
+                tokens(Tokenizer.unicode(), "Caf\u00e9 NA\u00cfVE \u4e2d\u6587 don't e-mail"));
+        assertEquals(Arrays.asList("quoted"), tokens(Tokenizer.unicode(), "'quoted'"));
+    }
+
+    /**
+     * Tests locale-independent folding and composition of accents.
+     * Precondition: None.
+     * Postcondition: Combining and precomposed accents fold to the same word; lowercase ASCII is not copied.
+     */
+    @Test
+    public void testFold() {
+        assertEquals("caf\u00e9", Tokenizer.fold("CAF\u00c9"));
+        assertEquals("caf\u00e9", Tokenizer.fold("CAFE\u0301"));
+        assertEquals("title", Tokenizer.fold("TITLE"));
+        String lower = "plain";
+        assertSame(lower, Tokenizer.fold(lower));
+    }
+
+    /**
+     * Tests the stemming and stop-word stages.
+     * Precondition: None.
+     * Postcondition: Plurals are reduced and stop words are dropped before stemming sees them.
+     */
+    @Test
+    public void testStages() {
+        Tokenizer tokenizer = new Tokenizer()
+                .addStage(Tokenizer.stopWords(Arrays.asList("The", "and")))
+                .addStage(Tokenizer.STEM);
+        assertEquals(Arrays.asList("cat", "pony", "horse", "glass", "bus"),
+                tokens(tokenizer, "The cats and ponies and horses, glass bus"));
+        assertNull(tokenizer.normalize("AND"));
+        assertEquals("dog", tokenizer.normalize("Dogs"));
+    }
+
+    /**
+     * Tests the length, number and built-in stop-word filters.
+     * Precondition: None.
+     * Postcondition: Short, long, numeric and stop-word tokens are dropped; words with digits are kept.
+     */
+    @Test
+    public void testFilters() {
+        Tokenizer tokenizer = new Tokenizer(" ")
+                .addStage(Tokenizer.lengthBetween(2, 6))
+                .addStage(Tokenizer.SKIP_NUMBERS);
+        assertEquals(Arrays.asList("ab", "mp3", "sixsix"),
+                tokens(tokenizer, "a ab 42 3.14 2024-01-05 10:30 mp3 sixsix seven77 -"));
+        assertNull(tokenizer.normalize("toolongword"));
+        Tokenizer stopWords = new Tokenizer().addStage(Tokenizer.stopWords(Tokenizer.ENGLISH_STOP_WORDS));
+        assertEquals(Arrays.asList("cat", "hat"), tokens(stopWords, "The cat is in the hat"));
+    }
+
+    /**
+     * Returns every token of a line.
+     */
+    private static List<String> tokens(Tokenizer tokenizer, String line) {
+        List<String> tokens = new ArrayList<>();
+        tokenizer.reset(line);
+        String token;
+        while ((token = tokenizer.next()) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * TopWordsTest.java
+ *
+ * Unit tests for the TopWords class to verify that the most frequent words
+ * are selected in order, that ties are broken alphabetically, and that asking
+ * for more words than the tree holds returns them all.
+ */
+
+package unitTests;
+
+import appDomain.TopWords;
+import appDomain.Word;
+import implementations.BSTree;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.BSTreeADT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the most-frequent-word selection.
+ */
+public class TopWordsTest {
+    private BSTreeADT<Word> tree; // words with known frequencies
+
+    /**
+     * Fills a tree with words of frequencies 3, 2, 2, 2 and 1.
+     * Precondition: None.
+     * Postcondition: "cherry" is most frequent; "apple", "date" and "fig" tie; "banana" is least frequent.
+     */
+    @Before
+    public void setUp() {
+        tree = new BSTree<>();
+        add("fig", 2);
+        add("cherry", 3);
+        add("apple", 2);
+        add("banana", 1);
+        add("date", 2);
+    }
+
+    /**
+     * Tests that words are returned by descending frequency, ties alphabetically.
+     * Precondition: Tree holds five words.
+     * Postcondition: A tie cut off by the count keeps the alphabetically first words.
+     */
+    @Test
+    public void testTies() {
+        assertEquals(Arrays.asList("cherry", "apple", "date", "fig"), texts(TopWords.select(tree, 4)));
+        assertEquals(Arrays.asList("cherry", "apple", "date"), texts(TopWords.select(tree, 3)));
+        assertEquals(Arrays.asList("cherry"), texts(TopWords.select(tree, 1)));
+    }
+
+    /**
+     * Tests that a count larger than the tree returns every word without sizing the heap by the count.
+     * Precondition: Tree holds five words.
+     * Postcondition: All five words are returned, and none from an empty tree.
+     */
+    @Test
+    public void testCountAboveSize() {
+        List<String> all = Arrays.asList("cherry", "apple", "date", "fig", "banana");
+        assertEquals(all, texts(TopWords.select(tree, 6)));
+        assertEquals(all, texts(TopWords.select(tree, Integer.MAX_VALUE)));
+        assertTrue(TopWords.select(new BSTree<Word>(), Integer.MAX_VALUE).isEmpty());
+    }
+
+    /**
+     * Adds a word occurring on the given number of lines of one file.
+     */
+    private void add(String text, int frequency) {
+        Word word = new Word(text);
+        for (int line = 1; line <= frequency; line++) {
+            word.addOccurrence("a.txt", line);
+        }
+        tree.add(word);
+    }
+
+    /**
+     * Returns the text of each word, in order.
+     */
+    private static List<String> texts(List<Word> words) {
+        List<String> texts = new ArrayList<>();
+        for (Word word : words) {
+            texts.add(word.getWordText());
+        }
+        return texts;
+    }
+}
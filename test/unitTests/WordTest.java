@@ -8,8 +8,10 @@
 package unitTests;
 
 import appDomain.Word;
+import implementations.BSTree;
 import org.junit.Before;
 import org.junit.Test;
+import utilities.Iterator;
 
 import java.util.List;
 import java.util.Map;
@@ -83,6 +85,57 @@ public class WordTest {
         assertEquals(3, word.getFrequency());
     }
 
+    /**
+     * Tests that count-only occurrences are counted without line numbers.
+     * Precondition: Word added to one file with lines and one without.
+     * Postcondition: Counts and frequency include both files.
+     */
+    @Test
+    public void testAddCount() {
+        word.addOccurrence("file1.txt", 1);
+        word.addCount("file2.txt");
+        word.addCount("file2.txt");
+        assertEquals(3, word.getFrequency());
+        assertEquals(2, word.getCounts().get("file2.txt").intValue());
+        assertEquals(1, word.getCounts().get("file1.txt").intValue());
+        assertFalse(word.getOccurrences().containsKey("file2.txt"));
+    }
+
+    /**
+     * Tests that removing a file drops all of its occurrences.
+     * Precondition: Word added to two files.
+     * Postcondition: Only the other file's occurrences remain.
+     */
+    @Test
+    public void testRemoveFile() {
+        word.addOccurrence("file1.txt", 1);
+        word.addCount("file2.txt");
+        assertTrue(word.removeFile("file2.txt"));
+        assertFalse(word.removeFile("file2.txt"));
+        assertTrue(word.removeFile("file1.txt"));
+        assertEquals(0, word.getFrequency());
+        assertTrue(word.getCounts().isEmpty());
+    }
+
+    /**
+     * Tests that a range bound keeps its case, so a prefix range ending at "johnA" stops before "john_smith".
+     * Precondition: Tree holds words starting with "john".
+     * Postcondition: Only the word starting with "john@" is in the range.
+     */
+    @Test
+    public void testBoundKeepsCase() {
+        assertEquals("johnA", Word.bound("johnA").getWordText());
+        assertTrue(new Word("john_smith").compareTo(Word.bound("johnA")) > 0);
+
+        BSTree<Word> tree = new BSTree<>();
+        for (String text : new String[] { "john_smith", "john@example", "johnny" }) {
+            tree.add(new Word(text));
+        }
+        Iterator<Word> range = tree.rangeIterator(new Word("john@"), Word.bound("johnA"));
+        assertEquals("john@example", range.next().getWordText());
+        assertFalse(range.hasNext());
+    }
+
     /**
      * Tests that comparison and equality methods are consistent.
      * Precondition: Two Word objects with identical text.
@@ -0,0 +1,236 @@
+/**
+ * WriteAheadLogTest.java
+ *
+ * Unit tests for the WriteAheadLog class to verify that logged files read,
+ * counted or removed are replayed into a freshly loaded repository, that a
+ * record cut short or damaged by a crash ends the replay, and that sealed
+ * and cleared records are not replayed again.
+ */
+
+package unitTests;
+
+import appDomain.Repository;
+import appDomain.Word;
+import appDomain.WriteAheadLog;
+import implementations.BSTree;
+import implementations.BSTreeNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the write-ahead log.
+ */
+public class WriteAheadLogTest {
+    private File directory;        // directory holding the log
+    private WriteAheadLog log;     // log under test
+    private Repository repository; // repository the logged changes are made to
+
+    /**
+     * Creates an empty log and a repository holding "cherry" from c.txt.
+     * Precondition: None.
+     * Postcondition: Nothing is logged yet.
+     *
+     * @throws Exception if the temporary directory cannot be created
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("wal").toFile();
+        log = new WriteAheadLog(new File(directory, "wal.log"));
+        repository = savedRepository();
+    }
+
+    /**
+     * Closes the log and deletes its files.
+     * Precondition: None.
+     * Postcondition: The temporary directory is removed.
+     *
+     * @throws Exception if the log cannot be closed
+     */
+    @After
+    public void tearDown() throws Exception {
+        log.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Tests that a file read with line numbers, a file only counted and a removed file are all replayed.
+     * Precondition: The saved repository holds c.txt.
+     * Postcondition: The fresh repository matches the one the changes were made to.
+     *
+     * @throws Exception if the log cannot be used
+     */
+    @Test
+    public void testReplay() throws Exception {
+        ingest("a.txt", false, "apple", "banana", "apple");
+        ingest("b.txt", true, "banana", "banana", "banana");
+        assertTrue(repository.removeFile("c.txt"));
+        log.logRemove("c.txt");
+        log.close();
+
+        Repository fresh = savedRepository();
+        assertEquals(3, log.replay(fresh));
+        assertEquals(Arrays.asList(1, 3), find(fresh, "apple").getOccurrences().get("a.txt"));
+        Word banana = find(fresh, "banana");
+        assertEquals(Arrays.asList(2), banana.getOccurrences().get("a.txt"));
+        assertNull(banana.getOccurrences().get("b.txt"));
+        assertEquals(3, banana.getCount("b.txt"));
+        assertNull(find(fresh, "cherry"));
+        assertTrue(fresh.mayContain("a.txt"));
+        assertTrue(fresh.mayContain("b.txt"));
+        assertFalse(fresh.mayContain("c.txt"));
+        assertEquals(2, fresh.getTree().size());
+    }
+
+    /**
+     * Tests that a last record cut short by a crash ends the replay without losing the earlier ones.
+     * Precondition: Two files are logged.
+     * Postcondition: Only the first file is replayed.
+     *
+     * @throws Exception if the log cannot be used
+     */
+    @Test
+    public void testTruncatedRecord() throws Exception {
+        ingest("a.txt", false, "apple");
+        ingest("b.txt", false, "banana");
+        log.close();
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "wal.log"), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+        assertReplaysFirstFileOnly();
+    }
+
+    /**
+     * Tests that a last record failing its checksum ends the replay without losing the earlier ones.
+     * Precondition: Two files are logged.
+     * Postcondition: Only the first file is replayed.
+     *
+     * @throws Exception if the log cannot be used
+     */
+    @Test
+    public void testDamagedRecord() throws Exception {
+        ingest("a.txt", false, "apple");
+        ingest("b.txt", false, "banana");
+        log.close();
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "wal.log"), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xff);
+        }
+        assertReplaysFirstFileOnly();
+    }
+
+    /**
+     * Tests that sealed records are replayed before newer ones until discarded, and that a cleared log is empty.
+     * Precondition: Nothing is logged.
+     * Postcondition: Only records logged after the discarded seal, and after the clear none, are replayed.
+     *
+     * @throws Exception if the log cannot be used
+     */
+    @Test
+    public void testRotateAndClear() throws Exception {
+        assertNull(log.rotate());
+        ingest("a.txt", false, "apple");
+        File sealed = log.rotate();
+        assertTrue(sealed.exists());
+        assertTrue(repository.removeFile("a.txt"));
+        log.logRemove("a.txt");
+        ingest("b.txt", false, "banana");
+
+        Repository fresh = savedRepository();
+        assertEquals(3, log.replay(fresh));
+        assertNull(find(fresh, "apple"));
+        assertNotNull(find(fresh, "banana"));
+
+        log.discard(sealed);
+        assertFalse(sealed.exists());
+        assertEquals(2, log.replay(savedRepository()));
+
+        log.clear();
+        assertEquals(0, log.replay(savedRepository()));
+        String[] left = directory.list();
+        assertEquals(0, (left != null) ? left.length : -1);
+    }
+
+    /**
+     * Replays the log into a fresh repository and checks that only a.txt was applied.
+     */
+    private void assertReplaysFirstFileOnly() throws Exception {
+        Repository fresh = savedRepository();
+        assertEquals(1, log.replay(fresh));
+        assertEquals(Arrays.asList(1), find(fresh, "apple").getOccurrences().get("a.txt"));
+        assertNull(find(fresh, "banana"));
+        assertFalse(fresh.mayContain("b.txt"));
+    }
+
+    /**
+     * Reads words into the repository as WordTracker does, one word per line, and logs the file.
+     */
+    private void ingest(String filename, boolean countOnly, String... words) throws Exception {
+        for (int i = 0; i < words.length; i++) {
+            Word word = find(repository, words[i]);
+            if (word == null) {
+                word = new Word(words[i]);
+                repository.getTree().add(word);
+            }
+            if (countOnly) {
+                word.addCount(filename);
+            } else {
+                word.addOccurrence(filename, i + 1);
+            }
+        }
+        Set<String> fileWords = new HashSet<>(Arrays.asList(words));
+        repository.recordFile(filename, 1, 1, newDigest(), countOnly, "", fileWords);
+        log.logIngest(repository, filename, fileWords);
+    }
+
+    /**
+     * Builds the repository as last saved: "cherry" on line 1 of c.txt.
+     */
+    private static Repository savedRepository() {
+        Repository saved = new Repository(new BSTree<Word>(), true);
+        Word cherry = new Word("cherry");
+        cherry.addOccurrence("c.txt", 1);
+        saved.getTree().add(cherry);
+        saved.recordFile("c.txt", 1, 1, newDigest(), false, "", Collections.singletonList("cherry"));
+        return saved;
+    }
+
+    /**
+     * Creates a digest for records whose hash does not matter here.
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return Repository.newDigest();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Looks a word up in a repository's tree.
+     */
+    private static Word find(Repository repository, String text) {
+        BSTreeNode<Word> node = repository.getTree().search(new Word(text));
+        return (node != null) ? node.getElement() : null;
+    }
+}